@@ -1,10 +1,21 @@
 package com.estilo26.api;
 
+import com.estilo26.api.config.RateLimitFilter;
+import com.estilo26.api.config.SessionTokenFilter;
+import com.estilo26.api.service.RateLimiter;
+import com.estilo26.api.service.SessionTokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,6 +23,8 @@ import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -20,6 +33,7 @@ import java.util.List;
 
 @SpringBootApplication
 @EnableWebSecurity
+@EnableScheduling // Archivo nocturno de citas cerradas (AppointmentArchiveService)
 public class ApiEstilo26Application {
 
     public static void main(String[] args) {
@@ -42,28 +56,59 @@ public class ApiEstilo26Application {
         return new InMemoryUserDetailsManager(user);
     }
 
-    // 3. SEGURIDAD: PUERTAS ABIERTAS
+    // 3. SEGURIDAD: FICHAS FIRMADAS, SIN SESIÓN EN EL SERVIDOR
+    // BCrypt corre solo en POST /api/auth/login; cada petición después trae "Authorization: Bearer <ficha>"
+    // y SessionTokenFilter la valida con HMAC (sin httpBasic: eso era un BCrypt por petición).
+    // estilo26.auth.required=false: PUERTAS ABIERTAS (el panel de React todavía no manda la ficha).
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   SessionTokenService sessionTokens,
+                                                   @Value("${estilo26.auth.required:false}") boolean authRequired) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
-                .authorizeHttpRequests(auth -> auth
-                        .anyRequest().permitAll() // DEJAR PASAR TODO
-                )
-                .httpBasic(basic -> {});
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new SessionTokenFilter(sessionTokens), UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .authorizeHttpRequests(auth -> {
+                    if (authRequired) {
+                        // /actuator/prometheus NO es público: expone volumen de citas, cobros y el pool de la BD.
+                        // Prometheus lo raspa con "Authorization: Bearer <ficha>" (ver application.properties (16))
+                        auth.requestMatchers("/api/auth/**", "/actuator/health").permitAll()
+                                // La página de reservas del cliente: catálogo, horarios libres y reservar
+                                .requestMatchers(HttpMethod.GET, "/api/services", "/api/appointments/availability").permitAll()
+                                .requestMatchers(HttpMethod.POST, "/api/appointments").permitAll()
+                                .anyRequest().authenticated();
+                    } else {
+                        auth.anyRequest().permitAll(); // DEJAR PASAR TODO
+                    }
+                });
 
         return http.build();
     }
 
     // 4. CORS
+    // Primero que todo: así también las respuestas 401 y 429 llevan sus cabeceras y React puede leerlas.
     @Bean
-    public CorsFilter corsFilter() {
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOrigins(List.of("http://localhost:3000"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("Retry-After"));
         source.registerCorsConfiguration("/**", config);
-        return new CorsFilter(source);
+        FilterRegistrationBean<CorsFilter> registro = new FilterRegistrationBean<>(new CorsFilter(source));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+
+    // 5. LÍMITE DE PETICIONES (login y reservas públicas), justo después de CORS:
+    // una petición frenada no llega ni a la seguridad ni a la BD.
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, SessionTokenService sessionTokens) {
+        FilterRegistrationBean<RateLimitFilter> registro =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, sessionTokens));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registro;
     }
 }
@@ -0,0 +1,44 @@
+package com.estilo26.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * -------------------------------------------------------------
+ * CANDADO A NIVEL BASE DE DATOS: "Ningún barbero con dos citas encimadas"
+ * -------------------------------------------------------------
+ * Un constraint de exclusión (EXCLUDE USING gist) hace que Postgres rechace
+ * cualquier INSERT/UPDATE cuyo rango [inicio, fin) se cruce con otra cita
+ * del mismo barbero. Funciona aunque haya varias instancias de la API.
+ *
+ * Lo instalan las migraciones V3/V9 (V9 falla si no puede). Si aun así falta (alguien lo borró
+ * a mano), la API NO arranca: sin él, dos instancias pueden dar el mismo horario.
+ */
+@Component
+public class BookingConstraintCheck {
+
+    public static final String CONSTRAINT_NAME = "appointments_no_overlap";
+
+    private static final Logger log = LoggerFactory.getLogger(BookingConstraintCheck.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingConstraintCheck(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void failIfMissing() {
+        Integer existe = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, CONSTRAINT_NAME);
+        if (existe != null && existe > 0) return;
+
+        // Hay que limpiar las citas encimadas y volver a correr el bloque de V9__booking_overlap_constraint_required.sql
+        log.error("Falta el constraint {} en appointments: la API no arranca sin él", CONSTRAINT_NAME);
+        throw new IllegalStateException("Falta el constraint " + CONSTRAINT_NAME + " en appointments");
+    }
+}
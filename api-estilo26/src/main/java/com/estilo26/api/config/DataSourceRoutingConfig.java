@@ -0,0 +1,86 @@
+package com.estilo26.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * -------------------------------------------------------------
+ * PRIMARIO PARA ESCRIBIR, RÉPLICA PARA LOS REPORTES
+ * -------------------------------------------------------------
+ * ANTES: un solo pool. Un corte de mes o una exportación de un año ocupaban las mismas
+ * conexiones (y el mismo Postgres) que la recepción necesita para agendar.
+ * AHORA: dos pools.
+ *   - primario: todo lo que escribe y todo lo que no está en una transacción readOnly.
+ *   - réplica:  las transacciones @Transactional(readOnly = true): reportes (corte, nómina, ranking VIP)
+ *               y exportación. La agenda en vivo NO: tiene que ver lo que se acaba de escribir.
+ *
+ * CÓMO SE DECIDE: LazyConnectionDataSourceProxy no pide la conexión física hasta la primera
+ * consulta; para entonces Spring ya la marcó readOnly (o no) y con eso elige el pool.
+ * Si la réplica no contesta, ReplicaFallbackDataSource lee del primario.
+ *
+ * En local la "réplica" es la misma base con otro pool (estilo26.datasource.replica.url
+ * apunta por defecto a spring.datasource.url); en producción, la URL del hot standby.
+ * Se distinguen en pg_stat_activity por application_name.
+ */
+@Configuration(proxyBeanMethods = false)
+public class DataSourceRoutingConfig {
+
+    // El pool de siempre (spring.datasource.*)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("estilo26-primary");
+        pool.addDataSourceProperty("ApplicationName", "estilo26-primary");
+        return pool;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnBooleanProperty(name = "estilo26.datasource.replica.enabled", matchIfMissing = true)
+    public ReplicaFallbackDataSource replicaDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            DataSourceProperties properties,
+            @Value("${estilo26.datasource.replica.url:}") String url,
+            @Value("${estilo26.datasource.replica.username:}") String username,
+            @Value("${estilo26.datasource.replica.password:}") String password,
+            @Value("${estilo26.datasource.replica.maximum-pool-size:5}") int maxPoolSize,
+            @Value("${estilo26.datasource.replica.minimum-idle:1}") int minIdle,
+            @Value("${estilo26.datasource.replica.connection-timeout:2000}") long connectionTimeout,
+            @Value("${estilo26.datasource.replica.retry-seconds:30}") long retrySeconds) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("estilo26-replica");
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setJdbcUrl(url.isBlank() ? properties.determineUrl() : url);
+        pool.setUsername(username.isBlank() ? properties.determineUsername() : username);
+        pool.setPassword(username.isBlank() ? properties.determinePassword() : password);
+        pool.setMaximumPoolSize(maxPoolSize);
+        pool.setMinimumIdle(minIdle);
+        pool.setConnectionTimeout(connectionTimeout);
+        // Nunca escribe (aunque alguien se equivoque de pool) y no impide arrancar si está caída
+        pool.setReadOnly(true);
+        pool.setInitializationFailTimeout(-1);
+        pool.addDataSourceProperty("ApplicationName", "estilo26-replica");
+        return new ReplicaFallbackDataSource(pool, primary, retrySeconds);
+    }
+
+    // El que usan JPA, JdbcTemplate, Flyway y los @Transactional (sin transacción readOnly: primario)
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replica) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        replica.ifAvailable(proxy::setReadOnlyDataSource);
+        return proxy;
+    }
+}
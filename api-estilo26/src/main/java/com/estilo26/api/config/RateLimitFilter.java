@@ -0,0 +1,90 @@
+package com.estilo26.api.config;
+
+import com.estilo26.api.service.RateLimiter;
+import com.estilo26.api.service.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+
+/**
+ * -------------------------------------------------------------
+ * LÍMITE POR IP EN LAS PUERTAS PÚBLICAS (antes de BCrypt y de la BD)
+ * -------------------------------------------------------------
+ * POST /api/auth/login    -> regla "login-ip"   (cada intento cuesta un BCrypt)
+ * POST /api/appointments  -> regla "booking-ip" (el formulario público de reservas)
+ *
+ * Recepción usa el mismo POST para los walk-ins y todos salen por la IP del local: con una
+ * ficha válida (Bearer) la reserva no cuenta contra booking-ip. Verificarla es un HMAC, sin BD.
+ *
+ * Corre antes que la seguridad y los controladores: una petición frenada no toca nada más.
+ * El límite por username del login va en AuthController (el nombre viene en el cuerpo JSON).
+ * IP: getRemoteAddr(). Detrás de un proxy, activar server.forward-headers-strategy para que sea la del cliente.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    // La ruta como la ve Spring MVC: decodificada y sin ";parametros" ni "//".
+    // Con getRequestURI() crudo, "/api/appointment%73" o "/api/auth/login;x" llegaban al controlador sin límite.
+    private static final UrlPathHelper RUTAS = new UrlPathHelper();
+
+    private final RateLimiter limiter;
+    private final SessionTokenService tokens;
+
+    public RateLimitFilter(RateLimiter limiter, SessionTokenService tokens) {
+        this.limiter = limiter;
+        this.tokens = tokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String regla = ruleFor(request);
+        if ("booking-ip".equals(regla) && hasValidSession(request)) {
+            regla = null;
+        }
+        if (regla != null) {
+            RateLimiter.Decision decision = limiter.tryAcquire(regla, request.getRemoteAddr());
+            if (!decision.allowed()) {
+                reject(response, decision.retryAfterSeconds());
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String ruleFor(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) return null;
+        String ruta = RUTAS.getPathWithinApplication(request);
+        if (ruta.length() > 1 && ruta.endsWith("/")) {
+            ruta = ruta.substring(0, ruta.length() - 1);
+        }
+        return switch (ruta) {
+            case "/api/auth/login" -> "login-ip";
+            case "/api/appointments" -> "booking-ip";
+            default -> null;
+        };
+    }
+
+    private boolean hasValidSession(HttpServletRequest request) {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return cabecera != null && cabecera.startsWith(PREFIJO)
+                && tokens.verify(cabecera.substring(PREFIJO.length()).trim()).isPresent();
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("Demasiados intentos, vuelve a intentar en " + retryAfterSeconds + " s");
+    }
+}
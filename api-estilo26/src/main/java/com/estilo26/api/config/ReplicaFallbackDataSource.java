@@ -0,0 +1,84 @@
+package com.estilo26.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * -------------------------------------------------------------
+ * RÉPLICA CON RED (si no contesta, se lee del primario)
+ * -------------------------------------------------------------
+ * Un reporte nunca debe fallar porque la réplica se cayó o se quedó sin conexiones:
+ * si no entrega una conexión, esa lectura se hace en el primario.
+ * Tras un fallo, la réplica descansa retry-seconds (no se paga su timeout en cada petición).
+ */
+public class ReplicaFallbackDataSource extends DelegatingDataSource implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFallbackDataSource.class);
+
+    private final DataSource primary;
+    private final long retryNanos;
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    // System.nanoTime() hasta el que no se intenta la réplica (0 = disponible)
+    private volatile long downUntil;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, long retrySeconds) {
+        super(replica);
+        this.primary = primary;
+        this.retryNanos = TimeUnit.SECONDS.toNanos(retrySeconds);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long until = downUntil;
+        if (until != 0 && System.nanoTime() - until < 0) {
+            fallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+        try {
+            Connection con = super.getConnection();
+            downUntil = 0;
+            return con;
+        } catch (SQLException e) {
+            if (until == 0) log.warn("Réplica sin conexión ({}); las lecturas van al primario por {} s",
+                    e.getMessage(), TimeUnit.NANOSECONDS.toSeconds(retryNanos));
+            downUntil = System.nanoTime() + retryNanos;
+            fallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // El pool de la réplica no es un bean: sus hikaricp_* (pool="estilo26-replica") se enlazan aquí.
+        // Solo si nadie lo hizo ya y antes de que arranque (después Hikari ya no lo acepta).
+        if (getTargetDataSource() instanceof HikariDataSource pool && !pool.isRunning()
+                && pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+            pool.setMetricRegistry(registry);
+        }
+        FunctionCounter.builder("estilo26.datasource.replica.fallbacks", this, ReplicaFallbackDataSource::getFallbacks)
+                .description("Lecturas de solo lectura que se hicieron en el primario porque la réplica no contestó")
+                .register(registry);
+    }
+
+    // El pool de la réplica no es un bean: se cierra con este
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable pool) pool.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.estilo26.api.config;
+
+import com.estilo26.api.service.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * -------------------------------------------------------------
+ * PORTERO DE CADA PETICIÓN: "Authorization: Bearer <ficha>"
+ * -------------------------------------------------------------
+ * Revisa la firma HMAC y las fechas de la ficha (SessionTokenService): nada de BCrypt
+ * ni de ir a la BD por petición. Si es buena, la petición entra autenticada con el rol del usuario.
+ *
+ * - Sin cabecera: sigue como anónima (la cadena de seguridad decide si eso basta).
+ * - Ficha mala, vencida o revocada: 401 de inmediato (mejor que tratarla como anónima
+ *   y que el cliente no se entere de que tiene que volver a entrar).
+ *
+ * No es @Component a propósito: Spring Boot la registraría también como filtro del servidor
+ * y correría dos veces. Se agrega solo en la cadena de seguridad (ApiEstilo26Application).
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final SessionTokenService tokens;
+
+    public SessionTokenFilter(SessionTokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera == null || !cabecera.startsWith(PREFIJO)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<SessionTokenService.Session> sesion = tokens.verify(cabecera.substring(PREFIJO.length()).trim());
+        if (sesion.isEmpty()) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("Sesión inválida o vencida");
+            return;
+        }
+
+        SessionTokenService.Session s = sesion.get();
+        UsernamePasswordAuthenticationToken auth = UsernamePasswordAuthenticationToken.authenticated(
+                s.username(), s, List.of(new SimpleGrantedAuthority("ROLE_" + s.role())));
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.estilo26.api.config;
+
+import com.estilo26.api.dto.AppointmentImportDTO;
+import com.estilo26.api.dto.AppointmentImportResultDTO;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.ServiceRepository;
+import com.estilo26.api.repository.UserRepository;
+import com.estilo26.api.service.AppointmentImportService;
+import com.estilo26.api.service.ServiceCatalogCache;
+import com.estilo26.api.service.UserDirectoryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * -------------------------------------------------------------
+ * GENERADOR DE DATOS SINTÉTICOS (Perfil "synthetic")
+ * -------------------------------------------------------------
+ * Siembra una barbería "de verdad" para probar la API con volumen:
+ * barberos, catálogo completo y N meses de historia + las próximas semanas de agenda.
+ *
+ * - Los clientes NO visitan parejo: unos pocos vienen muy seguido (los VIP)
+ *   y la mayoría casi siempre con el mismo barbero.
+ * - Domingos cerrado; el resto de los días, citas seguidas de 9:00 a 20:00 con huecos al azar.
+ * - Las citas entran por AppointmentImportService: mismas validaciones, mismos choques,
+ *   INSERT por lotes, y caja + fichas de clientes recalculadas al final.
+ * - Misma semilla = mismos datos. Si ya hay citas sintéticas, no vuelve a sembrar.
+ *
+ * Activar con: --spring.profiles.active=synthetic (volúmenes en application-synthetic.properties)
+ */
+@Component
+@Profile("synthetic")
+@Order(Ordered.LOWEST_PRECEDENCE) // Después de DataLoader (el admin y los 3 servicios base)
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // Todo lo sembrado se reconoce por este prefijo en el nombre del barbero
+    public static final String BARBER_PREFIX = "sintetico-";
+
+    private static final LocalTime APERTURA = LocalTime.of(9, 0);
+    private static final LocalTime CIERRE = LocalTime.of(20, 0);
+
+    // Catálogo típico: nombre, precio, minutos
+    private static final Object[][] CATALOGO = {
+            {"Corte Clásico", "180.00", 30}, {"Fade / Degradado", "220.00", 45}, {"Arreglo de Barba", "150.00", 30},
+            {"Afeitado con Navaja", "200.00", 30}, {"Cejas", "80.00", 15}, {"Corte Niño", "150.00", 30},
+            {"Lavado y Peinado", "100.00", 15}, {"Diseño / Líneas", "90.00", 15}, {"Mascarilla Facial", "160.00", 20},
+            {"Tinte de Barba", "250.00", 40}, {"Keratina", "450.00", 60}, {"Masaje Capilar", "120.00", 20}
+    };
+
+    private static final String[] NOMBRES = {
+            "Carlos", "Luis", "Jorge", "Miguel", "José", "Juan", "Diego", "Andrés", "Fernando", "Ricardo",
+            "Alejandro", "Roberto", "Daniel", "Eduardo", "Sergio", "Pablo", "Javier", "Héctor", "Raúl", "Óscar"
+    };
+    private static final String[] APELLIDOS = {
+            "García", "Hernández", "López", "Martínez", "González", "Pérez", "Rodríguez", "Sánchez", "Ramírez", "Torres",
+            "Flores", "Rivera", "Gómez", "Díaz", "Cruz", "Morales", "Reyes", "Ortiz", "Jiménez", "Ruiz"
+    };
+
+    private final UserRepository userRepository;
+    private final ServiceRepository serviceRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentImportService importService;
+    private final ServiceCatalogCache catalogCache;
+    private final UserDirectoryCache userDirectory;
+    private final PasswordEncoder passwordEncoder;
+
+    private final int barbers;
+    private final int services;
+    private final int clients;
+    private final int months;
+    private final int perBarberPerDay;
+    private final int futureDays;
+    private final long seed;
+    private final int batchRows;
+
+    public SyntheticDataGenerator(UserRepository userRepository,
+                                  ServiceRepository serviceRepository,
+                                  AppointmentRepository appointmentRepository,
+                                  AppointmentImportService importService,
+                                  ServiceCatalogCache catalogCache,
+                                  UserDirectoryCache userDirectory,
+                                  PasswordEncoder passwordEncoder,
+                                  @Value("${estilo26.synthetic.barbers:8}") int barbers,
+                                  @Value("${estilo26.synthetic.services:12}") int services,
+                                  @Value("${estilo26.synthetic.clients:6000}") int clients,
+                                  @Value("${estilo26.synthetic.months:24}") int months,
+                                  @Value("${estilo26.synthetic.per-barber-per-day:9}") int perBarberPerDay,
+                                  @Value("${estilo26.synthetic.future-days:30}") int futureDays,
+                                  @Value("${estilo26.synthetic.seed:26}") long seed,
+                                  @Value("${estilo26.synthetic.batch-rows:50000}") int batchRows) {
+        this.userRepository = userRepository;
+        this.serviceRepository = serviceRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.importService = importService;
+        this.catalogCache = catalogCache;
+        this.userDirectory = userDirectory;
+        this.passwordEncoder = passwordEncoder;
+        this.barbers = barbers;
+        this.services = services;
+        this.clients = Math.max(1, clients);
+        this.months = months;
+        this.perBarberPerDay = perBarberPerDay;
+        this.futureDays = futureDays;
+        this.seed = seed;
+        this.batchRows = batchRows;
+    }
+
+    @Override
+    public void run(String... args) {
+        List<String> barberos = sembrarBarberos();
+        List<Service> catalogo = sembrarServicios();
+        // Se escribió directo en los repositorios: las cachés no se enteraron
+        userDirectory.invalidate();
+        catalogCache.evictAll();
+
+        if (appointmentRepository.existsByBarberNameStartingWith(BARBER_PREFIX)) {
+            log.info("Datos sintéticos ya sembrados: no se genera historia de nuevo.");
+            return;
+        }
+        if (barberos.isEmpty() || catalogo.isEmpty()) return;
+
+        long inicio = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde = hoy.minusMonths(months);
+        LocalDate hasta = hoy.plusDays(futureDays);
+
+        List<AppointmentImportDTO> lote = new ArrayList<>();
+        long importadas = 0;
+        long rechazadas = 0;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            if (dia.getDayOfWeek() == DayOfWeek.SUNDAY) continue;
+
+            // Agenda futura: los próximos días casi llenos, los lejanos casi vacíos
+            double ocupacion = dia.isBefore(hoy) ? 1.0
+                    : Math.max(0.15, 1.0 - (double) ChronoUnit.DAYS.between(hoy, dia) / Math.max(1, futureDays));
+
+            for (int b = 0; b < barberos.size(); b++) {
+                generarDia(random, dia, b, barberos.get(b), catalogo, ocupacion, dia.isBefore(hoy), lote);
+            }
+
+            if (lote.size() >= batchRows) {
+                AppointmentImportResultDTO r = importService.importRows(lote);
+                importadas += r.getImported();
+                rechazadas += r.getRejected().size();
+                log.info("Sintéticos: {} citas hasta {} ({} filas/s)", importadas, dia, r.getRowsPerSecond());
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            AppointmentImportResultDTO r = importService.importRows(lote);
+            importadas += r.getImported();
+            rechazadas += r.getRejected().size();
+        }
+
+        log.info("✅ Datos sintéticos: {} barberos, {} servicios, {} citas ({} rechazadas) de {} a {} en {} s",
+                barberos.size(), catalogo.size(), importadas, rechazadas, desde, hasta,
+                (System.nanoTime() - inicio) / 1_000_000_000);
+    }
+
+    // ========================================================================
+    // UN DÍA DE UN BARBERO
+    // ========================================================================
+    private void generarDia(SplittableRandom random, LocalDate dia, int barbero, String barberName,
+                            List<Service> catalogo, double ocupacion, boolean pasado, List<AppointmentImportDTO> lote) {
+        // ±30% alrededor del promedio configurado
+        int objetivo = (int) Math.round(perBarberPerDay * ocupacion * (0.7 + 0.6 * random.nextDouble()));
+        LocalTime hora = APERTURA.plusMinutes(15L * random.nextInt(3));
+
+        for (int n = 0; n < objetivo; n++) {
+            List<Long> carrito = elegirServicios(random, catalogo);
+            int minutos = 0;
+            for (Long id : carrito) {
+                minutos += catalogo.stream().filter(s -> s.getId().equals(id)).findFirst()
+                        .map(Service::getDurationMinutes).orElse(30);
+            }
+            LocalTime fin = hora.plusMinutes(minutos);
+            if (fin.isAfter(CIERRE) || fin.isBefore(hora)) break;
+
+            lote.add(cita(random, dia, hora, barbero, barberName, carrito, catalogo, pasado));
+
+            // Siguiente cita: al cuarto de hora siguiente, a veces con un hueco
+            int finMin = fin.getHour() * 60 + fin.getMinute();
+            int siguiente = ((finMin + 14) / 15) * 15 + 15 * random.nextInt(3);
+            if (siguiente >= 24 * 60) break;
+            hora = LocalTime.MIN.plusMinutes(siguiente);
+        }
+    }
+
+    private AppointmentImportDTO cita(SplittableRandom random, LocalDate dia, LocalTime hora, int barbero, String barberName,
+                                      List<Long> carrito, List<Service> catalogo, boolean pasado) {
+        boolean walkIn = random.nextInt(100) < 12;
+
+        // 70% de las veces viene uno de "sus" clientes (los que lo prefieren)
+        int cliente;
+        if (random.nextInt(100) < 70) {
+            int propios = Math.max(1, clients / barbers);
+            cliente = sesgado(random, propios) * barbers + barbero;
+            if (cliente >= clients) cliente = barbero % clients;
+        } else {
+            cliente = sesgado(random, clients);
+        }
+
+        AppointmentImportDTO.AppointmentImportDTOBuilder fila = AppointmentImportDTO.builder()
+                .clientName(walkIn ? "Walk-in" : nombreCliente(cliente))
+                .clientPhone(walkIn ? null : telefono(cliente))
+                .appointmentDate(dia)
+                .appointmentTime(hora)
+                .barberName(barberName)
+                .serviceIds(carrito)
+                .isWalkIn(walkIn);
+
+        if (!pasado) {
+            return fila.status("PENDIENTE").build();
+        }
+        if (random.nextInt(100) < 9) {
+            return fila.status("CANCELADA").build();
+        }
+
+        BigDecimal costo = BigDecimal.ZERO;
+        for (Long id : carrito) {
+            for (Service s : catalogo) {
+                if (s.getId().equals(id)) costo = costo.add(s.getPrice());
+            }
+        }
+        int r = random.nextInt(100);
+        String metodo = r < 55 ? "EFECTIVO" : (r < 90 ? "TARJETA" : "TRANSFERENCIA");
+        // Propina: 6 de cada 10 dejan entre 5% y 20%, redondeada a 10
+        BigDecimal propina = BigDecimal.ZERO;
+        if (random.nextInt(100) < 60) {
+            propina = costo.multiply(BigDecimal.valueOf(5 + random.nextInt(16)))
+                    .divide(new BigDecimal("1000"), 0, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.TEN);
+        }
+        // Descuento: promoción ocasional del 10%
+        BigDecimal descuento = BigDecimal.ZERO;
+        if (random.nextInt(100) < 8) {
+            descuento = costo.divide(BigDecimal.TEN, 2, RoundingMode.HALF_UP);
+        }
+        return fila.status("COMPLETADA").paymentMethod(metodo).tip(propina).discount(descuento).build();
+    }
+
+    // 1 servicio (55%), 2 (35%) o 3 (10%); los primeros del catálogo son los más pedidos
+    private static List<Long> elegirServicios(SplittableRandom random, List<Service> catalogo) {
+        int r = random.nextInt(100);
+        int cuantos = Math.min(catalogo.size(), r < 55 ? 1 : (r < 90 ? 2 : 3));
+        Set<Long> elegidos = new HashSet<>();
+        while (elegidos.size() < cuantos) {
+            elegidos.add(catalogo.get(sesgado(random, catalogo.size())).getId());
+        }
+        return new ArrayList<>(elegidos);
+    }
+
+    // Índice en [0, n) cargado hacia el inicio: pocos valores se repiten mucho (clientes VIP, servicios estrella)
+    private static int sesgado(SplittableRandom random, int n) {
+        return Math.min(n - 1, (int) (n * Math.pow(random.nextDouble(), 2.5)));
+    }
+
+    private static String nombreCliente(int cliente) {
+        return NOMBRES[cliente % NOMBRES.length] + " " + APELLIDOS[(cliente / NOMBRES.length) % APELLIDOS.length]
+                + (cliente >= NOMBRES.length * APELLIDOS.length ? " " + (cliente / (NOMBRES.length * APELLIDOS.length) + 1) : "");
+    }
+
+    // 10 dígitos y distinto por cliente (7919 es primo: la multiplicación no repite valores)
+    private static String telefono(int cliente) {
+        return String.format("55%08d", (cliente * 7919L) % 100_000_000L);
+    }
+
+    // ========================================================================
+    // PERSONAL Y CATÁLOGO (solo lo que falta)
+    // ========================================================================
+    private List<String> sembrarBarberos() {
+        List<String> nombres = new ArrayList<>();
+        String password = null; // BCrypt es caro: una sola vez para todos
+        for (int i = 1; i <= barbers; i++) {
+            String username = BARBER_PREFIX + i;
+            nombres.add(username);
+            if (userRepository.findByUsername(username).isPresent()) continue;
+
+            if (password == null) password = passwordEncoder.encode("sintetico123");
+            User barbero = new User();
+            barbero.setUsername(username);
+            barbero.setEmail(username + "@estilo26.com");
+            barbero.setRole("BARBERO");
+            barbero.setPassword(password);
+            barbero.setCommissionPercentage(new BigDecimal(40 + (i % 5) * 5 + ".00"));
+            userRepository.save(barbero);
+        }
+        return nombres;
+    }
+
+    private List<Service> sembrarServicios() {
+        List<Service> activos = serviceRepository.findByIsActiveTrueOrderByIdAsc();
+        Set<String> existentes = new HashSet<>();
+        for (Service s : activos) existentes.add(s.getName());
+
+        List<Service> nuevos = new ArrayList<>();
+        for (int i = 0; activos.size() + nuevos.size() < services; i++) {
+            String nombre = i < CATALOGO.length ? (String) CATALOGO[i][0] : "Servicio Especial " + (i + 1);
+            if (existentes.contains(nombre)) continue;
+
+            Service s = new Service();
+            s.setName(nombre);
+            s.setPrice(new BigDecimal(i < CATALOGO.length ? (String) CATALOGO[i][1] : (100 + 10 * i) + ".00"));
+            s.setDurationMinutes(i < CATALOGO.length ? (Integer) CATALOGO[i][2] : 30);
+            nuevos.add(s);
+        }
+        serviceRepository.saveAll(nuevos);
+        return serviceRepository.findByIsActiveTrueOrderByIdAsc();
+    }
+}
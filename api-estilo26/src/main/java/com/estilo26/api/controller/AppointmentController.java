@@ -1,12 +1,29 @@
 package com.estilo26.api.controller;
 
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentImportDTO;
 import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.service.AgendaEventBroadcaster;
+import com.estilo26.api.service.AppointmentConflictException;
+import com.estilo26.api.service.AppointmentExportService;
+import com.estilo26.api.service.AppointmentImportService;
 import com.estilo26.api.service.AppointmentService;
+import com.estilo26.api.service.AvailabilityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,10 +34,154 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
-    // 1. GET: VER TODAS LAS CITAS
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private AppointmentExportService appointmentExportService;
+
+    @Autowired
+    private AppointmentImportService appointmentImportService;
+
+    @Autowired
+    private AgendaEventBroadcaster agendaEvents;
+
+    // 1. GET: VER LAS CITAS DE UNA VENTANA DE FECHAS
+    // /api/appointments?from=2026-03-01&to=2026-03-31
+    // Sin parámetros devuelve hoy +/- la ventana configurada (ya no la tabla completa).
+    // Solo la agenda viva: lo que ya está en el archivo se busca en /search.
     @GetMapping
-    public List<Appointment> getAllAppointments() {
-        return appointmentService.getAllAppointments();
+    public ResponseEntity<?> getAllAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        try {
+            return ResponseEntity.ok(appointmentService.getAllAppointments(from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 1.B GET: BUSCADOR PAGINADO (Filtros en el servidor + cursor)
+    // /api/appointments/search?from=2026-03-01&to=2026-03-31&barber=carlos&status=PENDIENTE&walkIn=false&size=50
+    // La respuesta trae "nextCursor": se manda tal cual en ?cursor= para pedir la siguiente página.
+    // Busca en toda la historia, incluidas las citas ya archivadas.
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String barber,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean walkIn,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            AppointmentFilterDTO filter = AppointmentFilterDTO.builder()
+                    .from(from)
+                    .to(to)
+                    .barberName(barber)
+                    .status(status != null ? AppointmentStatus.valueOf(status.toUpperCase()) : null)
+                    .isWalkIn(walkIn)
+                    .build();
+            return ResponseEntity.ok(appointmentService.searchAppointments(filter, cursor, size));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 1.B.1 GET: SINCRONIZACIÓN POR DIFERENCIAS (la pantalla guarda su copia y solo pide lo nuevo)
+    // /api/appointments/changes?since=0 -> todo; después ?since=<version de la respuesta anterior>
+    // "removed" son las canceladas; si "hasMore" viene en true se vuelve a pedir en seguida.
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(appointmentService.getChangesSince(since, size));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 1.B.2 GET: EXPORTACIÓN COMPLETA PARA EL CONTADOR (CSV o NDJSON, se escribe fila por fila)
+    // /api/appointments/export?format=csv&from=2026-01-01&to=2026-12-31&barber=carlos
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String barber
+    ) {
+        AppointmentExportService.Format formato;
+        try {
+            formato = AppointmentExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Spring solo hace streaming si el tipo declarado es StreamingResponseBody
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("Formato inválido, usa csv o ndjson".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        String archivo = "citas" + (from != null ? "_" + from : "") + (to != null ? "_" + to : "")
+                + (formato == AppointmentExportService.Format.CSV ? ".csv" : ".ndjson");
+        MediaType tipo = (formato == AppointmentExportService.Format.CSV)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody cuerpo = out -> appointmentExportService.export(from, to, barber, formato, out);
+        return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .body(cuerpo);
+    }
+
+    // 1.B.3 POST: IMPORTACIÓN MASIVA (Agenda de papel o sistema anterior)
+    // JSON: arreglo de citas. CSV: encabezado clientName,clientPhone,appointmentDate,appointmentTime,
+    // barberName,serviceIds,status,paymentMethod,discount,tip,isWalkIn (serviceIds separados por "|")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importAppointments(@RequestBody List<AppointmentImportDTO> filas) {
+        try {
+            return ResponseEntity.ok(appointmentImportService.importRows(filas));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<?> importAppointmentsCsv(Reader csv) {
+        try {
+            return ResponseEntity.ok(appointmentImportService.importCsv(csv));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 1.B.4 GET: AGENDA EN VIVO (Server-Sent Events del día que muestra la pantalla)
+    // /api/appointments/events?date=2026-03-14 -> eventos created | status | rescheduled
+    // En React: new EventSource(url) y al recibir un evento se actualiza esa cita (sin volver a pedir el día).
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAgendaEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return agendaEvents.subscribe(date);
+    }
+
+    // 1.C GET: HORARIOS LIBRES (Para el formulario público de reservas)
+    // /api/appointments/availability?date=2026-03-14&barber=carlos&serviceIds=1,2
+    // Sin barber: devuelve las horas en las que AL MENOS un barbero tiene el hueco completo.
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String barber,
+            @RequestParam(required = false) List<Long> serviceIds
+    ) {
+        try {
+            return ResponseEntity.ok(availabilityService.getAvailability(date, barber, serviceIds));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // 2. POST: CREAR CITA (Ahora soporta isWalkIn si lo mandas desde React)
@@ -42,6 +203,8 @@ public class AppointmentController {
     // Mantenemos el endpoint original, pero lo potenciamos.
     // React podrá mandar parámetros opcionales para los pagos:
     // /api/appointments/{id}/status?status=COMPLETADA&paymentMethod=EFECTIVO&discount=0&tip=50
+    // &version=N (opcional): la versión de la cita que tenía la pantalla. Si otra tablet la cambió
+    // antes, o el cambio no vale desde el estado actual (cobrar una cancelada), responde 409.
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateAppointmentStatus(
             @PathVariable Long id,
@@ -49,27 +212,33 @@ public class AppointmentController {
             // (Opcional) Si React no los manda, el backend no colapsa y asume CERO.
             @RequestParam(required = false) String paymentMethod,
             @RequestParam(required = false) BigDecimal discount,
-            @RequestParam(required = false) BigDecimal tip
+            @RequestParam(required = false) BigDecimal tip,
+            @RequestParam(required = false) Long version
     ) {
         try {
             // Llamamos a nuestro nuevo Motor de Checkout en el servicio
-            Appointment updatedAppointment = appointmentService.checkoutAppointment(id, status, paymentMethod, discount, tip);
+            Appointment updatedAppointment = appointmentService.checkoutAppointment(id, status, paymentMethod, discount, tip, version);
             return ResponseEntity.ok(updatedAppointment);
+        } catch (AppointmentConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    // 4. PUT: REAGENDAR
+    // 4. PUT: REAGENDAR (&version=N opcional, igual que en /status)
     @PutMapping("/{id}/reschedule")
     public ResponseEntity<?> reschedule(
             @PathVariable Long id,
             @RequestParam String date,
-            @RequestParam String time
+            @RequestParam String time,
+            @RequestParam(required = false) Long version
     ) {
         try {
-            Appointment updated = appointmentService.rescheduleAppointment(id, date, time);
+            Appointment updated = appointmentService.rescheduleAppointment(id, date, time, version);
             return ResponseEntity.ok(updated);
+        } catch (AppointmentConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -3,6 +3,11 @@ package com.estilo26.api.controller;
 import com.estilo26.api.model.User;
 import com.estilo26.api.repository.UserRepository;
 import com.estilo26.api.dto.LoginRequestDTO; //Nuevo
+import com.estilo26.api.dto.LoginResponseDTO;
+import com.estilo26.api.service.ApiMetrics;
+import com.estilo26.api.service.RateLimiter;
+import com.estilo26.api.service.SessionTokenService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,11 +22,18 @@ public class AuthController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // (4) El encriptador (la licuadora)
+    private final ApiMetrics metrics; // Cuenta los intentos fallidos (¿alguien probando contraseñas?)
+    private final SessionTokenService sessionTokens; // Emite la ficha firmada de la sesión
+    private final RateLimiter rateLimiter; // Frena a quien prueba contraseñas para una misma cuenta
 
     // Inyectamos las herramientas que necesitamos
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, ApiMetrics metrics,
+                          SessionTokenService sessionTokens, RateLimiter rateLimiter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.metrics = metrics;
+        this.sessionTokens = sessionTokens;
+        this.rateLimiter = rateLimiter;
     }
 
     // (5) EL ENDPOINT DE LOGIN
@@ -30,6 +42,16 @@ public class AuthController {
     // ¡CAMBIO CLAVE! Usamos LoginRequestDTO en lugar de User
     public ResponseEntity<?> login(@RequestBody LoginRequestDTO loginRequest) {
 
+        // 0. LÍMITE POR CUENTA (el de la IP ya lo aplicó RateLimitFilter): antes de la BD y de BCrypt.
+        // Así muchas IPs distintas tampoco pueden probar contraseñas sin fin contra la misma cuenta.
+        String cuenta = loginRequest.getUsername() == null ? null : loginRequest.getUsername().trim().toLowerCase();
+        RateLimiter.Decision limite = rateLimiter.tryAcquire("login-user", cuenta);
+        if (!limite.allowed()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(limite.retryAfterSeconds()))
+                    .body("Demasiados intentos, vuelve a intentar en " + limite.retryAfterSeconds() + " s");
+        }
+
         // A. Buscamos al usuario por su nombre
         Optional<User> userOptional = userRepository.findByUsername(loginRequest.getUsername());
 
@@ -42,12 +64,20 @@ public class AuthController {
                 // --- NUEVO FILTRO DE SEGURIDAD ---
                 // Si la clave es correcta, pero el usuario fue eliminado (Soft Delete), no lo dejamos pasar.
                 if (userDb.getIsActive() != null && !userDb.getIsActive()) {
+                    metrics.loginFailed("inactive");
                     return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Usuario desactivado");
                 }
 
                 // C. Si coincide y está activo: ¡ÉXITO!
-                return ResponseEntity.ok("Login Exitoso");
+                // BCrypt corre solo aquí: las siguientes peticiones presentan la ficha firmada
+                // (Authorization: Bearer ...) y SessionTokenFilter la valida sin BD.
+                SessionTokenService.Issued ficha = sessionTokens.issue(userDb);
+                return ResponseEntity.ok(new LoginResponseDTO(ficha.token(), "Bearer", ficha.expiresAt(),
+                        userDb.getUsername(), userDb.getRole()));
             }
+            metrics.loginFailed("bad_password");
+        } else {
+            metrics.loginFailed("unknown_user");
         }
 
         // D. Si no encontramos al usuario O la clave no coincide: ERROR
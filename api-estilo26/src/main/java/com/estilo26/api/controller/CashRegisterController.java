@@ -0,0 +1,63 @@
+package com.estilo26.api.controller;
+
+import com.estilo26.api.service.CashRegisterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/cash-register")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CashRegisterController {
+
+    @Autowired
+    private CashRegisterService cashRegisterService;
+
+    // 1. CORTE DEL DÍA: /api/cash-register/daily?date=2026-03-14
+    @GetMapping("/daily")
+    public ResponseEntity<?> getDailyClose(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return ResponseEntity.ok(cashRegisterService.getDailyClose(date));
+    }
+
+    // 2. CORTE DEL MES: /api/cash-register/monthly?month=2026-03
+    @GetMapping("/monthly")
+    public ResponseEntity<?> getMonthlyClose(@RequestParam String month) {
+        try {
+            return ResponseEntity.ok(cashRegisterService.getMonthlyClose(YearMonth.parse(month)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Mes inválido, usa el formato AAAA-MM");
+        }
+    }
+
+    // 3. LIQUIDACIÓN DE BARBEROS: /api/cash-register/settlement?from=2026-03-01&to=2026-03-15&barber=carlos
+    @GetMapping("/settlement")
+    public ResponseEntity<?> getSettlement(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String barber
+    ) {
+        try {
+            return ResponseEntity.ok(cashRegisterService.getSettlement(from, to, barber));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 4. RECONSTRUIR CUBETAS DESDE LA HISTORIA (opcionalmente solo un rango)
+    // /api/cash-register/rebuild?from=2026-01-01&to=2026-01-31
+    @PostMapping("/rebuild")
+    public ResponseEntity<String> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        int cubetas = cashRegisterService.rebuild(from, to);
+        return ResponseEntity.ok("Cubetas reconstruidas: " + cubetas);
+    }
+}
@@ -1,10 +1,13 @@
 package com.estilo26.api.controller;
 
 import com.estilo26.api.dto.ClientDTO;
-import com.estilo26.api.service.AppointmentService;
+import com.estilo26.api.service.ClientStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -14,13 +17,25 @@ import java.util.List;
 public class ClientController {
 
     @Autowired
-    private AppointmentService appointmentService; // Llamamos al Chef
+    private ClientStatsService clientStatsService; // Llamamos al Chef
 
     // --- ENDPOINT PARA OBTENER LOS VIP ---
-    // Cuando el frontend pida un GET a "http://localhost:9090/api/clients/vip"
+    // Cuando el frontend pida un GET a "http://localhost:9090/api/clients/vip?page=0&size=50"
+    // Ya no es un GROUP BY de toda la historia: lee solo las K primeras fichas del ranking.
     @GetMapping("/vip")
-    public List<ClientDTO> getVIPClients() {
+    public List<ClientDTO> getVIPClients(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
         // El mesero le pide el plato al chef y se lo entrega al cliente
-        return appointmentService.getVIPClients();
+        return clientStatsService.getTopClients(Math.max(page, 0), Math.min(Math.max(size, 1), 200));
+    }
+
+    // --- RECONSTRUIR LAS FICHAS DESDE LA HISTORIA DE CITAS ---
+    // Para correr a mano si se importaron citas viejas o se corrigieron datos.
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<String> rebuildStats() {
+        int clientes = clientStatsService.rebuild();
+        return ResponseEntity.ok("Fichas reconstruidas: " + clientes + " clientes");
     }
 }
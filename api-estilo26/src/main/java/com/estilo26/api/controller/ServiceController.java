@@ -1,11 +1,14 @@
 package com.estilo26.api.controller;
 
 import com.estilo26.api.model.Service;
+import com.estilo26.api.service.JsonSnapshot;
 import com.estilo26.api.service.ServiceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/services")
@@ -15,9 +18,19 @@ public class ServiceController {
     @Autowired
     private ServiceService serviceService;
 
+    // GET condicional: el navegador manda If-None-Match con el ETag que ya tiene.
+    // Si el catálogo no cambió respondemos 304 (sin cuerpo); si cambió, el JSON ya serializado.
+    // no-cache = "guárdalo, pero pregunta antes de usarlo" (la pregunta cuesta casi nada).
     @GetMapping
-    public List<Service> getAllServices() {
-        return serviceService.getAllServices();
+    public ResponseEntity<byte[]> getAllServices(WebRequest request) {
+        JsonSnapshot.Body catalogo = serviceService.getAllServicesJson();
+        if (request.checkNotModified(catalogo.etag())) {
+            return null; // Spring ya armó el 304 con el ETag
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogo.json());
     }
 
     @PostMapping
@@ -1,12 +1,14 @@
 package com.estilo26.api.controller;
 
 import com.estilo26.api.model.User;
+import com.estilo26.api.service.JsonSnapshot;
 import com.estilo26.api.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController // Indica que este controlador atiende peticiones web devolviendo JSON
 @RequestMapping("/api/users") // La ruta base (http://localhost:9090/api/users)
@@ -19,9 +21,16 @@ public class UserController {
     // PUERTA 1: LEER TODOS (GET)
     // ==========================================
     @GetMapping
-    public List<User> getAllUsers() {
-        // Pedimos solo los activos
-        return userService.findAllActive();
+    public ResponseEntity<byte[]> getAllUsers(WebRequest request) {
+        // Pedimos solo los activos, ya en JSON. Si el navegador tiene la misma versión (If-None-Match): 304
+        JsonSnapshot.Body equipo = userService.findAllActiveJson();
+        if (request.checkNotModified(equipo.etag())) {
+            return null; // Spring ya armó el 304 con el ETag
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(equipo.json());
     }
 
     // ==========================================
@@ -0,0 +1,22 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Lo que cambió en la agenda después de ?since=N.
+ * changed: citas nuevas o modificadas (ya con su estado actual).
+ * removed: ids de citas canceladas, archivadas o borradas (la "lápida": el cliente las quita de su copia local).
+ * version: lo que el cliente manda como ?since la próxima vez.
+ * hasMore == true: hubo más cambios de los que caben en una respuesta, pedir otra vez de inmediato.
+ */
+@Data
+@AllArgsConstructor
+public class AppointmentChangesDTO {
+    private List<AppointmentListDTO> changed;
+    private List<Long> removed;
+    private long version;
+    private boolean hasMore;
+}
@@ -0,0 +1,38 @@
+package com.estilo26.api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * -------------------------------------------------------------
+ * CURSOR DE PAGINACIÓN (Keyset / "Seek")
+ * -------------------------------------------------------------
+ * En vez de "dame la página 40" (OFFSET, que obliga a Postgres a leer y tirar
+ * todas las filas anteriores), el cliente nos devuelve la última fila que vio:
+ * (fecha, hora, id). La siguiente página empieza justo después de ella.
+ *
+ * Viaja al frontend como un texto opaco en Base64 para que React no dependa del formato.
+ */
+public record AppointmentCursor(LocalDate date, LocalTime time, Long id) {
+
+    public String encode() {
+        String raw = date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AppointmentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new AppointmentCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
+    }
+
+    public static AppointmentCursor of(AppointmentListDTO row) {
+        return new AppointmentCursor(row.getAppointmentDate(), row.getAppointmentTime(), row.getId());
+    }
+}
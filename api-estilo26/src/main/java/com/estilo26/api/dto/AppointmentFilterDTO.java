@@ -0,0 +1,25 @@
+package com.estilo26.api.dto;
+
+import com.estilo26.api.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros del buscador de citas. Todos son opcionales:
+ * si un campo viene null, simplemente no se agrega al WHERE.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentFilterDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String barberName;
+    private AppointmentStatus status;
+    private Boolean isWalkIn;
+}
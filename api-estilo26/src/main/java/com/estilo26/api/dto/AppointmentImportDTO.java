@@ -0,0 +1,35 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Una fila de la importación masiva (agenda de papel o sistema anterior).
+ * Los precios y duraciones NO vienen aquí: salen del catálogo, igual que al reservar.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentImportDTO {
+    private String clientName;
+    private String clientPhone;
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+    private String barberName;
+    private List<Long> serviceIds;
+
+    // Opcionales: por defecto PENDIENTE, sin pago, de agenda
+    private String status;
+    private String paymentMethod;
+    private BigDecimal discount;
+    private BigDecimal tip;
+    private Boolean isWalkIn;
+}
@@ -0,0 +1,21 @@
+package com.estilo26.api.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación: cuántas entraron, cuáles no (y por qué) y a qué velocidad.
+ */
+@Data
+public class AppointmentImportResultDTO {
+    private int received;
+    private int imported;
+    private List<RowError> rejected = new ArrayList<>();
+    private long elapsedMillis;
+    private long rowsPerSecond;
+
+    // row = número de fila en el archivo (1 = primera fila de datos)
+    public record RowError(int row, String reason) { }
+}
@@ -0,0 +1,65 @@
+package com.estilo26.api.dto;
+
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.PaymentMethod;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * -------------------------------------------------------------
+ * DTO COMPACTO PARA LISTADOS DE CITAS (Agenda / Historial)
+ * -------------------------------------------------------------
+ * En lugar de mandar la entidad completa (con los Service enteros),
+ * solo viajan las columnas que pinta la tabla + ids y nombres de servicios.
+ */
+@Data
+@NoArgsConstructor
+public class AppointmentListDTO {
+
+    private Long id;
+    private String clientName;
+    private String clientPhone;
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+    private LocalTime endTime;
+    private String barberName;
+    private AppointmentStatus status;
+    private Boolean isWalkIn;
+    private Boolean rescheduled;
+    private PaymentMethod paymentMethod;
+    private BigDecimal totalServicesCost;
+    private BigDecimal finalTotalPaid;
+
+    // Número de cambio de la fila (solo lo llena /api/appointments/changes)
+    private Long changeVersion;
+
+    // Se llenan en una segunda consulta por lote (una sola para toda la página)
+    private List<Long> serviceIds = new ArrayList<>();
+    private List<String> serviceNames = new ArrayList<>();
+
+    // Constructor usado por la consulta JPQL "SELECT new ..."
+    public AppointmentListDTO(Long id, String clientName, String clientPhone,
+                              LocalDate appointmentDate, LocalTime appointmentTime, LocalTime endTime,
+                              String barberName, AppointmentStatus status, Boolean isWalkIn, Boolean rescheduled,
+                              PaymentMethod paymentMethod, BigDecimal totalServicesCost, BigDecimal finalTotalPaid) {
+        this.id = id;
+        this.clientName = clientName;
+        this.clientPhone = clientPhone;
+        this.appointmentDate = appointmentDate;
+        this.appointmentTime = appointmentTime;
+        this.endTime = endTime;
+        this.barberName = barberName;
+        this.status = status;
+        this.isWalkIn = isWalkIn;
+        this.rescheduled = rescheduled;
+        this.paymentMethod = paymentMethod;
+        this.totalServicesCost = totalServicesCost;
+        this.finalTotalPaid = finalTotalPaid;
+    }
+}
@@ -0,0 +1,17 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Una "rebanada" del listado de citas.
+ * nextCursor == null significa que ya no hay más filas.
+ */
+@Data
+@AllArgsConstructor
+public class AppointmentPageDTO {
+    private List<AppointmentListDTO> items;
+    private String nextCursor;
+}
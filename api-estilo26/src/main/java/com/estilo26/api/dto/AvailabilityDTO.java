@@ -0,0 +1,21 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Horarios en los que SÍ cabe la combinación de servicios pedida.
+ * barberName == null significa "cualquier barbero disponible".
+ */
+@Data
+@AllArgsConstructor
+public class AvailabilityDTO {
+    private LocalDate date;
+    private String barberName;
+    private Integer durationMinutes;
+    private List<LocalTime> slots;
+}
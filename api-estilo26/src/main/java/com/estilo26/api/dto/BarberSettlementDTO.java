@@ -0,0 +1,32 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * -------------------------------------------------------------
+ * LIQUIDACIÓN DE UN BARBERO EN UN RANGO DE FECHAS
+ * -------------------------------------------------------------
+ * commissions ya incluye las propinas (van íntegras al barbero).
+ * commissionWithoutTips = solo su porcentaje de los servicios.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BarberSettlementDTO {
+    private String barberName;
+    private Long appointments;
+    private Long services;
+    private BigDecimal servicesRevenue;
+    private BigDecimal discounts;
+    private BigDecimal tips;
+    private BigDecimal finalTotal;
+    private BigDecimal commissions;
+
+    public BigDecimal getCommissionWithoutTips() {
+        return commissions.subtract(tips);
+    }
+}
@@ -0,0 +1,28 @@
+package com.estilo26.api.dto;
+
+import com.estilo26.api.model.PaymentMethod;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * -------------------------------------------------------------
+ * CORTE DE CAJA (Día o Mes)
+ * -------------------------------------------------------------
+ * cashInDrawer = lo que debe haber en la caja física (EFECTIVO)
+ * bankDeposits = lo que llegó al banco (TARJETA + TRANSFERENCIA)
+ */
+@Data
+public class CashRegisterCloseDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private CashTotalsDTO totals = new CashTotalsDTO();
+    private Map<PaymentMethod, CashTotalsDTO> byPaymentMethod = new EnumMap<>(PaymentMethod.class);
+    private Map<String, CashTotalsDTO> byBarber = new TreeMap<>();
+    private BigDecimal cashInDrawer = BigDecimal.ZERO;
+    private BigDecimal bankDeposits = BigDecimal.ZERO;
+}
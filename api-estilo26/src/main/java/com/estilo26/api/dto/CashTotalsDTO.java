@@ -0,0 +1,30 @@
+package com.estilo26.api.dto;
+
+import com.estilo26.api.model.CashRegisterBucket;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de dinero de un grupo de cubetas (un método de pago, un barbero o el día completo).
+ */
+@Data
+public class CashTotalsDTO {
+    private long appointments;
+    private long services;
+    private BigDecimal servicesRevenue = BigDecimal.ZERO;
+    private BigDecimal discounts = BigDecimal.ZERO;
+    private BigDecimal tips = BigDecimal.ZERO;
+    private BigDecimal finalTotal = BigDecimal.ZERO;
+    private BigDecimal commissions = BigDecimal.ZERO;
+
+    public void add(CashRegisterBucket b) {
+        appointments += b.getAppointmentCount();
+        services += (b.getServicesCount() != null) ? b.getServicesCount() : 0;
+        servicesRevenue = servicesRevenue.add(b.getServicesRevenue());
+        discounts = discounts.add(b.getDiscounts());
+        tips = tips.add(b.getTips());
+        finalTotal = finalTotal.add(b.getFinalTotal());
+        commissions = commissions.add(b.getCommissions());
+    }
+}
@@ -1,5 +1,8 @@
 package com.estilo26.api.dto;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
 public class ClientDTO {
 
     private String clientName;
@@ -7,6 +10,9 @@ public class ClientDTO {
     private Long totalVisits;
     // --- NUEVO: Espacio para el Barbero ---
     private String preferredBarber;
+    // --- NUEVO: Datos de la ficha acumulada (client_stats) ---
+    private LocalDate lastVisit;
+    private BigDecimal totalSpent;
 
     // Actualizamos el constructor para recibir al barbero
     public ClientDTO(String clientName, String clientPhone, Long totalVisits, String preferredBarber) {
@@ -21,10 +27,14 @@ public class ClientDTO {
     public String getClientPhone() { return clientPhone; }
     public Long getTotalVisits() { return totalVisits; }
     public String getPreferredBarber() { return preferredBarber; } // NUEVO GETTER
+    public LocalDate getLastVisit() { return lastVisit; }
+    public BigDecimal getTotalSpent() { return totalSpent; }
 
     // Setters
     public void setClientName(String clientName) { this.clientName = clientName; }
     public void setClientPhone(String clientPhone) { this.clientPhone = clientPhone; }
     public void setTotalVisits(Long totalVisits) { this.totalVisits = totalVisits; }
     public void setPreferredBarber(String preferredBarber) { this.preferredBarber = preferredBarber; }
+    public void setLastVisit(LocalDate lastVisit) { this.lastVisit = lastVisit; }
+    public void setTotalSpent(BigDecimal totalSpent) { this.totalSpent = totalSpent; }
 }
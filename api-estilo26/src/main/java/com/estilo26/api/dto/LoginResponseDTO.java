@@ -0,0 +1,19 @@
+package com.estilo26.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Respuesta de un login correcto: la ficha va en cada petición como "Authorization: Bearer <token>".
+ */
+@Data
+@AllArgsConstructor
+public class LoginResponseDTO {
+    private String token;
+    private String tokenType;
+    private Instant expiresAt;
+    private String username;
+    private String role;
+}
@@ -17,15 +17,22 @@ import java.math.BigDecimal;
  * -------------------------------------------------------------
  */
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        // Índice del listado/paginación por cursor: (fecha, hora, id)
+        @Index(name = "idx_appointments_date_time_id", columnList = "appointment_date, appointment_time, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Appointment {
 
+    // Ids por SECUENCIA con reserva de 50 en 50: Hibernate ya conoce el id antes del INSERT
+    // y puede mandar los INSERT en lotes (con IDENTITY cada fila era su propio viaje a la BD).
+    // La secuencia (y la migración de la vieja columna identity) está en db/migration/V2.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -42,11 +49,15 @@ public class Appointment {
     @Column(columnDefinition = "boolean default false")
     private Boolean rescheduled = false;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // LAZY: los servicios solo se traen cuando una consulta los pide explícitamente
+    // (ver @EntityGraph en AppointmentRepository). Los listados usan proyecciones.
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "appointment_services",
             joinColumns = @JoinColumn(name = "appointment_id"),
-            inverseJoinColumns = @JoinColumn(name = "service_id")
+            inverseJoinColumns = @JoinColumn(name = "service_id"),
+            // Sin este índice, buscar los servicios de una cita recorría la tabla completa
+            indexes = @Index(name = "idx_appointment_services_appointment", columnList = "appointment_id")
     )
     private List<Service> services;
 
@@ -93,4 +104,16 @@ public class Appointment {
     @Builder.Default
     @Column(precision = 10, scale = 2)
     private BigDecimal barberCommission = BigDecimal.ZERO;
+
+    // Control optimista (db/migration/V6): dos tablets que guardan la misma cita ya no se pisan.
+    // Es el "lo que yo vi" que React puede mandar en ?version= al cambiar estado o reagendar.
+    // Nace en null (Spring Data sabe así que la cita es nueva) y Hibernate la pone en 0 al insertar.
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Número de cambio (db/migration/V5): lo pone un trigger en cada INSERT/UPDATE, la API solo lo lee.
+    // Sirve para GET /api/appointments/changes?since=N (sincronización por diferencias).
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long changeVersion;
 }
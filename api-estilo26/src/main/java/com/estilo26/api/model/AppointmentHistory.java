@@ -0,0 +1,61 @@
+package com.estilo26.api.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * -------------------------------------------------------------
+ * Vista AppointmentHistory (toda la historia, SOLO LECTURA)
+ * -------------------------------------------------------------
+ * appointments_all (db/migration/V7): la tabla caliente + appointments_archive.
+ * La usa el buscador (/api/appointments/search) para encontrar también lo archivado.
+ * Nunca se guarda por aquí: agendar, cobrar y reagendar van por Appointment.
+ */
+@Entity
+@Immutable
+@Table(name = "appointments_all")
+@Getter
+@NoArgsConstructor
+public class AppointmentHistory {
+
+    @Id
+    private Long id;
+
+    private String clientName;
+    private String clientPhone;
+
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+    private LocalTime endTime;
+
+    private Boolean rescheduled;
+
+    // Servicios de la cita, viva o archivada (vista appointment_services_all)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "appointment_services_all",
+            joinColumns = @JoinColumn(name = "appointment_id"),
+            inverseJoinColumns = @JoinColumn(name = "service_id")
+    )
+    private List<Service> services;
+
+    @Enumerated(EnumType.STRING)
+    private AppointmentStatus status;
+
+    private String barberName;
+
+    private BigDecimal totalServicesCost;
+    private BigDecimal finalTotalPaid;
+
+    private Boolean isWalkIn;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentMethod paymentMethod;
+}
@@ -8,5 +8,27 @@ public enum AppointmentStatus {
     EN_PROCESO, // El barbero lo está atendiendo
     COMPLETADA, // Terminó, pagó y se registró en caja
     CANCELADA,  // Cliente no llegó o llamó para cancelar
-    REPROGRAMADA
+    REPROGRAMADA;
+
+    // ========================================================================
+    // TRANSICIONES VÁLIDAS (PUT /status)
+    // ========================================================================
+    // Repetir el estado actual siempre vale: dos tablets que marcan lo mismo no chocan.
+    // COMPLETADA -> COMPLETADA es "corregir el cobro" (método, propina, descuento): el checkout
+    // resta lo que sumó el cobro anterior y suma el nuevo (CashRegisterService.correctCheckout,
+    // ClientStatsService.correctSpent). De ahí no se sale: el dinero ya está en la caja y en la ficha.
+    // Una CANCELADA se revive reagendándola (vuelve a PENDIENTE), no con PUT /status.
+    public boolean canTransitionTo(AppointmentStatus next) {
+        if (this == next) return true;
+        return switch (this) {
+            case PENDIENTE, REPROGRAMADA -> next == EN_PROCESO || next == COMPLETADA || next == CANCELADA;
+            case EN_PROCESO -> next == PENDIENTE || next == COMPLETADA || next == CANCELADA;
+            case COMPLETADA, CANCELADA -> false;
+        };
+    }
+
+    // Reagendar deja la cita PENDIENTE en otro horario: no aplica a una cobrada ni a una que se está atendiendo
+    public boolean canReschedule() {
+        return this != COMPLETADA && this != EN_PROCESO;
+    }
 }
@@ -0,0 +1,73 @@
+package com.estilo26.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * -------------------------------------------------------------
+ * Entidad CashRegisterBucket (Arqueo de caja pre-calculado)
+ * -------------------------------------------------------------
+ * Una fila por (día, método de pago, barbero) con los totales ya sumados.
+ * Cada checkout que COMPLETA una cita le suma sus montos a su "cubeta".
+ * El corte del día (o del mes) es sumar unas cuantas cubetas, no miles de citas.
+ *
+ * El día es la fecha de la cita (appointmentDate), igual que en la reconstrucción.
+ */
+@Entity
+@Table(name = "cash_register_daily")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashRegisterBucket {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private Long appointmentCount;
+
+    // Servicios realizados (una cita puede llevar corte + barba = 2)
+    @Column(columnDefinition = "bigint default 0")
+    private Long servicesCount;
+
+    // Suma de totalServicesCost (precio de lista, antes de descuentos)
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal servicesRevenue;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal discounts;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal tips;
+
+    // Lo que realmente entró: (servicios - descuento) + propina
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal finalTotal;
+
+    // Lo que se le debe al barbero (su porcentaje + propinas)
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal commissions;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private LocalDate businessDate;
+
+        @Enumerated(EnumType.STRING)
+        private PaymentMethod paymentMethod;
+
+        // "" = cita sin barbero asignado (una llave primaria no admite null)
+        private String barberName;
+    }
+}
@@ -0,0 +1,38 @@
+package com.estilo26.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * -------------------------------------------------------------
+ * Entidad ClientBarberVisit (Histograma cliente -> barbero)
+ * -------------------------------------------------------------
+ * Cuántas veces ha sido atendido cada cliente por cada barbero.
+ * De aquí sale el "barbero preferido" real de ClientStats.
+ */
+@Entity
+@Table(name = "client_barber_visits")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientBarberVisit {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private Long visits;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String clientPhone;
+        private String barberName;
+    }
+}
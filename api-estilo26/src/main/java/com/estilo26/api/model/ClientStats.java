@@ -0,0 +1,46 @@
+package com.estilo26.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * -------------------------------------------------------------
+ * Entidad ClientStats (Ficha acumulada de cada cliente)
+ * -------------------------------------------------------------
+ * Se actualiza de a poquito en cada cobro (checkout), así el ranking VIP
+ * ya no necesita un GROUP BY sobre toda la historia de citas.
+ * La llave es el teléfono NORMALIZADO (solo dígitos).
+ */
+@Entity
+@Table(name = "client_stats", indexes = {
+        // Ranking VIP: los que más vienen primero
+        @Index(name = "idx_client_stats_ranking", columnList = "visit_count DESC, last_visit DESC")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientStats {
+
+    @Id
+    private String clientPhone;
+
+    private String clientName;
+
+    @Column(nullable = false)
+    private Long visitCount;
+
+    private LocalDate lastVisit;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent;
+
+    // El barbero con MÁS visitas en client_barber_visits (no el "MAX" alfabético de antes)
+    private String preferredBarber;
+}
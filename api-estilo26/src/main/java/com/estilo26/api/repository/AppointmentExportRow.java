@@ -0,0 +1,29 @@
+package com.estilo26.api.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila plana del libro de citas para la exportación contable.
+ * No es una entidad: no se queda en el contexto de persistencia mientras se recorre.
+ */
+public interface AppointmentExportRow {
+    Long getId();
+    LocalDate getAppointmentDate();
+    LocalTime getAppointmentTime();
+    LocalTime getEndTime();
+    String getClientName();
+    String getClientPhone();
+    String getBarberName();
+    String getStatus();
+    String getPaymentMethod();
+    Boolean getIsWalkIn();
+    Boolean getRescheduled();
+    String getServiceNames();
+    BigDecimal getTotalServicesCost();
+    BigDecimal getDiscountApplied();
+    BigDecimal getTipAmount();
+    BigDecimal getFinalTotalPaid();
+    BigDecimal getBarberCommission();
+}
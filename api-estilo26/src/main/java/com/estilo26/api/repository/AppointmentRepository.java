@@ -1,26 +1,120 @@
 package com.estilo26.api.repository;
 
 import com.estilo26.api.model.Appointment;
-import com.estilo26.api.dto.ClientDTO;
+import com.estilo26.api.model.AppointmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
 
-    boolean existsByAppointmentDateAndAppointmentTime(LocalDate appointmentDate, LocalTime appointmentTime);
+    // --- OCUPACIÓN DE LA AGENDA (solo columnas de horario, sin servicios) ---
+    // Alimentan al AppointmentSlotIndex; las canceladas no ocupan silla.
+    List<AppointmentSlotView> findByAppointmentDateAndStatusNot(LocalDate appointmentDate, AppointmentStatus status);
 
-    // --- MAGIA ACTUALIZADA: Ahora también extraemos el Barbero Principal ---
-    @Query("SELECT new com.estilo26.api.dto.ClientDTO(MAX(a.clientName), a.clientPhone, COUNT(a.id), MAX(a.barberName)) " +
-            "FROM Appointment a " +
-            "WHERE a.status = 'COMPLETADA' " +
-            "GROUP BY a.clientPhone " +
-            "ORDER BY COUNT(a.id) DESC")
-    List<ClientDTO> findTopVIPClients();
+    List<AppointmentSlotView> findByAppointmentDateBetweenAndStatusNot(LocalDate from, LocalDate to, AppointmentStatus status);
 
+    // ¿Hay al menos una cita con este estado? (Para saber si hay historia que respaldar)
+    boolean existsByStatus(AppointmentStatus status);
+
+    // ¿Ya se sembraron datos sintéticos? (SyntheticDataGenerator, perfil "synthetic")
+    boolean existsByBarberNameStartingWith(String prefix);
+
+    // --- LISTADO ACOTADO: Solo las citas de una ventana de fechas (nunca la tabla entera) ---
+    // El EntityGraph trae los servicios en el MISMO SELECT (JOIN), sin consultas extra por cita.
+    @EntityGraph(attributePaths = "services")
+    List<Appointment> findByAppointmentDateBetweenOrderByAppointmentDateAscAppointmentTimeAsc(LocalDate from, LocalDate to);
+
+    // --- DETALLE / CHECKOUT / REAGENDAR: la cita con sus servicios en una sola consulta ---
+    @EntityGraph(attributePaths = "services")
+    Optional<Appointment> findWithServicesById(Long id);
+
+    // --- CHECKOUT / REAGENDAR: día y barbero de la cita, para saber qué candado tomar antes de la transacción ---
+    Optional<AppointmentSlotView> findSlotById(Long id);
+
+    // --- SERVICIOS DE UNA PÁGINA DE CITAS EN UNA SOLA CONSULTA ---
+    // Solo id y nombre del servicio, nada de precios ni descripciones.
+    @Query("SELECT a.id AS appointmentId, s.id AS serviceId, s.name AS serviceName " +
+            "FROM Appointment a JOIN a.services s " +
+            "WHERE a.id IN :ids")
+    List<AppointmentServiceRef> findServiceRefsByAppointmentIds(@Param("ids") Collection<Long> ids);
+
+    // Lo mismo para el buscador, que también devuelve citas archivadas (appointment_services_all)
+    @Query("SELECT a.id AS appointmentId, s.id AS serviceId, s.name AS serviceName " +
+            "FROM AppointmentHistory a JOIN a.services s " +
+            "WHERE a.id IN :ids")
+    List<AppointmentServiceRef> findHistoryServiceRefsByAppointmentIds(@Param("ids") Collection<Long> ids);
+
+    // --- SINCRONIZACIÓN POR DIFERENCIAS: ¿hay escrituras a medio confirmar? (db/migration/V5 y V11) ---
+    // true = nadie tiene un número de cambio pendiente y ya no lo tendrá hasta el fin de esta transacción.
+    // OJO: hasta ese fin, TODA escritura de citas espera (el candado es exclusivo). Leer y cerrar rápido.
+    @Query(value = "SELECT appointments_changes_barrier()", nativeQuery = true)
+    boolean acquireChangesBarrier();
+
+    // Citas borradas (archivadas o a mano) después de "since", en orden de cambio
+    @Query(value = "SELECT id AS id, change_version AS changeVersion FROM appointment_tombstones " +
+            "WHERE change_version > :since ORDER BY change_version LIMIT :limit",
+            nativeQuery = true)
+    List<AppointmentTombstone> findTombstonesSince(@Param("since") long since, @Param("limit") int limit);
+
+    // --- EXPORTACIÓN CONTABLE (cursor de solo avance) ---
+    // Postgres entrega las filas de 500 en 500 (requiere transacción abierta), así que la
+    // memoria no crece con el rango. Los servicios van ya concatenados en la misma fila.
+    // Lee appointments_all: la contabilidad pide años completos, archivados o no.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT a.id AS id, a.appointment_date AS appointmentDate, a.appointment_time AS appointmentTime, " +
+            "  a.end_time AS endTime, a.client_name AS clientName, a.client_phone AS clientPhone, " +
+            "  a.barber_name AS barberName, a.status AS status, a.payment_method AS paymentMethod, " +
+            "  a.is_walk_in AS isWalkIn, a.rescheduled AS rescheduled, " +
+            "  (SELECT string_agg(s.name, ' + ' ORDER BY s.name) FROM appointment_services_all aps " +
+            "     JOIN services s ON s.id = aps.service_id WHERE aps.appointment_id = a.id) AS serviceNames, " +
+            "  a.total_services_cost AS totalServicesCost, a.discount_applied AS discountApplied, " +
+            "  a.tip_amount AS tipAmount, a.final_total_paid AS finalTotalPaid, a.barber_commission AS barberCommission " +
+            "FROM appointments_all a " +
+            "WHERE a.appointment_date BETWEEN :from AND :to " +
+            "  AND (CAST(:barber AS text) IS NULL OR LOWER(BTRIM(a.barber_name)) = CAST(:barber AS text)) " +
+            "ORDER BY a.appointment_date, a.appointment_time, a.id",
+            nativeQuery = true)
+    Stream<AppointmentExportRow> streamForExport(@Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to,
+                                                 @Param("barber") String barberKey);
+
+    // --- ARCHIVO: mudar citas cerradas y viejas a appointments_archive (db/migration/V7) ---
+    // SKIP LOCKED: si alguien está tocando una de esas citas justo ahora, queda para la próxima vuelta.
+    @Query(value = "SELECT id FROM appointments " +
+            "WHERE status IN ('COMPLETADA', 'CANCELADA') AND appointment_date < :cutoff " +
+            "ORDER BY appointment_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockClosedBefore(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO appointments_archive SELECT * FROM appointments WHERE id IN :ids", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "INSERT INTO appointment_services_archive (appointment_id, service_id) " +
+            "SELECT appointment_id, service_id FROM appointment_services WHERE appointment_id IN :ids",
+            nativeQuery = true)
+    int copyServicesToArchive(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM appointment_services WHERE appointment_id IN :ids", nativeQuery = true)
+    int deleteServices(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM appointments WHERE id IN :ids", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
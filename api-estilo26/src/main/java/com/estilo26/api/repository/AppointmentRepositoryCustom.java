@@ -0,0 +1,21 @@
+package com.estilo26.api.repository;
+
+import com.estilo26.api.dto.AppointmentCursor;
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentListDTO;
+
+import java.util.List;
+
+/**
+ * Consultas que Spring Data no sabe generar solo por el nombre del método
+ * (filtros opcionales + paginación por cursor). La implementación vive en
+ * AppointmentRepositoryImpl y Spring la "pega" automáticamente al repositorio.
+ */
+public interface AppointmentRepositoryCustom {
+
+    // Toda la historia: tabla caliente + archivo (appointments_all)
+    List<AppointmentListDTO> searchPage(AppointmentFilterDTO filter, AppointmentCursor after, int limit);
+
+    // Citas con número de cambio mayor a "since", en orden de cambio (changeVersion ya lleno)
+    List<AppointmentListDTO> findChangesSince(long since, int limit);
+}
@@ -0,0 +1,96 @@
+package com.estilo26.api.repository;
+
+import com.estilo26.api.dto.AppointmentCursor;
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentListDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Sobre AppointmentHistory (appointments_all): el buscador también encuentra lo archivado.
+    // Cada lado del UNION ALL tiene su índice (fecha, hora, id), así Postgres mezcla dos recorridos
+    // ordenados y se detiene en "limit" (db/migration/V12).
+    @Override
+    public List<AppointmentListDTO> searchPage(AppointmentFilterDTO filter, AppointmentCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.estilo26.api.dto.AppointmentListDTO(" +
+                        "a.id, a.clientName, a.clientPhone, a.appointmentDate, a.appointmentTime, a.endTime, " +
+                        "a.barberName, a.status, a.isWalkIn, a.rescheduled, a.paymentMethod, " +
+                        "a.totalServicesCost, a.finalTotalPaid) " +
+                        "FROM AppointmentHistory a WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        // 1. Filtros opcionales: solo entran al WHERE si vienen con valor
+        if (filter.getFrom() != null) {
+            jpql.append(" AND a.appointmentDate >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" AND a.appointmentDate <= :to");
+            params.put("to", filter.getTo());
+        }
+        if (filter.getBarberName() != null && !filter.getBarberName().isBlank()) {
+            jpql.append(" AND a.barberName = :barber");
+            params.put("barber", filter.getBarberName());
+        }
+        if (filter.getStatus() != null) {
+            jpql.append(" AND a.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getIsWalkIn() != null) {
+            jpql.append(" AND a.isWalkIn = :walkIn");
+            params.put("walkIn", filter.getIsWalkIn());
+        }
+
+        // 2. Keyset: "todo lo que va DESPUÉS de la última fila que vio el cliente"
+        // Equivale a (fecha, hora, id) > (:d, :t, :id) y aprovecha el índice compuesto.
+        if (after != null) {
+            jpql.append(" AND (a.appointmentDate > :cDate" +
+                    " OR (a.appointmentDate = :cDate AND a.appointmentTime > :cTime)" +
+                    " OR (a.appointmentDate = :cDate AND a.appointmentTime = :cTime AND a.id > :cId))");
+            params.put("cDate", after.date());
+            params.put("cTime", after.time());
+            params.put("cId", after.id());
+        }
+
+        jpql.append(" ORDER BY a.appointmentDate ASC, a.appointmentTime ASC, a.id ASC");
+
+        TypedQuery<AppointmentListDTO> query = entityManager.createQuery(jpql.toString(), AppointmentListDTO.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<AppointmentListDTO> findChangesSince(long since, int limit) {
+        // Va por idx_appointments_change_version: el costo depende de cuántos cambios hubo, no de la historia
+        List<Object[]> filas = entityManager.createQuery(
+                        "SELECT new com.estilo26.api.dto.AppointmentListDTO(" +
+                                "a.id, a.clientName, a.clientPhone, a.appointmentDate, a.appointmentTime, a.endTime, " +
+                                "a.barberName, a.status, a.isWalkIn, a.rescheduled, a.paymentMethod, " +
+                                "a.totalServicesCost, a.finalTotalPaid), a.changeVersion " +
+                                "FROM Appointment a WHERE a.changeVersion > :since ORDER BY a.changeVersion ASC",
+                        Object[].class)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<AppointmentListDTO> cambios = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            AppointmentListDTO dto = (AppointmentListDTO) fila[0];
+            dto.setChangeVersion((Long) fila[1]);
+            cambios.add(dto);
+        }
+        return cambios;
+    }
+}
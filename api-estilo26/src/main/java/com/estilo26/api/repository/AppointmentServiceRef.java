@@ -0,0 +1,11 @@
+package com.estilo26.api.repository;
+
+/**
+ * Proyección mínima de la tabla puente appointment_services:
+ * solo el id de la cita y el id + nombre del servicio (sin precio, sin descripción).
+ */
+public interface AppointmentServiceRef {
+    Long getAppointmentId();
+    Long getServiceId();
+    String getServiceName();
+}
@@ -0,0 +1,16 @@
+package com.estilo26.api.repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Proyección mínima para reconstruir la ocupación de la agenda:
+ * solo lo necesario para saber QUIÉN está ocupado y CUÁNDO.
+ */
+public interface AppointmentSlotView {
+    Long getId();
+    LocalDate getAppointmentDate();
+    LocalTime getAppointmentTime();
+    LocalTime getEndTime();
+    String getBarberName();
+}
@@ -0,0 +1,10 @@
+package com.estilo26.api.repository;
+
+/**
+ * Lápida de una cita borrada de la tabla caliente (db/migration/V11):
+ * su id y el número de cambio con que salió.
+ */
+public interface AppointmentTombstone {
+    Long getId();
+    Long getChangeVersion();
+}
@@ -0,0 +1,95 @@
+package com.estilo26.api.repository;
+
+import com.estilo26.api.dto.BarberSettlementDTO;
+import com.estilo26.api.model.CashRegisterBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CashRegisterRepository extends JpaRepository<CashRegisterBucket, CashRegisterBucket.Key> {
+
+    // Todas las cubetas de un rango de días (día = 1 fecha, mes = ~31 fechas)
+    List<CashRegisterBucket> findByIdBusinessDateBetween(LocalDate from, LocalDate to);
+
+    // --- SUMA ATÓMICA A LA CUBETA (la llama el checkout) ---
+    // barber llega ya normalizado (AppointmentSlotIndex.barberKey), igual que lo filtra settle().
+    // count = 1 para un cobro; -1 (y montos negativos) para retirar un cobro que se corrigió.
+    @Modifying
+    @Query(value = "INSERT INTO cash_register_daily (business_date, payment_method, barber_name, appointment_count, " +
+            "  services_count, services_revenue, discounts, tips, final_total, commissions) " +
+            "VALUES (:day, :method, :barber, :count, :services, :revenue, :discount, :tip, :total, :commission) " +
+            "ON CONFLICT (business_date, payment_method, barber_name) DO UPDATE SET " +
+            "  appointment_count = cash_register_daily.appointment_count + EXCLUDED.appointment_count, " +
+            "  services_count = COALESCE(cash_register_daily.services_count, 0) + EXCLUDED.services_count, " +
+            "  services_revenue = cash_register_daily.services_revenue + EXCLUDED.services_revenue, " +
+            "  discounts = cash_register_daily.discounts + EXCLUDED.discounts, " +
+            "  tips = cash_register_daily.tips + EXCLUDED.tips, " +
+            "  final_total = cash_register_daily.final_total + EXCLUDED.final_total, " +
+            "  commissions = cash_register_daily.commissions + EXCLUDED.commissions",
+            nativeQuery = true)
+    int addCheckout(@Param("day") LocalDate day,
+                    @Param("method") String method,
+                    @Param("barber") String barber,
+                    @Param("count") long count,
+                    @Param("services") long services,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("discount") BigDecimal discount,
+                    @Param("tip") BigDecimal tip,
+                    @Param("total") BigDecimal total,
+                    @Param("commission") BigDecimal commission);
+
+    // Si una corrección dejó la cubeta sin cobros (cambió el método de pago), se quita:
+    // el corte no debe mostrar un método con 0 citas
+    @Modifying
+    @Query(value = "DELETE FROM cash_register_daily " +
+            "WHERE business_date = :day AND payment_method = :method AND barber_name = :barber AND appointment_count = 0",
+            nativeQuery = true)
+    int deleteIfEmpty(@Param("day") LocalDate day,
+                      @Param("method") String method,
+                      @Param("barber") String barber);
+
+    // --- LIQUIDACIÓN DE BARBEROS (nómina) ---
+    // Una sola agregación sobre las cubetas del rango (la PK empieza por business_date,
+    // así que el rango es un index scan). Un año son unos miles de cubetas, no decenas de miles de citas.
+    @Query("SELECT new com.estilo26.api.dto.BarberSettlementDTO(b.id.barberName, SUM(b.appointmentCount), " +
+            "  SUM(COALESCE(b.servicesCount, 0)), SUM(b.servicesRevenue), SUM(b.discounts), SUM(b.tips), " +
+            "  SUM(b.finalTotal), SUM(b.commissions)) " +
+            "FROM CashRegisterBucket b " +
+            "WHERE b.id.businessDate BETWEEN :from AND :to " +
+            "  AND (:barber IS NULL OR LOWER(TRIM(b.id.barberName)) = :barber) " +
+            "GROUP BY b.id.barberName " +
+            "ORDER BY b.id.barberName")
+    List<BarberSettlementDTO> settle(@Param("from") LocalDate from,
+                                     @Param("to") LocalDate to,
+                                     @Param("barber") String barberKey);
+
+    // --- RECONSTRUCCIÓN DESDE LA HISTORIA (rango de fechas) ---
+    // Lee appointments_all: un rango viejo puede estar ya en el archivo (db/migration/V7).
+    @Modifying
+    @Query(value = "LOCK TABLE cash_register_daily IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM cash_register_daily WHERE business_date BETWEEN :from AND :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO cash_register_daily (business_date, payment_method, barber_name, appointment_count, " +
+            "  services_count, services_revenue, discounts, tips, final_total, commissions) " +
+            "SELECT appointment_date, COALESCE(payment_method, 'EFECTIVO'), LOWER(TRIM(COALESCE(barber_name, ''))), COUNT(*), " +
+            "  COALESCE(SUM((SELECT COUNT(*) FROM appointment_services_all s WHERE s.appointment_id = a.id)), 0), " +
+            "  COALESCE(SUM(total_services_cost), 0), COALESCE(SUM(discount_applied), 0), COALESCE(SUM(tip_amount), 0), " +
+            "  COALESCE(SUM(final_total_paid), 0), COALESCE(SUM(barber_commission), 0) " +
+            "FROM appointments_all a " +
+            "WHERE status = 'COMPLETADA' AND appointment_date BETWEEN :from AND :to " +
+            "GROUP BY appointment_date, COALESCE(payment_method, 'EFECTIVO'), LOWER(TRIM(COALESCE(barber_name, '')))",
+            nativeQuery = true)
+    int backfillRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
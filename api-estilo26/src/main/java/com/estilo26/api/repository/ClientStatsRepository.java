@@ -0,0 +1,101 @@
+package com.estilo26.api.repository;
+
+import com.estilo26.api.model.ClientStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ClientStatsRepository extends JpaRepository<ClientStats, String> {
+
+    // --- RANKING VIP: Lee solo K filas gracias al índice (visit_count, last_visit) ---
+    List<ClientStats> findAllByOrderByVisitCountDescLastVisitDescClientPhoneAsc(Pageable pageable);
+
+    // =========================================================================
+    // ACTUALIZACIÓN INCREMENTAL (UPSERT ATÓMICO DE POSTGRES)
+    // =========================================================================
+    // "INSERT ... ON CONFLICT DO UPDATE": si el cliente no existe lo crea, si existe suma.
+    // Lo hace Postgres en una sola sentencia, así dos cobros simultáneos no se pisan.
+
+    // barber llega ya normalizado (AppointmentSlotIndex.barberKey).
+    // visits = 1 en el checkout; en la importación, las visitas del archivo para ese cliente y barbero.
+    @Modifying
+    @Query(value = "INSERT INTO client_barber_visits (client_phone, barber_name, visits) " +
+            "VALUES (:phone, :barber, :visits) " +
+            "ON CONFLICT (client_phone, barber_name) DO UPDATE SET visits = client_barber_visits.visits + EXCLUDED.visits",
+            nativeQuery = true)
+    int addBarberVisits(@Param("phone") String phone, @Param("barber") String barber, @Param("visits") long visits);
+
+    // El nombre se queda con el de la visita más reciente (una cita vieja importada no lo pisa)
+    @Modifying
+    @Query(value = "INSERT INTO client_stats (client_phone, client_name, visit_count, last_visit, total_spent, preferred_barber) " +
+            "VALUES (:phone, :name, :visits, :visitDate, :spent, " +
+            "        (SELECT v.barber_name FROM client_barber_visits v WHERE v.client_phone = :phone " +
+            "         ORDER BY v.visits DESC, v.barber_name LIMIT 1)) " +
+            "ON CONFLICT (client_phone) DO UPDATE SET " +
+            "  client_name = CASE WHEN client_stats.last_visit IS NULL OR EXCLUDED.last_visit >= client_stats.last_visit " +
+            "                     THEN EXCLUDED.client_name ELSE client_stats.client_name END, " +
+            "  visit_count = client_stats.visit_count + EXCLUDED.visit_count, " +
+            "  last_visit = GREATEST(client_stats.last_visit, EXCLUDED.last_visit), " +
+            "  total_spent = client_stats.total_spent + EXCLUDED.total_spent, " +
+            "  preferred_barber = EXCLUDED.preferred_barber",
+            nativeQuery = true)
+    int recordVisits(@Param("phone") String phone,
+                     @Param("name") String name,
+                     @Param("visits") long visits,
+                     @Param("visitDate") LocalDate visitDate,
+                     @Param("spent") BigDecimal spent);
+
+    // Corrección de un cobro: solo cambia el gasto (la visita ya se contó)
+    @Modifying
+    @Query(value = "UPDATE client_stats SET total_spent = total_spent + :delta WHERE client_phone = :phone",
+            nativeQuery = true)
+    int adjustSpent(@Param("phone") String phone, @Param("delta") BigDecimal delta);
+
+    // =========================================================================
+    // RECONSTRUCCIÓN COMPLETA DESDE LA HISTORIA (una sola vez / a demanda)
+    // =========================================================================
+    // Mientras corre, los cobros que intenten actualizar estas tablas esperan su turno.
+    // Lee appointments_all: la historia incluye lo ya archivado (db/migration/V7).
+    @Modifying
+    @Query(value = "LOCK TABLE client_stats, client_barber_visits IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM client_barber_visits", nativeQuery = true)
+    int clearBarberVisits();
+
+    @Modifying
+    @Query(value = "DELETE FROM client_stats", nativeQuery = true)
+    int clearStats();
+
+    @Modifying
+    @Query(value = "INSERT INTO client_barber_visits (client_phone, barber_name, visits) " +
+            "SELECT x.phone, x.barber_name, COUNT(*) FROM (" +
+            "  SELECT regexp_replace(client_phone, '[^0-9]', '', 'g') AS phone, LOWER(TRIM(barber_name)) AS barber_name " +
+            "  FROM appointments_all WHERE status = 'COMPLETADA' AND barber_name IS NOT NULL" +
+            ") x WHERE x.phone <> '' AND x.barber_name <> '' GROUP BY x.phone, x.barber_name",
+            nativeQuery = true)
+    int backfillBarberVisits();
+
+    @Modifying
+    @Query(value = "INSERT INTO client_stats (client_phone, client_name, visit_count, last_visit, total_spent, preferred_barber) " +
+            "SELECT x.phone, " +
+            "       (ARRAY_AGG(x.client_name ORDER BY x.appointment_date DESC, x.id DESC))[1], " +
+            "       COUNT(*), MAX(x.appointment_date), COALESCE(SUM(x.final_total_paid), 0), " +
+            "       (SELECT v.barber_name FROM client_barber_visits v WHERE v.client_phone = x.phone " +
+            "        ORDER BY v.visits DESC, v.barber_name LIMIT 1) " +
+            "FROM (" +
+            "  SELECT regexp_replace(client_phone, '[^0-9]', '', 'g') AS phone, client_name, appointment_date, id, final_total_paid " +
+            "  FROM appointments_all WHERE status = 'COMPLETADA'" +
+            ") x WHERE x.phone <> '' GROUP BY x.phone",
+            nativeQuery = true)
+    int backfillStats();
+}
@@ -3,9 +3,11 @@ package com.estilo26.api.repository;
 import com.estilo26.api.model.Service;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 // IMPORTANTE: Importamos List porque nuestra función devolverá una "Lista" de servicios
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ServiceRepository extends JpaRepository<Service, Long> {
@@ -13,4 +15,14 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     // Le enseñamos a Spring Boot nuestra regla Anti-Zombies.
     // Al escribirla así, Java automáticamente la traduce a SQL seguro.
     List<Service> findByIsActiveTrueOrderByIdAsc();
+
+    // Al PRIMARIO, no a la réplica (ver DataSourceRoutingConfig): la caché del catálogo se llena con
+    // findAllById, y updateService / deleteService leen para luego guardar.
+    @Override
+    @Transactional
+    List<Service> findAllById(Iterable<Long> ids);
+
+    @Override
+    @Transactional
+    Optional<Service> findById(Long id);
 }
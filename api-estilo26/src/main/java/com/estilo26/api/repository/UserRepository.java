@@ -3,6 +3,7 @@ package com.estilo26.api.repository;
 import com.estilo26.api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,4 +19,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // PERO SOLO los que tengan isActive en true, y ordénalos por ID".
     // Spring Boot traduce este nombre largo en código SQL automáticamente.
     List<User> findByIsActiveTrueOrderByIdAsc();
+
+    // Spring Data abre estas lecturas como readOnly (irían a la réplica, ver DataSourceRoutingConfig).
+    // Las fijamos al PRIMARIO: el directorio en memoria y las sesiones se arman con ellas, y
+    // updateUser / softDeleteUser leen para luego guardar. Una réplica atrasada las dejaría viejas.
+    @Override
+    @Transactional
+    List<User> findAll();
+
+    @Override
+    @Transactional
+    Optional<User> findById(Long id);
 }
@@ -0,0 +1,215 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * -------------------------------------------------------------
+ * AGENDA EN VIVO (Server-Sent Events, un tema por día)
+ * -------------------------------------------------------------
+ * ANTES: cada pantalla volvía a pedir el día completo cada pocos segundos, cambiara algo o no.
+ * AHORA: la pantalla abre GET /api/appointments/events?date=2026-03-14 y recibe solo los cambios
+ * de ESE día, como eventos de una línea de JSON:
+ *   created      (cita nueva)
+ *   status       (cobrada, cancelada...)
+ *   rescheduled  (se avisa al día nuevo y al anterior, para que la quite de su lista)
+ *
+ * SIN UN HILO POR CONEXIÓN: SseEmitter es asíncrono (el hilo de Tomcat se suelta en cuanto se
+ * abre el stream), así que cientos de pantallas quietas no ocupan hilos. Al publicar, el evento
+ * se arma UNA vez y se deja en la fila de cada suscriptor; un hilo virtual la vacía en orden.
+ * Un cliente lento solo se atrasa a sí mismo, y si acumula demasiados avisos se le cierra
+ * (EventSource se reconecta solo y la pantalla recarga el día).
+ *
+ * Se publica DESPUÉS del commit (@TransactionalEventListener): nunca se avisa de algo que
+ * la base de datos terminó deshaciendo.
+ */
+@Component
+public class AgendaEventBroadcaster {
+
+    // Lo que AppointmentService publica (ApplicationEventPublisher) y lo que viaja al navegador
+    public record AgendaEvent(String type, Long id, LocalDate date, LocalTime time, LocalTime endTime,
+                              String barberName, String clientName, AppointmentStatus status,
+                              LocalDate previousDate) {
+
+        public static AgendaEvent of(String type, Appointment cita, LocalDate previousDate) {
+            return new AgendaEvent(type, cita.getId(), cita.getAppointmentDate(), cita.getAppointmentTime(),
+                    cita.getEndTime(), cita.getBarberName(), cita.getClientName(), cita.getStatus(),
+                    previousDate);
+        }
+    }
+
+    private final JsonMapper jsonMapper;
+    private final ApiMetrics metrics;
+    private final long timeoutMillis;
+    private final int maxPending;
+
+    // día -> pantallas mirando ese día
+    private final ConcurrentHashMap<LocalDate, Set<Subscriber>> porDia = new ConcurrentHashMap<>();
+
+    // Vacía las filas (un hilo virtual por ráfaga de un suscriptor, no uno por conexión)
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Latido: un comentario cada tantos segundos para que proxies no corten y detectar pantallas muertas
+    private final ScheduledExecutorService latido = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "agenda-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AgendaEventBroadcaster(JsonMapper jsonMapper,
+                                  ApiMetrics metrics,
+                                  @Value("${estilo26.agenda-events.timeout-minutes:30}") long timeoutMinutes,
+                                  @Value("${estilo26.agenda-events.heartbeat-seconds:25}") long heartbeatSeconds,
+                                  @Value("${estilo26.agenda-events.max-pending:100}") int maxPending) {
+        this.jsonMapper = jsonMapper;
+        this.metrics = metrics;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.maxPending = maxPending;
+        latido.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        metrics.agendaSubscribers(this, AgendaEventBroadcaster::subscriberCount);
+    }
+
+    // ========================================================================
+    // SUSCRIBIRSE (GET /api/appointments/events?date=...)
+    // ========================================================================
+    public SseEmitter subscribe(LocalDate date) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber suscriptor = new Subscriber(date, emitter);
+
+        emitter.onCompletion(() -> remove(suscriptor));
+        emitter.onTimeout(() -> remove(suscriptor));
+        emitter.onError(e -> remove(suscriptor));
+
+        // compute: agregar y borrar el conjunto vacío nunca se pisan
+        porDia.compute(date, (d, suscriptores) -> {
+            if (suscriptores == null) suscriptores = ConcurrentHashMap.newKeySet();
+            suscriptores.add(suscriptor);
+            return suscriptores;
+        });
+
+        // Primer mensaje: abre el stream en el navegador y le dice cada cuánto reintentar si se cae
+        suscriptor.offer(SseEmitter.event().reconnectTime(3000).comment("agenda " + date).build());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        int total = 0;
+        for (Set<Subscriber> suscriptores : porDia.values()) total += suscriptores.size();
+        return total;
+    }
+
+    // ========================================================================
+    // PUBLICAR (después del commit; fuera de una transacción, en el acto)
+    // ========================================================================
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(AgendaEvent evento) {
+        Set<Subscriber> delDia = porDia.get(evento.date());
+        Set<Subscriber> delAnterior = (evento.previousDate() != null && !evento.previousDate().equals(evento.date()))
+                ? porDia.get(evento.previousDate())
+                : null;
+        if (delDia == null && delAnterior == null) return; // Nadie mirando: ni siquiera se arma el JSON
+
+        // El JSON se escribe una sola vez para todas las pantallas
+        Set<DataWithMediaType> datos = SseEmitter.event()
+                .name(evento.type())
+                .data(jsonMapper.writeValueAsString(evento))
+                .build();
+        if (delDia != null) delDia.forEach(s -> s.offer(datos));
+        if (delAnterior != null) delAnterior.forEach(s -> s.offer(datos));
+    }
+
+    private void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        porDia.values().forEach(suscriptores -> suscriptores.forEach(s -> s.offer(ping)));
+    }
+
+    private void remove(Subscriber suscriptor) {
+        porDia.computeIfPresent(suscriptor.date, (d, suscriptores) -> {
+            suscriptores.remove(suscriptor);
+            return suscriptores.isEmpty() ? null : suscriptores;
+        });
+    }
+
+    // Antes del apagado ordenado de Tomcat: si los streams siguieran abiertos, esperaría por ellos
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        latido.shutdownNow();
+        porDia.values().forEach(suscriptores -> suscriptores.forEach(s -> s.emitter.complete()));
+        envios.shutdown();
+    }
+
+    // ========================================================================
+    // UNA PANTALLA: su fila de avisos pendientes y quién la está vaciando
+    // ========================================================================
+    private final class Subscriber {
+
+        final LocalDate date;
+        final SseEmitter emitter;
+        final ConcurrentLinkedQueue<Set<DataWithMediaType>> pendientes = new ConcurrentLinkedQueue<>();
+        final AtomicInteger enFila = new AtomicInteger();
+        final AtomicBoolean vaciando = new AtomicBoolean();
+        final AtomicBoolean cerrado = new AtomicBoolean();
+
+        Subscriber(LocalDate date, SseEmitter emitter) {
+            this.date = date;
+            this.emitter = emitter;
+        }
+
+        // Nunca bloquea a quien publica: solo encola y, si nadie la está vaciando, despierta a alguien
+        void offer(Set<DataWithMediaType> datos) {
+            if (cerrado.get()) return;
+            if (enFila.incrementAndGet() > maxPending) {
+                close("slow");
+                return;
+            }
+            pendientes.add(datos);
+            if (vaciando.compareAndSet(false, true)) envios.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                Set<DataWithMediaType> datos;
+                while ((datos = pendientes.poll()) != null) {
+                    enFila.decrementAndGet();
+                    try {
+                        emitter.send(datos);
+                    } catch (Exception e) {
+                        // La pantalla se fue (o ya estaba cerrada): Tomcat avisa por onError/onCompletion
+                        close("error");
+                        return;
+                    }
+                }
+                vaciando.set(false);
+                // Si alguien encoló justo después del último poll, este mismo hilo sigue
+            } while (!pendientes.isEmpty() && vaciando.compareAndSet(false, true));
+        }
+
+        private void close(String motivo) {
+            if (!cerrado.compareAndSet(false, true)) return;
+            pendientes.clear();
+            remove(this);
+            metrics.agendaDropped(motivo);
+            if (!"error".equals(motivo)) emitter.complete();
+        }
+    }
+}
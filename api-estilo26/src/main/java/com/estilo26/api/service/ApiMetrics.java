@@ -0,0 +1,126 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.PaymentMethod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * -------------------------------------------------------------
+ * MÉTRICAS DEL NEGOCIO (Micrometer -> /actuator/prometheus)
+ * -------------------------------------------------------------
+ * Lo que Actuator no sabe medir solo:
+ * - Choques de horario (¿los detectó la memoria o tuvo que frenarlos Postgres?)
+ * - Reagendados, cobros por método de pago, logins fallidos, peticiones frenadas por el límite
+ * - Pantallas conectadas a la agenda en vivo (y las que se cerraron por lentas)
+ * - Qué tanto sirven las cachés en memoria (aciertos / fallos y su proporción)
+ *
+ * Los tiempos por endpoint (http.server.requests), el pool de conexiones (hikaricp.*)
+ * y Hibernate (hibernate.*) los publica Actuator por su cuenta.
+ */
+@Component
+public class ApiMetrics {
+
+    private final MeterRegistry registry;
+
+    // Un contador por método de pago, creado una vez (no se busca en el registro en cada cobro)
+    private final Map<PaymentMethod, Counter> checkouts = new EnumMap<>(PaymentMethod.class);
+    private final Counter reschedules;
+
+    public ApiMetrics(MeterRegistry registry,
+                      ServiceCatalogCache catalogCache,
+                      UserDirectoryCache userDirectory,
+                      AppointmentSlotIndex slotIndex) {
+        this.registry = registry;
+
+        for (PaymentMethod method : PaymentMethod.values()) {
+            checkouts.put(method, Counter.builder("estilo26.checkouts")
+                    .description("Citas cobradas (primer cobro) por método de pago")
+                    .tag("payment_method", method.name())
+                    .register(registry));
+        }
+        reschedules = Counter.builder("estilo26.appointments.rescheduled")
+                .description("Citas reagendadas con éxito")
+                .register(registry);
+
+        cache("catalog", catalogCache, ServiceCatalogCache::getHits, ServiceCatalogCache::getMisses);
+        cache("users", userDirectory, UserDirectoryCache::getHits, UserDirectoryCache::getMisses);
+        cache("slots", slotIndex, AppointmentSlotIndex::getHits, AppointmentSlotIndex::getMisses);
+    }
+
+    // ========================================================================
+    // EVENTOS
+    // ========================================================================
+    // operation: create | reschedule. source: memory (índice de la agenda) | database (constraint)
+    public void bookingConflict(String operation, String source) {
+        registry.counter("estilo26.bookings.conflicts", "operation", operation, "source", source).increment();
+    }
+
+    public void rescheduled() {
+        reschedules.increment();
+    }
+
+    public void checkout(PaymentMethod method) {
+        checkouts.get(method).increment();
+    }
+
+    // operation: checkout | reschedule. outcome: retried (se volvió a intentar) | rejected (409)
+    public void optimisticConflict(String operation, String outcome) {
+        registry.counter("estilo26.appointments.optimistic.conflicts", "operation", operation, "outcome", outcome).increment();
+    }
+
+    // Citas cerradas mudadas a appointments_archive (ver AppointmentArchiveService)
+    public void archived(int count) {
+        registry.counter("estilo26.appointments.archived").increment(count);
+    }
+
+    // reason: unknown_user | bad_password | inactive
+    public void loginFailed(String reason) {
+        registry.counter("estilo26.auth.login.failures", "reason", reason).increment();
+    }
+
+    // rule: login-ip | login-user | booking-ip (ver RateLimiter)
+    public void rateLimited(String rule) {
+        registry.counter("estilo26.ratelimit.rejected", "rule", rule).increment();
+    }
+
+    // reason: slow (demasiados avisos pendientes) | error (la pantalla se desconectó)
+    public void agendaDropped(String reason) {
+        registry.counter("estilo26.agenda.dropped", "reason", reason).increment();
+    }
+
+    // Pantallas conectadas al stream de la agenda (ver AgendaEventBroadcaster)
+    public <T> void agendaSubscribers(T broadcaster, ToDoubleFunction<T> count) {
+        Gauge.builder("estilo26.agenda.subscribers", broadcaster, count)
+                .description("Conexiones SSE abiertas a la agenda en vivo")
+                .register(registry);
+    }
+
+    // ========================================================================
+    // CACHÉS: aciertos y fallos (para rate() en Prometheus) + proporción acumulada
+    // ========================================================================
+    private <T> void cache(String name, T cache, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder("estilo26.cache.requests", cache, hits)
+                .description("Lecturas de la caché en memoria")
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("estilo26.cache.requests", cache, misses)
+                .description("Lecturas de la caché en memoria")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        Gauge.builder("estilo26.cache.hit.ratio", cache, c -> {
+                    double h = hits.applyAsDouble(c);
+                    double total = h + misses.applyAsDouble(c);
+                    return total == 0 ? 0 : h / total;
+                })
+                .description("Aciertos / lecturas desde que arrancó la API")
+                .tag("cache", name)
+                .register(registry);
+    }
+}
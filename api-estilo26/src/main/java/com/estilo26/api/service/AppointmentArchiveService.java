@@ -0,0 +1,85 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * -------------------------------------------------------------
+ * ARCHIVO DE CITAS CERRADAS (tabla caliente + tabla fría)
+ * -------------------------------------------------------------
+ * ANTES: appointments guardaba todos los años; la agenda, el choque de horarios y el sync
+ * recorrían índices cada vez más grandes aunque solo miraran esta semana.
+ * AHORA: cada madrugada las citas COMPLETADAS o CANCELADAS de hace más de min-age-days
+ * se mudan (con sus servicios) a appointments_archive (db/migration/V7).
+ *   - La agenda, el listado y /changes leen SOLO la tabla caliente. El listado rechaza
+ *     ventanas que empiezan antes de min-age-days (saldrían incompletas).
+ *     El DELETE deja una lápida por cita (db/migration/V11): /changes se la avisa al cliente.
+ *   - El buscador y los reportes que recorren la historia (exportación, reconstrucción de
+ *     caja y de fichas VIP) leen las vistas appointments_all / appointment_services_all.
+ *
+ * Por lotes, cada uno en SU transacción: copiar y borrar van juntos (una cita nunca está
+ * en las dos tablas ni en ninguna) y ningún lote retiene candados mucho tiempo.
+ */
+@org.springframework.stereotype.Service
+public class AppointmentArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentArchiveService.class);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApiMetrics metrics;
+
+    // Antigüedad mínima (por fecha de la cita) para dejar la tabla caliente
+    @Value("${estilo26.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${estilo26.archive.batch-size:1000}")
+    private int batchSize;
+
+    // ========================================================================
+    // TAREA PROGRAMADA (cron en estilo26.archive.cron; "-" la apaga)
+    // ========================================================================
+    @Scheduled(cron = "${estilo26.archive.cron:0 30 3 * * *}")
+    public void archiveOldAppointments() {
+        int movidas = archiveClosedBefore(LocalDate.now().minusDays(minAgeDays));
+        if (movidas > 0) log.info("Archivo: {} citas cerradas movidas a appointments_archive", movidas);
+    }
+
+    // Devuelve cuántas citas se movieron. Se detiene en el primer lote incompleto.
+    public int archiveClosedBefore(LocalDate cutoff) {
+        int total = 0;
+        int movidas;
+        do {
+            movidas = transactionTemplate.execute(status -> moveBatch(cutoff));
+            total += movidas;
+            metrics.archived(movidas);
+        } while (movidas == batchSize);
+        return total;
+    }
+
+    private int moveBatch(LocalDate cutoff) {
+        List<Long> ids = appointmentRepository.lockClosedBefore(cutoff, batchSize);
+        if (ids.isEmpty()) return 0;
+
+        // Primero los padres en el archivo (la FK de appointment_services_archive los exige),
+        // luego los hijos; al borrar, al revés.
+        appointmentRepository.copyToArchive(ids);
+        appointmentRepository.copyServicesToArchive(ids);
+        appointmentRepository.deleteServices(ids);
+        appointmentRepository.deleteByIds(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,13 @@
+package com.estilo26.api.service;
+
+/**
+ * La cita no está como el cliente creía: otra tablet la cambió primero, o el cambio pedido
+ * no es válido desde su estado actual. Los controladores la contestan con 409 (no con 400):
+ * la petición estaba bien escrita, lo que hay que hacer es recargar la cita y decidir otra vez.
+ */
+public class AppointmentConflictException extends RuntimeException {
+
+    public AppointmentConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,116 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.repository.AppointmentExportRow;
+import com.estilo26.api.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * -------------------------------------------------------------
+ * EXPORTACIÓN DEL LIBRO DE CITAS (Para el contador)
+ * -------------------------------------------------------------
+ * ANTES: GET /api/appointments armaba TODAS las citas (con servicios) en un solo arreglo JSON.
+ * AHORA: se recorre un cursor de Postgres y cada fila se escribe a la respuesta en cuanto llega.
+ * La memoria usada es la misma para un mes que para cinco años.
+ */
+@org.springframework.stereotype.Service
+public class AppointmentExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String[] COLUMNAS = {
+            "id", "appointmentDate", "appointmentTime", "endTime", "clientName", "clientPhone", "barberName",
+            "status", "paymentMethod", "isWalkIn", "rescheduled", "services", "totalServicesCost",
+            "discountApplied", "tipAmount", "finalTotalPaid", "barberCommission"
+    };
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // La transacción mantiene vivo el cursor mientras se escribe la respuesta (readOnly: en la réplica)
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, String barberName, Format format, OutputStream out) {
+        LocalDate desde = (from != null) ? from : LocalDate.of(1970, 1, 1);
+        LocalDate hasta = (to != null) ? to : LocalDate.of(9999, 12, 31);
+        String barber = (barberName != null && !barberName.isBlank())
+                ? AppointmentSlotIndex.barberKey(barberName)
+                : null;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long filas = 0;
+
+        try (Stream<AppointmentExportRow> rows = appointmentRepository.streamForExport(desde, hasta, barber)) {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", COLUMNAS));
+                writer.write("\n");
+            }
+            for (AppointmentExportRow row : (Iterable<AppointmentExportRow>) rows::iterator) {
+                Object[] valores = valores(row);
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, valores);
+                } else {
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    for (int i = 0; i < COLUMNAS.length; i++) {
+                        json.put(COLUMNAS[i], valores[i]);
+                    }
+                    writer.write(jsonMapper.writeValueAsString(json));
+                    writer.write("\n");
+                }
+                filas++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // El cliente cortó la descarga: se cierra el cursor y listo
+            throw new UncheckedIOException(e);
+        }
+        return filas;
+    }
+
+    private static Object[] valores(AppointmentExportRow r) {
+        return new Object[]{
+                r.getId(), r.getAppointmentDate(), r.getAppointmentTime(), r.getEndTime(), r.getClientName(),
+                r.getClientPhone(), r.getBarberName(), r.getStatus(), r.getPaymentMethod(), r.getIsWalkIn(),
+                r.getRescheduled(), r.getServiceNames(), r.getTotalServicesCost(), r.getDiscountApplied(),
+                r.getTipAmount(), r.getFinalTotalPaid(), r.getBarberCommission()
+        };
+    }
+
+    // RFC 4180: entre comillas si trae coma, comillas o salto de línea.
+    // El nombre del cliente lo escribe quien reserva (POST público): un texto que empieza con
+    // = + - @ Excel lo ejecuta como fórmula al abrir el archivo. Se le antepone ' (solo a textos:
+    // un descuento negativo sigue siendo número).
+    private static void writeCsvLine(Writer writer, Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) writer.write(',');
+            String v = Objects.toString(valores[i], "");
+            if (valores[i] instanceof CharSequence && !v.isEmpty() && "=+-@\t\r".indexOf(v.charAt(0)) >= 0) {
+                v = "'" + v;
+            }
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(v.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(v);
+            }
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,424 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.config.BookingConstraintCheck;
+import com.estilo26.api.dto.AppointmentImportDTO;
+import com.estilo26.api.dto.AppointmentImportResultDTO;
+import com.estilo26.api.dto.AppointmentImportResultDTO.RowError;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.PaymentMethod;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.AppointmentSlotView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * -------------------------------------------------------------
+ * IMPORTACIÓN MASIVA DE CITAS (CSV o JSON)
+ * -------------------------------------------------------------
+ * Para migrar la agenda de papel de una sucursal o un sistema anterior.
+ *
+ * 1. El catálogo se consulta UNA vez para todos los servicios del archivo.
+ * 2. La ocupación existente se lee en UNA consulta para todo el rango de fechas
+ *    y los choques se revisan en memoria (incluidos los choques entre filas del mismo archivo).
+ * 3. Las citas válidas se insertan en lotes (ids por secuencia + hibernate.jdbc.batch_size).
+ * 4. Las tablas derivadas se actualizan al final: la caja con consultas de conjunto sobre el rango
+ *    cobrado y las fichas solo de los clientes del archivo. El índice de agenda, después del COMMIT.
+ *
+ * Choques con reservas en vivo: la revisión y los INSERT corren con los candados de BookingLocks
+ * de cada (día, barbero) del archivo, los mismos que toma createAppointment. Mientras dura la
+ * importación, las reservas de ESOS días y barberos esperan; las demás siguen normal.
+ * Entre varias instancias de la API la garantía sigue siendo el constraint de Postgres (V9).
+ *
+ * Las filas inválidas NO detienen la importación: se reportan con su número y motivo.
+ */
+@org.springframework.stereotype.Service
+public class AppointmentImportService {
+
+    // Columnas del CSV (la primera línea debe traer estos nombres, en cualquier orden)
+    private static final String[] COLUMNAS_CSV = {
+            "clientName", "clientPhone", "appointmentDate", "appointmentTime", "barberName",
+            "serviceIds", "status", "paymentMethod", "discount", "tip", "isWalkIn"
+    };
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ServiceCatalogCache catalogCache;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private CashRegisterService cashRegisterService;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private BookingLocks bookingLocks;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Filas que se guardan antes de vaciar el contexto de persistencia (memoria plana)
+    @Value("${estilo26.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${estilo26.import.max-rows:200000}")
+    private int maxRows;
+
+    // ========================================================================
+    // ENTRADAS
+    // ========================================================================
+    // Sin @Transactional: la transacción se abre DENTRO de los candados (ver importar)
+    public AppointmentImportResultDTO importRows(List<AppointmentImportDTO> filas) {
+        return importar(filas, new ArrayList<>());
+    }
+
+    // CSV con encabezado. serviceIds separados por "|" (ej: 1|3)
+    public AppointmentImportResultDTO importCsv(Reader reader) {
+        List<AppointmentImportDTO> filas = new ArrayList<>();
+        List<RowError> errores = new ArrayList<>();
+
+        try (BufferedReader in = new BufferedReader(reader)) {
+            String encabezado = in.readLine();
+            if (encabezado == null) throw new RuntimeException("El archivo está vacío.");
+            Map<String, Integer> columnas = indexarEncabezado(splitCsv(stripBom(encabezado)));
+
+            String linea;
+            while ((linea = in.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                try {
+                    filas.add(parseCsvRow(splitCsv(linea), columnas));
+                } catch (RuntimeException e) {
+                    filas.add(null);
+                    errores.add(new RowError(filas.size(), "Fila ilegible: " + e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return importar(filas, errores);
+    }
+
+    // ========================================================================
+    // NÚCLEO
+    // ========================================================================
+    private AppointmentImportResultDTO importar(List<AppointmentImportDTO> filas, List<RowError> errores) {
+        long inicio = System.nanoTime();
+        if (filas.size() > maxRows) {
+            throw new RuntimeException("Máximo " + maxRows + " filas por importación.");
+        }
+
+        // 1. Todo el catálogo que menciona el archivo, en una sola búsqueda
+        Set<Long> idsServicios = new HashSet<>();
+        for (AppointmentImportDTO f : filas) {
+            if (f != null && f.getServiceIds() != null) idsServicios.addAll(f.getServiceIds());
+        }
+        Map<Long, Service> catalogo = new HashMap<>();
+        for (Service s : catalogCache.findAllById(idsServicios)) {
+            catalogo.put(s.getId(), s);
+        }
+
+        // 2. Validar cada fila y armar su cita
+        List<Appointment> candidatas = new ArrayList<>();
+        List<Integer> numeroDeFila = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            AppointmentImportDTO f = filas.get(i);
+            if (f == null) continue; // ya reportada al leer el CSV
+            try {
+                candidatas.add(toAppointment(f, catalogo));
+                numeroDeFila.add(i + 1);
+            } catch (RuntimeException e) {
+                errores.add(new RowError(i + 1, e.getMessage()));
+            }
+        }
+
+        // 3-5. Con los candados de cada (día, barbero) del archivo: revisar, insertar y confirmar.
+        // La agenda en memoria se refresca ya confirmada y antes de soltar los candados, así ninguna
+        // reserva ve el hueco libre entre el COMMIT y el refresco. Si la transacción se deshace, no se toca.
+        Set<BookingLocks.Key> carriles = new HashSet<>();
+        for (Appointment a : candidatas) {
+            carriles.add(new BookingLocks.Key(a.getAppointmentDate(), AppointmentSlotIndex.barberKey(a.getBarberName())));
+        }
+        List<Appointment> aceptadas = bookingLocks.withLocks(carriles, () -> {
+            List<Appointment> guardadas = transactionTemplate.execute(status -> guardar(candidatas, numeroDeFila, errores));
+            Set<LocalDate> dias = new HashSet<>();
+            for (Appointment a : guardadas) dias.add(a.getAppointmentDate());
+            slotIndex.refreshDays(dias);
+            return guardadas;
+        });
+
+        AppointmentImportResultDTO resultado = new AppointmentImportResultDTO();
+        resultado.setReceived(filas.size());
+        resultado.setImported(aceptadas.size());
+        errores.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        resultado.setRejected(errores);
+        long millis = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        resultado.setElapsedMillis(millis);
+        resultado.setRowsPerSecond(aceptadas.size() * 1000L / millis);
+        return resultado;
+    }
+
+    // Corre dentro de la transacción de importar
+    private List<Appointment> guardar(List<Appointment> candidatas, List<Integer> numeroDeFila, List<RowError> errores) {
+        // 3. Choques de horario de TODO el lote en una pasada
+        List<Appointment> aceptadas = filtrarChoques(candidatas, numeroDeFila, errores);
+
+        // 4. INSERT por lotes. flush + clear cada chunkSize para no acumular entidades.
+        // (flush por el repositorio: así el error del constraint llega traducido por Spring)
+        try {
+            for (int i = 0; i < aceptadas.size(); i += chunkSize) {
+                appointmentRepository.saveAll(aceptadas.subList(i, Math.min(i + chunkSize, aceptadas.size())));
+                appointmentRepository.flush();
+                entityManager.clear();
+
+                // Si la tabla estaba casi vacía, Postgres cree que tiene 4 filas y revisa las llaves
+                // foráneas con un recorrido completo: cada INSERT se vuelve más lento que el anterior.
+                // Un ANALYZE tras el primer lote (cuenta las filas de esta transacción) corrige el plan.
+                if (i == 0 && aceptadas.size() > chunkSize) {
+                    entityManager.createNativeQuery("ANALYZE appointments, appointment_services").executeUpdate();
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            String causa = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (causa.contains(BookingConstraintCheck.CONSTRAINT_NAME)) {
+                throw new RuntimeException("⚠️ Otra reserva ocupó uno de los horarios mientras se importaba. Vuelve a intentarlo.");
+            }
+            throw e;
+        }
+
+        List<Appointment> cobradas = new ArrayList<>();
+        LocalDate primerCobro = null;
+        LocalDate ultimoCobro = null;
+        for (Appointment a : aceptadas) {
+            if (a.getStatus() == AppointmentStatus.COMPLETADA) {
+                cobradas.add(a);
+                LocalDate d = a.getAppointmentDate();
+                if (primerCobro == null || d.isBefore(primerCobro)) primerCobro = d;
+                if (ultimoCobro == null || d.isAfter(ultimoCobro)) ultimoCobro = d;
+            }
+        }
+
+        // 5. Derivados: solo si entraron cobros. La caja, por rango; las fichas, solo de estos clientes
+        if (primerCobro != null) {
+            cashRegisterService.rebuild(primerCobro, ultimoCobro);
+            clientStatsService.recordVisits(cobradas);
+        }
+        return aceptadas;
+    }
+
+    // Misma construcción que createAppointment (precio y duración del catálogo)
+    // y, si ya viene cobrada, la misma matemática que el checkout.
+    private Appointment toAppointment(AppointmentImportDTO f, Map<Long, Service> catalogo) {
+        if (f.getClientName() == null || f.getClientName().isBlank()) throw new RuntimeException("Falta el nombre del cliente.");
+        if (f.getAppointmentDate() == null) throw new RuntimeException("Falta la fecha.");
+        if (f.getAppointmentTime() == null) throw new RuntimeException("Falta la hora.");
+        if (f.getServiceIds() == null || f.getServiceIds().isEmpty()) throw new RuntimeException("La cita no tiene servicios.");
+
+        List<Service> servicios = new ArrayList<>();
+        for (Long id : f.getServiceIds()) {
+            Service s = catalogo.get(id);
+            if (s == null) throw new RuntimeException("El servicio " + id + " no existe en el catálogo.");
+            servicios.add(s);
+        }
+
+        AppointmentStatus status = (f.getStatus() != null && !f.getStatus().isBlank())
+                ? AppointmentStatus.valueOf(f.getStatus().trim().toUpperCase(Locale.ROOT))
+                : AppointmentStatus.PENDIENTE;
+
+        int totalMinutes = servicios.stream()
+                .mapToInt(s -> s.getDurationMinutes() != null ? s.getDurationMinutes() : 30)
+                .sum();
+        if (totalMinutes == 0) totalMinutes = 30;
+
+        Appointment cita = new Appointment();
+        cita.setClientName(f.getClientName().trim());
+        cita.setClientPhone(f.getClientPhone());
+        cita.setAppointmentDate(f.getAppointmentDate());
+        cita.setAppointmentTime(f.getAppointmentTime());
+        cita.setEndTime(f.getAppointmentTime().plusMinutes(totalMinutes));
+        cita.setBarberName(f.getBarberName());
+        cita.setServices(servicios);
+        cita.setStatus(status);
+        cita.setIsWalkIn(Boolean.TRUE.equals(f.getIsWalkIn()));
+        cita.setRescheduled(false);
+        cita.setTotalServicesCost(servicios.stream().map(Service::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        if (status == AppointmentStatus.COMPLETADA) {
+            PaymentMethod method = (f.getPaymentMethod() != null && !f.getPaymentMethod().isBlank())
+                    ? PaymentMethod.valueOf(f.getPaymentMethod().trim().toUpperCase(Locale.ROOT))
+                    : PaymentMethod.EFECTIVO;
+            cita.setPaymentMethod(method);
+            appointmentService.applyCheckoutMath(cita, f.getDiscount(), f.getTip());
+        } else {
+            cita.setPaymentMethod(PaymentMethod.PENDIENTE);
+        }
+        return cita;
+    }
+
+    // ========================================================================
+    // CHOQUES DEL LOTE COMPLETO
+    // ========================================================================
+    // Mismas reglas que el constraint de Postgres: los walk-ins y las canceladas no chocan.
+    // Bloques de 5 minutos (como AppointmentSlotIndex) en un BitSet por (día, barbero).
+    private List<Appointment> filtrarChoques(List<Appointment> candidatas, List<Integer> numeroDeFila, List<RowError> errores) {
+        LocalDate min = null;
+        LocalDate max = null;
+        for (Appointment a : candidatas) {
+            if (!ocupaAgenda(a)) continue;
+            if (min == null || a.getAppointmentDate().isBefore(min)) min = a.getAppointmentDate();
+            if (max == null || a.getAppointmentDate().isAfter(max)) max = a.getAppointmentDate();
+        }
+
+        Map<String, BitSet> ocupacion = new HashMap<>();
+        if (min != null) {
+            for (AppointmentSlotView v : appointmentRepository.findByAppointmentDateBetweenAndStatusNot(min, max, AppointmentStatus.CANCELADA)) {
+                ocupacion.computeIfAbsent(carril(v.getAppointmentDate(), v.getBarberName()), k -> new BitSet(AppointmentSlotIndex.SLOTS_PER_DAY))
+                        .set(AppointmentSlotIndex.startSlot(v.getAppointmentTime()),
+                                AppointmentSlotIndex.endSlot(v.getAppointmentTime(), v.getEndTime()));
+            }
+        }
+
+        List<Appointment> aceptadas = new ArrayList<>(candidatas.size());
+        for (int i = 0; i < candidatas.size(); i++) {
+            Appointment a = candidatas.get(i);
+            if (ocupaAgenda(a)) {
+                int from = AppointmentSlotIndex.startSlot(a.getAppointmentTime());
+                int to = AppointmentSlotIndex.endSlot(a.getAppointmentTime(), a.getEndTime());
+                BitSet bloques = ocupacion.computeIfAbsent(carril(a.getAppointmentDate(), a.getBarberName()), k -> new BitSet(AppointmentSlotIndex.SLOTS_PER_DAY));
+                int ocupado = bloques.nextSetBit(from);
+                if (ocupado >= 0 && ocupado < to) {
+                    errores.add(new RowError(numeroDeFila.get(i), "⚠️ Ese horario ya está ocupado."));
+                    continue;
+                }
+                bloques.set(from, to);
+            }
+            aceptadas.add(a);
+        }
+        return aceptadas;
+    }
+
+    private static boolean ocupaAgenda(Appointment a) {
+        return !a.getIsWalkIn() && a.getStatus() != AppointmentStatus.CANCELADA;
+    }
+
+    private static String carril(LocalDate date, String barberName) {
+        return date + "|" + AppointmentSlotIndex.barberKey(barberName);
+    }
+
+    // ========================================================================
+    // LECTURA DEL CSV
+    // ========================================================================
+    private static Map<String, Integer> indexarEncabezado(List<String> encabezado) {
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            columnas.put(encabezado.get(i).trim(), i);
+        }
+        for (String requerida : new String[]{"clientName", "appointmentDate", "appointmentTime", "serviceIds"}) {
+            if (!columnas.containsKey(requerida)) {
+                throw new RuntimeException("Falta la columna '" + requerida + "'. Columnas válidas: " + String.join(",", COLUMNAS_CSV));
+            }
+        }
+        return columnas;
+    }
+
+    private static AppointmentImportDTO parseCsvRow(List<String> celdas, Map<String, Integer> columnas) {
+        List<Long> serviceIds = new ArrayList<>();
+        String ids = celda(celdas, columnas, "serviceIds");
+        if (ids != null) {
+            for (String id : ids.split("\\|")) {
+                if (!id.isBlank()) serviceIds.add(Long.valueOf(id.trim()));
+            }
+        }
+        String hora = celda(celdas, columnas, "appointmentTime");
+        String fecha = celda(celdas, columnas, "appointmentDate");
+        String descuento = celda(celdas, columnas, "discount");
+        String propina = celda(celdas, columnas, "tip");
+
+        return AppointmentImportDTO.builder()
+                .clientName(celda(celdas, columnas, "clientName"))
+                .clientPhone(celda(celdas, columnas, "clientPhone"))
+                .appointmentDate(fecha != null ? LocalDate.parse(fecha) : null)
+                .appointmentTime(hora != null ? LocalTime.parse(hora.length() == 5 ? hora + ":00" : hora) : null)
+                .barberName(celda(celdas, columnas, "barberName"))
+                .serviceIds(serviceIds)
+                .status(celda(celdas, columnas, "status"))
+                .paymentMethod(celda(celdas, columnas, "paymentMethod"))
+                .discount(descuento != null ? new BigDecimal(descuento) : null)
+                .tip(propina != null ? new BigDecimal(propina) : null)
+                .isWalkIn(Boolean.parseBoolean(celda(celdas, columnas, "isWalkIn")))
+                .build();
+    }
+
+    // Celda vacía o columna ausente = null
+    private static String celda(List<String> celdas, Map<String, Integer> columnas, String nombre) {
+        Integer i = columnas.get(nombre);
+        if (i == null || i >= celdas.size()) return null;
+        String v = celdas.get(i).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    // RFC 4180 (una línea): comas entre comillas y "" como comilla escapada
+    private static List<String> splitCsv(String linea) {
+        List<String> celdas = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                celdas.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        celdas.add(actual.toString());
+        return celdas;
+    }
+
+    // Excel guarda los CSV en UTF-8 con BOM al inicio
+    private static String stripBom(String linea) {
+        return (!linea.isEmpty() && linea.charAt(0) == '\uFEFF') ? linea.substring(1) : linea;
+    }
+}
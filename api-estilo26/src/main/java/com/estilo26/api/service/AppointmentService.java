@@ -5,17 +5,35 @@ import com.estilo26.api.model.Service;
 import com.estilo26.api.model.User; // Importamos al User (Barbero)
 import com.estilo26.api.model.PaymentMethod; // Importamos el método de pago
 import com.estilo26.api.repository.AppointmentRepository;
-import com.estilo26.api.repository.ServiceRepository;
-import com.estilo26.api.repository.UserRepository; // Necesario para buscar la comisión
-import com.estilo26.api.dto.ClientDTO;
+import com.estilo26.api.repository.AppointmentServiceRef;
+import com.estilo26.api.repository.AppointmentSlotView;
+import com.estilo26.api.repository.AppointmentTombstone;
+import com.estilo26.api.dto.AppointmentChangesDTO;
+import com.estilo26.api.dto.AppointmentCursor;
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentListDTO;
+import com.estilo26.api.dto.AppointmentPageDTO;
 import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.config.BookingConstraintCheck;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode; // Para redondear dinero exactamente a 2 decimales
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
@@ -24,15 +42,174 @@ public class AppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
 
+    // Precios y duraciones salen de memoria (el catálogo casi nunca cambia)
     @Autowired
-    private ServiceRepository serviceRepository;
+    private ServiceCatalogCache catalogCache;
 
-    // INYECCIÓN DE DEPENDENCIA: Traemos el repo de usuarios para saber la comisión del barbero
+    // INYECCIÓN DE DEPENDENCIA: Traemos el directorio de usuarios para saber la comisión del barbero
     @Autowired
-    private UserRepository userRepository;
+    private UserDirectoryCache userDirectory;
 
-    public List<Appointment> getAllAppointments() {
-        return appointmentRepository.findAll();
+    // Índice en memoria de la ocupación por barbero y día (evita ir a la BD en cada choque)
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    // Fila india por (día, barbero): "revisar si está libre" + "guardar" ocurren juntos
+    @Autowired
+    private BookingLocks bookingLocks;
+
+    // Ficha acumulada de cada cliente (ranking VIP sin GROUP BY)
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    // Cubetas diarias del arqueo de caja
+    @Autowired
+    private CashRegisterService cashRegisterService;
+
+    // Choques, reagendados y cobros por método de pago (/actuator/prometheus)
+    @Autowired
+    private ApiMetrics metrics;
+
+    // Avisos a las pantallas que miran el día (AgendaEventBroadcaster, después del commit)
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    // Checkout y reagendar abren su propia transacción por intento (ver withOptimisticRetry)
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Ventana por defecto (en días hacia atrás y hacia adelante) del listado clásico
+    @Value("${estilo26.appointments.list-window-days:90}")
+    private int listWindowDays;
+
+    // La misma antigüedad con que AppointmentArchiveService muda las citas cerradas al archivo
+    @Value("${estilo26.archive.min-age-days:365}")
+    private int archiveMinAgeDays;
+
+    // Tope de filas por página en el buscador paginado
+    @Value("${estilo26.appointments.max-page-size:200}")
+    private int maxPageSize;
+
+    // Intentos (contando el primero) cuando otra tablet guardó la misma cita a la vez
+    @Value("${estilo26.appointments.optimistic-retries:3}")
+    private int optimisticRetries;
+
+    // ========================================================================
+    // LISTADO CLÁSICO (ACOTADO)
+    // ========================================================================
+    // ANTES: appointmentRepository.findAll() -> TODA la historia en cada recarga.
+    // AHORA: Solo una ventana de fechas. Si React no la manda, usamos hoy +/- listWindowDays.
+    // SIN readOnly a propósito: es la agenda en vivo. Recepción agenda y recarga al instante;
+    // leída de una réplica atrasada, la cita recién creada no aparecería.
+    // Solo la tabla caliente: una ventana que llega a la zona archivada saldría con huecos
+    // (faltarían las cobradas y canceladas), así que se rechaza y se manda al buscador.
+    public List<Appointment> getAllAppointments(LocalDate from, LocalDate to) {
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde = (from != null) ? from : hoy.minusDays(listWindowDays);
+        LocalDate hasta = (to != null) ? to : hoy.plusDays(listWindowDays);
+
+        if (hasta.isBefore(desde)) {
+            throw new RuntimeException("El rango de fechas es inválido.");
+        }
+        if (desde.plusDays(2L * listWindowDays).isBefore(hasta)) {
+            throw new RuntimeException("El rango máximo es de " + (2 * listWindowDays) + " días. Usa /api/appointments/search.");
+        }
+        if (desde.isBefore(hoy.minusDays(archiveMinAgeDays))) {
+            throw new RuntimeException("Las citas de hace más de " + archiveMinAgeDays
+                    + " días están en el archivo. Usa /api/appointments/search.");
+        }
+        return appointmentRepository.findByAppointmentDateBetweenOrderByAppointmentDateAscAppointmentTimeAsc(desde, hasta);
+    }
+
+    // ========================================================================
+    // BUSCADOR PAGINADO POR CURSOR (KEYSET)
+    // ========================================================================
+    // Igual que el listado: al primario (buscar la cita que se acaba de reservar tiene que encontrarla)
+    public AppointmentPageDTO searchAppointments(AppointmentFilterDTO filter, String cursor, Integer size) {
+        int limite = (size == null || size <= 0) ? 50 : Math.min(size, maxPageSize);
+        AppointmentCursor after = (cursor != null && !cursor.isBlank()) ? AppointmentCursor.decode(cursor) : null;
+
+        // Pedimos UNA fila extra: si llega, sabemos que hay otra página sin hacer un COUNT(*)
+        List<AppointmentListDTO> filas = appointmentRepository.searchPage(filter, after, limite + 1);
+
+        String nextCursor = null;
+        if (filas.size() > limite) {
+            filas = filas.subList(0, limite);
+            nextCursor = AppointmentCursor.of(filas.get(limite - 1)).encode();
+        }
+
+        attachServiceRefs(filas, appointmentRepository::findHistoryServiceRefsByAppointmentIds);
+        return new AppointmentPageDTO(filas, nextCursor);
+    }
+
+    // ========================================================================
+    // SINCRONIZACIÓN POR DIFERENCIAS (?since=N)
+    // ========================================================================
+    // El cliente guarda su copia de la agenda y solo pide lo que cambió desde su último "version":
+    // cuesta lo que cambió, no lo que hay en la historia. Las canceladas viajan como lápidas (solo el id),
+    // igual que las que salieron de la tabla caliente (archivadas o borradas, db/migration/V11).
+    // SIN readOnly a propósito: va al primario. El candado de V5 solo separa a quienes escriben ahí,
+    // y una réplica atrasada entregaría un "version" del que luego faltarían cambios.
+    @Transactional
+    public AppointmentChangesDTO getChangesSince(long since, Integer size) {
+        if (since < 0) {
+            throw new RuntimeException("El parámetro since no puede ser negativo.");
+        }
+        int limite = (size == null || size <= 0) ? maxPageSize : Math.min(size, maxPageSize);
+
+        // Con escrituras a medio confirmar podría aparecer DESPUÉS un número menor al que vamos a entregar:
+        // mejor contestar "sin cambios por ahora" (mismo version) que saltarse uno para siempre.
+        if (!appointmentRepository.acquireChangesBarrier()) {
+            return new AppointmentChangesDTO(List.of(), List.of(), since, false);
+        }
+
+        List<AppointmentListDTO> filas = appointmentRepository.findChangesSince(since, limite + 1);
+        List<AppointmentTombstone> borradas = appointmentRepository.findTombstonesSince(since, limite + 1);
+
+        // Las dos listas vienen en orden de cambio: se intercalan y se corta en "limite"
+        List<AppointmentListDTO> cambiadas = new ArrayList<>();
+        List<Long> canceladas = new ArrayList<>();
+        long version = since;
+        int f = 0;
+        int b = 0;
+        while (f + b < limite && (f < filas.size() || b < borradas.size())) {
+            if (b >= borradas.size()
+                    || (f < filas.size() && filas.get(f).getChangeVersion() < borradas.get(b).getChangeVersion())) {
+                AppointmentListDTO fila = filas.get(f++);
+                version = fila.getChangeVersion();
+                if (fila.getStatus() == AppointmentStatus.CANCELADA) {
+                    canceladas.add(fila.getId());
+                } else {
+                    cambiadas.add(fila);
+                }
+            } else {
+                AppointmentTombstone lapida = borradas.get(b++);
+                version = lapida.getChangeVersion();
+                canceladas.add(lapida.getId());
+            }
+        }
+        boolean hayMas = f < filas.size() || b < borradas.size();
+
+        attachServiceRefs(cambiadas, appointmentRepository::findServiceRefsByAppointmentIds);
+        return new AppointmentChangesDTO(cambiadas, canceladas, version, hayMas);
+    }
+
+    // Una sola consulta para los servicios de toda la página (evita el N+1)
+    // (de la tabla caliente o de toda la historia, según de dónde salieron las filas)
+    private void attachServiceRefs(List<AppointmentListDTO> filas,
+                                   Function<Collection<Long>, List<AppointmentServiceRef>> serviciosDe) {
+        if (filas.isEmpty()) return;
+
+        Map<Long, AppointmentListDTO> porId = new HashMap<>();
+        for (AppointmentListDTO fila : filas) {
+            porId.put(fila.getId(), fila);
+        }
+
+        for (AppointmentServiceRef ref : serviciosDe.apply(porId.keySet())) {
+            AppointmentListDTO fila = porId.get(ref.getAppointmentId());
+            fila.getServiceIds().add(ref.getServiceId());
+            fila.getServiceNames().add(ref.getServiceName());
+        }
     }
 
     public Appointment createAppointment(Appointment nuevaCita) {
@@ -56,8 +233,8 @@ public class AppointmentService {
                 .map(Service::getId)
                 .collect(Collectors.toList());
 
-        // 2. Buscar los servicios COMPLETOS en la base de datos (Precio, Tiempo, Nombre)
-        List<Service> realServices = serviceRepository.findAllById(serviceIds);
+        // 2. Buscar los servicios COMPLETOS en el catálogo (Precio, Tiempo, Nombre)
+        List<Service> realServices = catalogCache.findAllById(serviceIds);
         nuevaCita.setServices(realServices);
 
         // --- MAGIA FINANCIERA EN LA CREACIÓN ---
@@ -80,132 +257,316 @@ public class AppointmentService {
         LocalTime horaFin = horaInicio.plusMinutes(totalMinutes);
         nuevaCita.setEndTime(horaFin);
 
+        // 7. Sellar como pendiente
+        nuevaCita.setStatus(AppointmentStatus.PENDIENTE);
+        nuevaCita.setPaymentMethod(PaymentMethod.PENDIENTE); // Aún no sabemos cómo va a pagar
+
         // 6. Verificar choque de horarios SOLO si NO es un Walk-In (Corte Express)
         // Los Walk-ins se atienden en el momento, a veces rompiendo la agenda estricta.
-        if (!nuevaCita.getIsWalkIn()) {
-            boolean ocupado = appointmentRepository.existsByAppointmentDateAndAppointmentTime(
-                    nuevaCita.getAppointmentDate(),
-                    nuevaCita.getAppointmentTime()
-            );
-
-            if (ocupado) {
-                throw new RuntimeException("⚠️ Ese horario ya está reservado.");
+        // El choque ahora es por BARBERO y por RANGO (inicio-fin), no solo por hora exacta.
+        // Todo ocurre dentro del candado de (día, barbero): dos POST simultáneos ya no ganan los dos.
+        return bookingLocks.withLock(nuevaCita.getAppointmentDate(), nuevaCita.getBarberName(), () -> {
+            if (!nuevaCita.getIsWalkIn()) {
+                boolean libre = slotIndex.isAvailable(
+                        nuevaCita.getAppointmentDate(),
+                        nuevaCita.getBarberName(),
+                        horaInicio,
+                        horaFin,
+                        null
+                );
+
+                if (!libre) {
+                    metrics.bookingConflict("create", "memory");
+                    throw new RuntimeException("⚠️ Ese horario ya está reservado.");
+                }
+            }
+
+            Appointment guardada;
+            try {
+                guardada = saveBooking(nuevaCita, "create", "⚠️ Ese horario ya está reservado.");
+            } catch (SlotTakenException e) {
+                slotIndex.reloadDay(e.date);
+                throw e;
             }
+            slotIndex.register(guardada); // El walk-in también ocupa la silla
+            events.publishEvent(AgendaEventBroadcaster.AgendaEvent.of("created", guardada, null));
+            return guardada;
+        });
+    }
+
+    // ========================================================================
+    // ÚLTIMA LÍNEA DE DEFENSA: EL CONSTRAINT DE POSTGRES
+    // ========================================================================
+    // Si otra instancia de la API ganó el horario, Postgres rechaza el INSERT/UPDATE.
+    // Lo traducimos al mismo mensaje de "ocupado"; quien llama refresca el día en memoria
+    // DESPUÉS del rollback (dentro de una transacción abortada Postgres ya no contesta consultas).
+    // saveAndFlush: el constraint se evalúa AQUÍ (dentro del candado), no hasta el commit.
+    private Appointment saveBooking(Appointment cita, String operacion, String mensajeChoque) {
+        try {
+            return appointmentRepository.saveAndFlush(cita);
+        } catch (DataIntegrityViolationException e) {
+            String causa = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (causa.contains(BookingConstraintCheck.CONSTRAINT_NAME)) {
+                metrics.bookingConflict(operacion, "database");
+                throw new SlotTakenException(mensajeChoque, cita.getAppointmentDate());
+            }
+            throw e;
         }
+    }
 
-        // 7. Sellar como pendiente
-        nuevaCita.setStatus(AppointmentStatus.PENDIENTE);
-        nuevaCita.setPaymentMethod(PaymentMethod.PENDIENTE); // Aún no sabemos cómo va a pagar
+    // "Ocupado" según Postgres: lleva el día que hay que releer (mismo mensaje para React)
+    private static final class SlotTakenException extends RuntimeException {
+        final LocalDate date;
 
-        return appointmentRepository.save(nuevaCita);
+        SlotTakenException(String message, LocalDate date) {
+            super(message);
+            this.date = date;
+        }
     }
 
     // ========================================================================
     // NUEVO MOTOR FINANCIERO (CHECKOUT)
     // ========================================================================
     // Refactorizamos updateStatus para que sea el "Cobrador" oficial de la app.
+    // Dentro de la transacción la cita queda "administrada" por Hibernate, así el save
+    // termina en un solo UPDATE (sin volver a leerla ni reescribir sus servicios).
     public Appointment checkoutAppointment(Long id, String newStatus, String paymentMethodStr, BigDecimal discount, BigDecimal tip) {
-        return appointmentRepository.findById(id)
-                .map(cita -> {
-                    AppointmentStatus statusEnum = AppointmentStatus.valueOf(newStatus.toUpperCase());
-                    cita.setStatus(statusEnum);
-
-                    // SI LA CITA SE MARCA COMO COMPLETADA, SE DISPARA EL CÁLCULO DE NÓMINA
-                    if (statusEnum == AppointmentStatus.COMPLETADA) {
-
-                        // 1. Validar Método de Pago (Protegemos contra inyecciones falsas de React)
-                        PaymentMethod method = PaymentMethod.EFECTIVO; // Default
-                        if (paymentMethodStr != null) {
-                            method = PaymentMethod.valueOf(paymentMethodStr.toUpperCase());
-                        }
-                        cita.setPaymentMethod(method);
-
-                        // 2. Asignar propinas y descuentos (Si vienen null, los hacemos cero)
-                        BigDecimal desc = (discount != null) ? discount : BigDecimal.ZERO;
-                        BigDecimal propina = (tip != null) ? tip : BigDecimal.ZERO;
-
-                        cita.setDiscountApplied(desc);
-                        cita.setTipAmount(propina);
-
-                        // 3. Recalcular el costo total de los servicios (Por si hubo un cambio)
-                        BigDecimal totalServicios = cita.getServices().stream()
-                                .map(Service::getPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                        cita.setTotalServicesCost(totalServicios);
-
-                        // 4. Matemática Financiera Inmutable:
-                        // Total Final = (Servicios - Descuento) + Propina
-                        BigDecimal totalFinal = totalServicios.subtract(desc).add(propina);
-                        // Prevenir totales negativos si el descuento es absurdo
-                        if (totalFinal.compareTo(BigDecimal.ZERO) < 0) totalFinal = BigDecimal.ZERO;
-                        cita.setFinalTotalPaid(totalFinal);
-
-                        // 5. CALCULAR COMISIÓN DEL BARBERO
-                        // Buscamos al barbero en la base de datos para sacar su porcentaje secreto
-                        BigDecimal porcentajeComision = new BigDecimal("50.00"); // 50% por defecto si no lo hallamos
-
-                        if (cita.getBarberName() != null && !cita.getBarberName().isEmpty()) {
-                            User barbero = userRepository.findByUsername(cita.getBarberName()).orElse(null);
-                            if (barbero != null && barbero.getCommissionPercentage() != null) {
-                                porcentajeComision = barbero.getCommissionPercentage();
-                            }
-                        }
-
-                        // Fórmula: (Total Servicios - Descuento) * (Porcentaje / 100)
-                        // IMPORTANTE: La propina NO se divide con el local. La propina va íntegra al barbero.
-                        BigDecimal baseComisionable = totalServicios.subtract(desc);
-                        if (baseComisionable.compareTo(BigDecimal.ZERO) < 0) baseComisionable = BigDecimal.ZERO;
-
-                        BigDecimal comisionCorte = baseComisionable
-                                .multiply(porcentajeComision)
-                                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-
-                        // Comisión Total = Su tajada del corte + Su propina completa
-                        BigDecimal comisionTotal = comisionCorte.add(propina);
-                        cita.setBarberCommission(comisionTotal);
-                    }
-
-                    return appointmentRepository.save(cita);
-                })
+        return checkoutAppointment(id, newStatus, paymentMethodStr, discount, tip, null);
+    }
+
+    // expectedVersion: la "version" de la cita que tenía la tablet (null = no la mandó)
+    public Appointment checkoutAppointment(Long id, String newStatus, String paymentMethodStr, BigDecimal discount,
+                                           BigDecimal tip, Long expectedVersion) {
+        AppointmentStatus statusEnum = AppointmentStatus.valueOf(newStatus.toUpperCase());
+
+        // 1. Validar Método de Pago (Protegemos contra inyecciones falsas de React)
+        PaymentMethod method = (paymentMethodStr != null)
+                ? PaymentMethod.valueOf(paymentMethodStr.toUpperCase())
+                : PaymentMethod.EFECTIVO; // Default
+
+        // Candado del (día, barbero) de la cita por FUERA de la transacción: el COMMIT y el registro en la
+        // agenda en memoria pasan antes de soltarlo, así un reagendado simultáneo no queda pisado por esta foto
+        AppointmentSlotView carril = appointmentRepository.findSlotById(id)
                 .orElseThrow(() -> new RuntimeException("Cita no encontrada con id: " + id));
+        return bookingLocks.withLock(carril.getAppointmentDate(), carril.getBarberName(), () -> {
+            Appointment guardada = checkoutUnderLock(id, carril, statusEnum, method, discount, tip, expectedVersion);
+            // Si se canceló, su horario vuelve a quedar libre en el índice
+            slotIndex.register(guardada);
+            return guardada;
+        });
     }
 
-    public Appointment rescheduleAppointment(Long id, String newDate, String newTime) {
-        Appointment cita = appointmentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Cita no encontrada"));
+    private Appointment checkoutUnderLock(Long id, AppointmentSlotView carril, AppointmentStatus statusEnum, PaymentMethod method,
+                                          BigDecimal discount, BigDecimal tip, Long expectedVersion) {
+        // Se anota fuera del reintento: un intento que chocó no es otro cobro
+        boolean[] primerCobro = {false};
+        Appointment guardada = withOptimisticRetry("checkout", () -> {
+            Appointment cita = appointmentRepository.findWithServicesById(id)
+                    .orElseThrow(() -> new RuntimeException("Cita no encontrada con id: " + id));
+            checkSameLane(cita, carril);
+            AppointmentStatus actual = cita.getStatus();
+
+            // Marcar lo que ya está marcado (EN_PROCESO dos veces, cancelar una cancelada) no es un choque
+            if (actual == statusEnum && statusEnum != AppointmentStatus.COMPLETADA) {
+                primerCobro[0] = false;
+                return cita;
+            }
+            checkExpectedVersion(cita, expectedVersion);
+            if (!actual.canTransitionTo(statusEnum)) {
+                throw new AppointmentConflictException("No se puede pasar una cita " + actual + " a " + statusEnum + ".");
+            }
 
-        LocalDate nuevaFecha = LocalDate.parse(newDate);
-        LocalTime nuevaHora = LocalTime.parse(newTime);
-        if (newTime.length() == 5) {
-            nuevaHora = LocalTime.parse(newTime + ":00");
+            boolean yaEstabaCobrada = actual == AppointmentStatus.COMPLETADA;
+            cita.setStatus(statusEnum);
+
+            // SI LA CITA SE MARCA COMO COMPLETADA, SE DISPARA EL CÁLCULO DE NÓMINA
+            if (statusEnum == AppointmentStatus.COMPLETADA) {
+                // Re-cobrar: foto de lo que el cobro anterior ya sumó, para restarlo después
+                CashRegisterService.Checkout cobroAnterior = yaEstabaCobrada ? CashRegisterService.Checkout.of(cita) : null;
+                cita.setPaymentMethod(method);
+
+                // 2-5. Propina, descuento, totales y comisión (misma fórmula que la importación)
+                applyCheckoutMath(cita, discount, tip);
+
+                // 6. Sumar la visita a la ficha del cliente y el dinero a la caja del día
+                // (misma transacción que el cobro: o se guarda todo, o nada).
+                // Re-cobrar no cuenta como otra visita: se corrige la diferencia (cubeta y gasto).
+                if (!yaEstabaCobrada) {
+                    clientStatsService.recordVisit(cita);
+                    cashRegisterService.recordCheckout(cita);
+                } else {
+                    clientStatsService.correctSpent(cita, cobroAnterior.total());
+                    cashRegisterService.correctCheckout(cobroAnterior, cita);
+                }
+            }
+            primerCobro[0] = statusEnum == AppointmentStatus.COMPLETADA && !yaEstabaCobrada;
+
+            // saveAndFlush: si otra tablet la guardó primero, el choque salta AQUÍ (y se reintenta)
+            Appointment actualizada = appointmentRepository.saveAndFlush(cita);
+            events.publishEvent(AgendaEventBroadcaster.AgendaEvent.of("status", actualizada, null));
+            return actualizada;
+        });
+
+        if (primerCobro[0]) metrics.checkout(method);
+        return guardada;
+    }
+
+    // ========================================================================
+    // CONCURRENCIA OPTIMISTA: REINTENTO ACOTADO
+    // ========================================================================
+    // Cada intento es su propia transacción: vuelve a leer la cita y vuelve a validar la transición.
+    // Si lo pedido sigue siendo válido sobre lo que guardó la otra tablet (p. ej. cobrar una cita que
+    // alguien acaba de marcar EN_PROCESO), el reintento lo aplica encima sin perder nada.
+    // Si ya no lo es, o se acabaron los intentos, es un choque de verdad: 409.
+    private Appointment withOptimisticRetry(String operacion, Supplier<Appointment> intento) {
+        for (int n = 1; ; n++) {
+            try {
+                return transactionTemplate.execute(status -> intento.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (n >= optimisticRetries) {
+                    metrics.optimisticConflict(operacion, "rejected");
+                    throw new AppointmentConflictException("La cita cambió mientras se guardaba. Recarga e intenta de nuevo.");
+                }
+                metrics.optimisticConflict(operacion, "retried");
+            }
         }
+    }
 
-        boolean ocupado = appointmentRepository.existsByAppointmentDateAndAppointmentTime(
-                nuevaFecha,
-                nuevaHora
-        );
+    // Entre la lectura del carril y la transacción alguien la movió de día o de barbero:
+    // el candado que tenemos ya no es el suyo
+    private static void checkSameLane(Appointment cita, AppointmentSlotView carril) {
+        if (!cita.getAppointmentDate().equals(carril.getAppointmentDate())
+                || !AppointmentSlotIndex.barberKey(cita.getBarberName()).equals(AppointmentSlotIndex.barberKey(carril.getBarberName()))) {
+            throw new AppointmentConflictException("La cita cambió mientras se guardaba. Recarga e intenta de nuevo.");
+        }
+    }
 
-        if (ocupado) {
-            throw new RuntimeException("⚠️ Ese horario ya está ocupado.");
+    // La tablet actuó sobre una copia vieja: no adivinamos qué habría decidido con la nueva
+    private static void checkExpectedVersion(Appointment cita, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(cita.getVersion())) {
+            throw new AppointmentConflictException("La cita cambió desde que la abriste (versión "
+                    + expectedVersion + ", ahora " + cita.getVersion() + "). Recarga e intenta de nuevo.");
         }
+    }
 
-        cita.setAppointmentDate(nuevaFecha);
-        cita.setAppointmentTime(nuevaHora);
+    // ========================================================================
+    // MATEMÁTICA DEL COBRO (Checkout e importación masiva)
+    // ========================================================================
+    void applyCheckoutMath(Appointment cita, BigDecimal discount, BigDecimal tip) {
+        // 2. Asignar propinas y descuentos (Si vienen null, los hacemos cero)
+        BigDecimal desc = (discount != null) ? discount : BigDecimal.ZERO;
+        BigDecimal propina = (tip != null) ? tip : BigDecimal.ZERO;
+
+        cita.setDiscountApplied(desc);
+        cita.setTipAmount(propina);
+
+        // 3. Recalcular el costo total de los servicios (Por si hubo un cambio)
+        BigDecimal totalServicios = cita.getServices().stream()
+                .map(Service::getPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        cita.setTotalServicesCost(totalServicios);
+
+        // 4. Matemática Financiera Inmutable:
+        // Total Final = (Servicios - Descuento) + Propina
+        BigDecimal totalFinal = totalServicios.subtract(desc).add(propina);
+        // Prevenir totales negativos si el descuento es absurdo
+        if (totalFinal.compareTo(BigDecimal.ZERO) < 0) totalFinal = BigDecimal.ZERO;
+        cita.setFinalTotalPaid(totalFinal);
+
+        // 5. CALCULAR COMISIÓN DEL BARBERO
+        // Buscamos al barbero en el directorio (memoria) para sacar su porcentaje secreto
+        BigDecimal porcentajeComision = new BigDecimal("50.00"); // 50% por defecto si no lo hallamos
+
+        if (cita.getBarberName() != null && !cita.getBarberName().isEmpty()) {
+            User barbero = userDirectory.findByUsername(cita.getBarberName()).orElse(null);
+            if (barbero != null && barbero.getCommissionPercentage() != null) {
+                porcentajeComision = barbero.getCommissionPercentage();
+            }
+        }
+
+        // Fórmula: (Total Servicios - Descuento) * (Porcentaje / 100)
+        // IMPORTANTE: La propina NO se divide con el local. La propina va íntegra al barbero.
+        BigDecimal baseComisionable = totalServicios.subtract(desc);
+        if (baseComisionable.compareTo(BigDecimal.ZERO) < 0) baseComisionable = BigDecimal.ZERO;
+
+        BigDecimal comisionCorte = baseComisionable
+                .multiply(porcentajeComision)
+                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+        // Comisión Total = Su tajada del corte + Su propina completa
+        BigDecimal comisionTotal = comisionCorte.add(propina);
+        cita.setBarberCommission(comisionTotal);
+    }
+
+    public Appointment rescheduleAppointment(Long id, String newDate, String newTime) {
+        return rescheduleAppointment(id, newDate, newTime, null);
+    }
+
+    public Appointment rescheduleAppointment(Long id, String newDate, String newTime, Long expectedVersion) {
+        LocalDate nuevaFecha = LocalDate.parse(newDate);
+        LocalTime nuevaHora = LocalTime.parse(newTime.length() == 5 ? newTime + ":00" : newTime);
+
+        // Candado del horario viejo Y del nuevo (pueden ser días distintos), tomado FUERA de la transacción:
+        // intento -> COMMIT -> registro en memoria -> soltar. Con el candado adentro, otra reserva podía
+        // entrar entre el COMMIT y el registro y ver libre el horario nuevo en la agenda en memoria.
+        AppointmentSlotView carril = appointmentRepository.findSlotById(id)
+                .orElseThrow(() -> new RuntimeException("Cita no encontrada"));
+        String barbero = carril.getBarberName();
+        return bookingLocks.withLocks(carril.getAppointmentDate(), barbero, nuevaFecha, barbero, () -> {
+            Appointment guardada;
+            try {
+                guardada = withOptimisticRetry("reschedule", () -> rescheduleAttempt(id, carril, nuevaFecha, nuevaHora, expectedVersion));
+            } catch (SlotTakenException e) {
+                // El intento ya se deshizo: ahora sí se puede releer el día desde la BD
+                slotIndex.reloadDay(e.date);
+                throw e;
+            }
+
+            // Solo lo confirmado entra a la agenda en memoria (un intento que se deshizo no deja huella)
+            slotIndex.register(guardada); // Suelta el horario viejo y ocupa el nuevo
+            metrics.rescheduled();
+            return guardada;
+        });
+    }
+
+    // Un intento = una transacción (withOptimisticRetry), ya dentro de los candados
+    private Appointment rescheduleAttempt(Long id, AppointmentSlotView carril, LocalDate nuevaFecha, LocalTime nuevaHora,
+                                          Long expectedVersion) {
+        Appointment cita = appointmentRepository.findWithServicesById(id)
+                .orElseThrow(() -> new RuntimeException("Cita no encontrada"));
+        checkSameLane(cita, carril);
+        checkExpectedVersion(cita, expectedVersion);
+        if (!cita.getStatus().canReschedule()) {
+            throw new AppointmentConflictException("No se puede reagendar una cita " + cita.getStatus() + ".");
+        }
 
         // Recalcular la hora de fin en base a los servicios reales que tiene
         int totalMinutes = cita.getServices().stream()
                 .mapToInt(s -> s.getDurationMinutes() != null ? s.getDurationMinutes() : 30)
                 .sum();
         if (totalMinutes == 0) totalMinutes = 30;
+        LocalTime nuevaHoraFin = nuevaHora.plusMinutes(totalMinutes);
+
+        LocalDate fechaAnterior = cita.getAppointmentDate();
 
-        cita.setEndTime(nuevaHora.plusMinutes(totalMinutes));
+        // La cita no choca consigo misma (por eso le pasamos su propio id)
+        boolean libre = slotIndex.isAvailable(nuevaFecha, cita.getBarberName(), nuevaHora, nuevaHoraFin, cita.getId());
+
+        if (!libre) {
+            metrics.bookingConflict("reschedule", "memory");
+            throw new RuntimeException("⚠️ Ese horario ya está ocupado.");
+        }
+
+        cita.setAppointmentDate(nuevaFecha);
+        cita.setAppointmentTime(nuevaHora);
+        cita.setEndTime(nuevaHoraFin);
         cita.setStatus(AppointmentStatus.PENDIENTE);
         cita.setRescheduled(true);
 
-        return appointmentRepository.save(cita);
+        Appointment actualizada = saveBooking(cita, "reschedule", "⚠️ Ese horario ya está ocupado.");
+        // El día anterior también se entera: la cita sale de su lista
+        events.publishEvent(AgendaEventBroadcaster.AgendaEvent.of("rescheduled", actualizada, fechaAnterior));
+        return actualizada;
     }
 
-    public List<ClientDTO> getVIPClients() {
-        return appointmentRepository.findTopVIPClients();
-    }
 }
@@ -0,0 +1,385 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.AppointmentSlotView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * -------------------------------------------------------------
+ * ÍNDICE DE OCUPACIÓN DE LA AGENDA (En memoria)
+ * -------------------------------------------------------------
+ * Cada día se parte en bloques de 5 minutos (288 bloques). Por cada
+ * (barbero, día) guardamos un "mapa de bits": bit encendido = bloque ocupado.
+ * Saber si un horario choca es un AND de máximo 5 números long, sin ir a la BD.
+ *
+ * La base de datos sigue siendo la fuente de la verdad: si el servidor se
+ * reinicia, cada día se reconstruye desde Postgres la primera vez que se consulta.
+ */
+@Component
+public class AppointmentSlotIndex {
+
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int WORDS = (SLOTS_PER_DAY + 63) / 64;
+
+    private final AppointmentRepository appointmentRepository;
+
+    // Días que se precargan al arrancar (hoy + N)
+    private final int warmDays;
+
+    // Tope de días en memoria: POST /api/appointments es público y acepta cualquier fecha
+    private final int maxDays;
+
+    private final Map<LocalDate, DaySlots> days = new ConcurrentHashMap<>();
+
+    // Dónde quedó registrada cada cita (para poder liberarla al cancelar o reagendar)
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+
+    // Consultas resueltas con el día ya en memoria vs. días que hubo que leer de la BD
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public AppointmentSlotIndex(AppointmentRepository appointmentRepository,
+                                @Value("${estilo26.slots.warm-days:14}") int warmDays,
+                                @Value("${estilo26.slots.max-days:400}") int maxDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.warmDays = warmDays;
+        this.maxDays = maxDays;
+    }
+
+    // ========================================================================
+    // CONSULTA: ¿Está libre este barbero en este rango?
+    // ========================================================================
+    // ignoreAppointmentId: al reagendar, la propia cita no debe chocar consigo misma.
+    public boolean isAvailable(LocalDate date, String barberName, LocalTime start, LocalTime end, Long ignoreAppointmentId) {
+        DaySlots day = loadedDay(date);
+        String barber = barberKey(barberName);
+        int from = startSlot(start);
+        int to = endSlot(start, end);
+
+        day.lock.lock();
+        try {
+            Lane lane = day.lanes.get(barber);
+            if (lane == null) return true;
+
+            Booking self = (ignoreAppointmentId != null) ? bookings.get(ignoreAppointmentId) : null;
+            if (self == null || !self.date.equals(date) || !self.barber.equals(barber)) {
+                return !anyBitSet(lane.bits, from, to);
+            }
+
+            // Quitamos "en borrador" los bloques que SOLO ocupa la propia cita
+            long[] bits = lane.bits.clone();
+            for (int s = Math.max(from, self.from); s < Math.min(to, self.to); s++) {
+                if (lane.counts[s] == 1) bits[s >>> 6] &= ~(1L << (s & 63));
+            }
+            return !anyBitSet(bits, from, to);
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    // ========================================================================
+    // FOTO DEL DÍA (para calcular disponibilidad sin bloquear a nadie)
+    // ========================================================================
+    // El número de versión sube con cada alta/baja en ese día: sirve para saber
+    // si un cálculo guardado en caché sigue siendo válido.
+    public long dayVersion(LocalDate date) {
+        return loadedDay(date).version;
+    }
+
+    public DaySnapshot snapshot(LocalDate date) {
+        DaySlots day = loadedDay(date);
+        day.lock.lock();
+        try {
+            Map<String, long[]> lanes = new HashMap<>();
+            day.lanes.forEach((barber, lane) -> lanes.put(barber, lane.bits.clone()));
+            return new DaySnapshot(day.version, lanes);
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    // ========================================================================
+    // ESCRITURA: Se llama DESPUÉS de guardar en la BD (crear, reagendar, cobrar)
+    // ========================================================================
+    public void register(Appointment cita) {
+        if (cita.getId() == null) return;
+        if (cita.getStatus() == AppointmentStatus.CANCELADA) {
+            unregister(cita.getId());
+            return;
+        }
+        register(cita.getId(), cita.getAppointmentDate(), cita.getBarberName(), cita.getAppointmentTime(), cita.getEndTime());
+    }
+
+    public void register(Long id, LocalDate date, String barberName, LocalTime start, LocalTime end) {
+        // Primero el día: si no estaba en memoria, loadDay ya leyó ESTA cita de la BD
+        // (soltarla antes y sumarla después la contaría dos veces)
+        DaySlots day = loadedDay(date);
+        Booking booking = new Booking(date, barberKey(barberName), startSlot(start), endSlot(start, end));
+
+        // Si estaba en otro día (reagendada), se suelta allá con el candado de ese día
+        Booking previa = bookings.get(id);
+        if (previa != null && !previa.date.equals(date)) unregister(id);
+
+        // Idempotente: dentro del mismo día se reemplaza por id
+        day.lock.lock();
+        try {
+            Booking actual = bookings.get(id);
+            if (booking.equals(actual)) return;
+            if (actual != null && actual.date.equals(date) && bookings.remove(id, actual)) day.remove(actual);
+            day.add(booking);
+            bookings.put(id, booking);
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    public void unregister(Long id) {
+        Booking booking = bookings.get(id);
+        if (booking == null) return;
+
+        DaySlots day = days.get(booking.date);
+        if (day == null) {
+            bookings.remove(id, booking);
+            return;
+        }
+        day.lock.lock();
+        try {
+            if (bookings.remove(id, booking)) {
+                day.remove(booking);
+            }
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    // Vuelve a leer un día completo desde la BD.
+    // Se usa cuando Postgres rechazó una reserva que la memoria creía libre
+    // (por ejemplo, la tomó otra instancia de la API).
+    public void reloadDay(LocalDate date) {
+        DaySlots day = loadedDay(date);
+        day.lock.lock();
+        try {
+            bookings.values().removeIf(b -> b.date.equals(date));
+            day.lanes.clear();
+            day.version++;
+            for (AppointmentSlotView v : appointmentRepository.findByAppointmentDateAndStatusNot(date, AppointmentStatus.CANCELADA)) {
+                Booking b = toBooking(v);
+                day.add(b);
+                bookings.put(v.getId(), b);
+            }
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    // Después de una importación masiva: solo se releen los días que ya estaban en memoria.
+    // Los demás se cargarán (ya con las citas nuevas) la primera vez que alguien los consulte.
+    public void refreshDays(Collection<LocalDate> dates) {
+        for (LocalDate date : dates) {
+            if (days.containsKey(date)) reloadDay(date);
+        }
+    }
+
+    // ========================================================================
+    // CONTADORES (días que ya estaban en memoria vs. leídos de la BD)
+    // ========================================================================
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // ========================================================================
+    // PRECARGA Y RECONSTRUCCIÓN DESDE LA BD
+    // ========================================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate hasta = hoy.plusDays(warmDays);
+
+        Map<LocalDate, DaySlots> cargados = new HashMap<>();
+        for (LocalDate d = hoy; !d.isAfter(hasta); d = d.plusDays(1)) {
+            cargados.put(d, new DaySlots());
+        }
+
+        Map<Long, Booking> nuevos = new HashMap<>();
+        for (AppointmentSlotView v : appointmentRepository
+                .findByAppointmentDateBetweenAndStatusNot(hoy, hasta, AppointmentStatus.CANCELADA)) {
+            Booking b = toBooking(v);
+            cargados.get(b.date).add(b);
+            nuevos.put(v.getId(), b);
+        }
+
+        // Solo publicamos los días que nadie cargó mientras tanto
+        cargados.forEach((fecha, day) -> {
+            if (days.putIfAbsent(fecha, day) == null) {
+                nuevos.forEach((id, b) -> {
+                    if (b.date.equals(fecha)) bookings.putIfAbsent(id, b);
+                });
+            }
+        });
+    }
+
+    private DaySlots loadedDay(LocalDate date) {
+        DaySlots day = days.get(date);
+        if (day != null) {
+            hits.incrementAndGet();
+            return day;
+        }
+
+        misses.incrementAndGet();
+        // Día nuevo en memoria: aprovechamos para soltar los días viejos (y los que sobren)
+        evictPastDays();
+        evictOverflow();
+        return loadDay(date);
+    }
+
+    // La lectura de la BD ocurre FUERA de computeIfAbsent (que bloquea con synchronized
+    // y detendría al hilo de plataforma de un hilo virtual). Si dos hilos cargan el mismo día
+    // a la vez, gana el primero en publicarlo y el otro descarta su copia.
+    private DaySlots loadDay(LocalDate date) {
+        DaySlots day = new DaySlots();
+        day.lock.lock();
+        try {
+            Map<Long, Booking> leidas = new HashMap<>();
+            for (AppointmentSlotView v : appointmentRepository.findByAppointmentDateAndStatusNot(date, AppointmentStatus.CANCELADA)) {
+                Booking b = toBooking(v);
+                day.add(b);
+                leidas.put(v.getId(), b);
+            }
+
+            DaySlots previo = days.putIfAbsent(date, day);
+            if (previo != null) return previo;
+            bookings.putAll(leidas);
+            return day;
+        } finally {
+            day.lock.unlock();
+        }
+    }
+
+    // Los días ya pasados no se vuelven a reservar: liberamos su memoria
+    private void evictPastDays() {
+        LocalDate limite = LocalDate.now().minusDays(1);
+        days.keySet().removeIf(d -> d.isBefore(limite));
+        bookings.values().removeIf(b -> b.date.isBefore(limite));
+    }
+
+    // Con el tope lleno se sueltan los días más lejanos a hoy (los que menos se consultan).
+    // Si alguien vuelve a pedir uno, se relee de la BD como cualquier día nuevo.
+    private void evictOverflow() {
+        int sobran = days.size() + 1 - maxDays; // +1: el día que está por cargarse
+        if (sobran <= 0) return;
+        LocalDate hoy = LocalDate.now();
+        List<LocalDate> lejanos = days.keySet().stream()
+                .sorted(Comparator.comparingLong((LocalDate d) -> Math.abs(ChronoUnit.DAYS.between(hoy, d))).reversed())
+                .limit(sobran)
+                .toList();
+        for (LocalDate d : lejanos) {
+            days.remove(d);
+            bookings.values().removeIf(b -> b.date.equals(d));
+        }
+    }
+
+    private Booking toBooking(AppointmentSlotView v) {
+        return new Booking(v.getAppointmentDate(), barberKey(v.getBarberName()),
+                startSlot(v.getAppointmentTime()), endSlot(v.getAppointmentTime(), v.getEndTime()));
+    }
+
+    // ========================================================================
+    // MATEMÁTICA DE BLOQUES
+    // ========================================================================
+    static String barberKey(String barberName) {
+        return (barberName == null) ? "" : barberName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static int startSlot(LocalTime start) {
+        return (start.getHour() * 60 + start.getMinute()) / SLOT_MINUTES;
+    }
+
+    // Redondea hacia arriba: una cita que termina 10:32 ocupa el bloque 10:30-10:35
+    static int endSlot(LocalTime start, LocalTime end) {
+        int startMin = start.getHour() * 60 + start.getMinute();
+        if (end == null) end = start.plusMinutes(30);
+        int endMin = end.getHour() * 60 + end.getMinute() + (end.getSecond() > 0 ? 1 : 0);
+        // Si la cita cruza la medianoche, la cortamos al final del día
+        if (endMin <= startMin) endMin = 24 * 60;
+        return Math.min(SLOTS_PER_DAY, (endMin + SLOT_MINUTES - 1) / SLOT_MINUTES);
+    }
+
+    // ¿Hay algún bit encendido en [from, to)? Recorre como máximo WORDS (5) longs.
+    static boolean anyBitSet(long[] bits, int from, int to) {
+        if (from >= to) return false;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long mask = -1L;
+            if (w == first) mask &= -1L << (from & 63);
+            if (w == last) mask &= -1L >>> (63 - ((to - 1) & 63));
+            if ((bits[w] & mask) != 0) return true;
+        }
+        return false;
+    }
+
+    // Copia de los mapas de bits de un día, por barbero (llave normalizada)
+    public record DaySnapshot(long version, Map<String, long[]> lanes) {
+
+        public long[] lane(String barberName) {
+            return lanes.get(barberKey(barberName));
+        }
+    }
+
+    // Una cita registrada: día, carril (barbero) y bloques [from, to)
+    private record Booking(LocalDate date, String barber, int from, int to) { }
+
+    // Un carril = la agenda de UN barbero en UN día.
+    // counts permite que dos citas se encimen (walk-ins) sin perder la ocupación al borrar una.
+    private static final class Lane {
+        final long[] bits = new long[WORDS];
+        final short[] counts = new short[SLOTS_PER_DAY];
+    }
+
+    private static final class DaySlots {
+        final Map<String, Lane> lanes = new HashMap<>();
+        // ReentrantLock (no synchronized): reloadDay lee de la BD con el candado tomado
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long version;
+
+        void add(Booking b) {
+            version++;
+            Lane lane = lanes.computeIfAbsent(b.barber, k -> new Lane());
+            for (int s = b.from; s < b.to; s++) {
+                if (lane.counts[s]++ == 0) lane.bits[s >>> 6] |= 1L << (s & 63);
+            }
+        }
+
+        void remove(Booking b) {
+            version++;
+            Lane lane = lanes.get(b.barber);
+            if (lane == null) return;
+            for (int s = b.from; s < b.to; s++) {
+                if (lane.counts[s] > 0 && --lane.counts[s] == 0) lane.bits[s >>> 6] &= ~(1L << (s & 63));
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AvailabilityDTO;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * -------------------------------------------------------------
+ * MOTOR DE DISPONIBILIDAD (¿A qué horas todavía cabe mi cita?)
+ * -------------------------------------------------------------
+ * Lee la "foto" del día desde AppointmentSlotIndex (memoria, sin BD) y guarda
+ * el resultado en caché por día. La caché se invalida sola: cada día del índice
+ * tiene un número de versión que sube con cada cita creada, reagendada o cancelada.
+ */
+@org.springframework.stereotype.Service
+public class AvailabilityService {
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private ServiceCatalogCache catalogCache;
+
+    @Autowired
+    private UserDirectoryCache userDirectory;
+
+    // Horario de la barbería (igual que la agenda del admin: 8:00 a 21:00)
+    @Value("${estilo26.agenda.open:08:00}")
+    private LocalTime apertura;
+
+    @Value("${estilo26.agenda.close:21:00}")
+    private LocalTime cierre;
+
+    // Cada cuántos minutos se ofrece un horario de inicio
+    @Value("${estilo26.agenda.step-minutes:15}")
+    private int pasoMinutos;
+
+    // Hasta cuántos días adelante se puede consultar (la página es pública: sin tope,
+    // cada fecha inventada dejaría un día más en memoria)
+    @Value("${estilo26.agenda.booking-horizon-days:180}")
+    private int horizonteDias;
+
+    // Cálculos guardados por día (barbero x duración). Pasado el tope se calcula sin guardar.
+    @Value("${estilo26.agenda.max-cached-results-per-day:256}")
+    private int maxResultadosPorDia;
+
+    private final Map<LocalDate, DayCache> cache = new ConcurrentHashMap<>();
+
+    public AvailabilityDTO getAvailability(LocalDate date, String barberName, List<Long> serviceIds) {
+        if (date == null) {
+            throw new RuntimeException("La fecha es obligatoria.");
+        }
+        LocalDate hoy = LocalDate.now();
+        if (date.isBefore(hoy) || date.isAfter(hoy.plusDays(horizonteDias))) {
+            throw new RuntimeException("Solo se puede consultar desde hoy y hasta " + horizonteDias + " días adelante.");
+        }
+        String barbero = (barberName != null && !barberName.isBlank()) ? barberName.trim() : null;
+        int minutos = totalMinutes(serviceIds);
+
+        // 1. ¿Tenemos este cálculo y sigue vigente? (lo normal: respuesta directa desde memoria)
+        // "Cualquier barbero" depende de quién trabaja: si cambió el directorio, el día se recalcula
+        // entero (así no se quedan llaves de versiones viejas).
+        long version = slotIndex.dayVersion(date);
+        long directorio = userDirectory.version();
+        DayCache dia = cache.get(date);
+        if (dia == null || dia.version != version || dia.directoryVersion != directorio) {
+            dia = new DayCache(version, directorio);
+            cache.put(date, dia);
+            cache.keySet().removeIf(d -> d.isBefore(hoy));
+        }
+
+        String llave = (barbero != null ? AppointmentSlotIndex.barberKey(barbero) : "*") + "|" + minutos;
+        Result resultado = dia.results.get(llave);
+        if (resultado == null) {
+            resultado = compute(date, barbero, minutos);
+            // Solo lo guardamos si nadie movió la agenda mientras calculábamos
+            // (y sin pasar el tope: el nombre del barbero lo escribe quien consulta)
+            if (resultado.version == dia.version && dia.results.size() < maxResultadosPorDia) {
+                dia.results.putIfAbsent(llave, resultado);
+            }
+        }
+
+        // 2. Si es hoy, no ofrecemos horarios que ya pasaron
+        List<LocalTime> horarios = resultado.slots;
+        if (date.equals(hoy)) {
+            LocalTime ahora = LocalTime.now();
+            horarios = horarios.stream().filter(h -> h.isAfter(ahora)).toList();
+        }
+        return new AvailabilityDTO(date, barbero, resultado.minutes, horarios);
+    }
+
+    // Misma regla que createAppointment: 30 min si el servicio no trae duración
+    private int totalMinutes(List<Long> serviceIds) {
+        int minutos = 0;
+        if (serviceIds != null && !serviceIds.isEmpty()) {
+            for (Service s : catalogCache.findAllById(new TreeSet<>(serviceIds))) {
+                minutos += (s.getDurationMinutes() != null) ? s.getDurationMinutes() : 30;
+            }
+        }
+        return (minutos == 0) ? 30 : minutos;
+    }
+
+    private Result compute(LocalDate date, String barbero, int minutos) {
+        AppointmentSlotIndex.DaySnapshot foto = slotIndex.snapshot(date);
+
+        // ¿Qué carriles revisamos? Uno si piden barbero; si no, todos los que atienden
+        List<long[]> carriles = new ArrayList<>();
+        if (barbero != null) {
+            carriles.add(foto.lane(barbero));
+        } else {
+            for (User u : userDirectory.getActiveUsers()) {
+                String rol = (u.getRole() != null) ? u.getRole().toUpperCase() : "";
+                if (rol.equals("BARBERO") || rol.equals("ADMIN")) {
+                    carriles.add(foto.lane(u.getUsername()));
+                }
+            }
+            if (carriles.isEmpty()) carriles.add(foto.lane(null));
+        }
+
+        int necesarios = (minutos + AppointmentSlotIndex.SLOT_MINUTES - 1) / AppointmentSlotIndex.SLOT_MINUTES;
+        int paso = Math.max(1, pasoMinutos / AppointmentSlotIndex.SLOT_MINUTES);
+        int desde = AppointmentSlotIndex.startSlot(apertura);
+        int hasta = AppointmentSlotIndex.startSlot(cierre);
+
+        List<LocalTime> libres = new ArrayList<>();
+        for (int s = desde; s + necesarios <= hasta; s += paso) {
+            for (long[] bits : carriles) {
+                // Carril sin citas (null) = barbero totalmente libre
+                if (bits == null || !AppointmentSlotIndex.anyBitSet(bits, s, s + necesarios)) {
+                    libres.add(LocalTime.MIN.plusMinutes((long) s * AppointmentSlotIndex.SLOT_MINUTES));
+                    break;
+                }
+            }
+        }
+        return new Result(foto.version(), minutos, Collections.unmodifiableList(libres));
+    }
+
+    private record Result(long version, int minutes, List<LocalTime> slots) { }
+
+    private static final class DayCache {
+        final long version;
+        final long directoryVersion;
+        final Map<String, Result> results = new ConcurrentHashMap<>();
+
+        DayCache(long version, long directoryVersion) {
+            this.version = version;
+            this.directoryVersion = directoryVersion;
+        }
+    }
+}
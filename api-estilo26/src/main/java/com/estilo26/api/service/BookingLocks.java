@@ -0,0 +1,98 @@
+package com.estilo26.api.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * -------------------------------------------------------------
+ * CANDADOS POR (DÍA, BARBERO) — "Striped Locks"
+ * -------------------------------------------------------------
+ * Dos reservas para el mismo barbero el mismo día se forman en fila;
+ * reservas de barberos o días distintos casi nunca se estorban.
+ * En vez de un candado por combinación (memoria infinita) usamos un
+ * arreglo fijo de candados y repartimos las llaves por hash.
+ *
+ * OJO: Esto solo protege DENTRO de esta JVM. Entre varias instancias de la API
+ * la garantía final la da el constraint de exclusión de Postgres (migración V3__booking_overlap_constraint.sql).
+ */
+@Component
+public class BookingLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public BookingLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(LocalDate date, String barberName, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(date, barberName)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Para reagendar: el horario viejo y el nuevo. Siempre se toman en el mismo
+    // orden (por número de franja) para que dos hilos nunca se bloqueen mutuamente.
+    public <T> T withLocks(LocalDate date1, String barber1, LocalDate date2, String barber2, Supplier<T> action) {
+        int a = stripe(date1, barber1);
+        int b = stripe(date2, barber2);
+        if (a == b) {
+            return withLock(date1, barber1, action);
+        }
+        ReentrantLock first = locks[Math.min(a, b)];
+        ReentrantLock second = locks[Math.max(a, b)];
+        first.lock();
+        try {
+            second.lock();
+            try {
+                return action.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    // Para la importación masiva: todas las franjas que toca el archivo, en el mismo
+    // orden ascendente que withLocks (así tampoco se bloquea mutuamente con un reagendado).
+    public <T> T withLocks(Collection<Key> keys, Supplier<T> action) {
+        int[] franjas = keys.stream()
+                .mapToInt(k -> stripe(k.date(), k.barberName()))
+                .distinct()
+                .sorted()
+                .toArray();
+        int tomados = 0;
+        try {
+            for (int f : franjas) {
+                locks[f].lock();
+                tomados++;
+            }
+            return action.get();
+        } finally {
+            for (int i = tomados - 1; i >= 0; i--) {
+                locks[franjas[i]].unlock();
+            }
+        }
+    }
+
+    public record Key(LocalDate date, String barberName) {
+    }
+
+    private int stripe(LocalDate date, String barberName) {
+        int h = 31 * date.hashCode() + AppointmentSlotIndex.barberKey(barberName).hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, STRIPES);
+    }
+}
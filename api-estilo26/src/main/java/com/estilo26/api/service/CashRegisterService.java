@@ -0,0 +1,149 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.BarberSettlementDTO;
+import com.estilo26.api.dto.CashRegisterCloseDTO;
+import com.estilo26.api.dto.CashTotalsDTO;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.CashRegisterBucket;
+import com.estilo26.api.model.PaymentMethod;
+import com.estilo26.api.repository.CashRegisterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * -------------------------------------------------------------
+ * ARQUEO DE CAJA (Cubetas diarias por método de pago y barbero)
+ * -------------------------------------------------------------
+ * ANTES: React descargaba todas las citas y sumaba en el navegador.
+ * AHORA: cada cobro suma sus montos a su cubeta (día, método, barbero) y el
+ * corte es leer esas cubetas: su costo no depende de cuántas citas hubo.
+ */
+@org.springframework.stereotype.Service
+public class CashRegisterService {
+
+    @Autowired
+    private CashRegisterRepository cashRegisterRepository;
+
+    // ========================================================================
+    // SUMA INCREMENTAL (la llama el checkout, dentro de SU transacción)
+    // ========================================================================
+    @Transactional
+    public void recordCheckout(Appointment cita) {
+        add(Checkout.of(cita), 1);
+    }
+
+    // Re-cobrar una cita ya COMPLETADA (corregir método, descuento o propina): lo que sumó el
+    // cobro anterior sale de SU cubeta y el cobro nuevo entra a la suya. La cita cuenta una vez.
+    @Transactional
+    public void correctCheckout(Checkout anterior, Appointment cita) {
+        add(anterior, -1);
+        add(Checkout.of(cita), 1);
+        cashRegisterRepository.deleteIfEmpty(anterior.day(), anterior.method(), anterior.barber());
+    }
+
+    private void add(Checkout c, int signo) {
+        BigDecimal s = BigDecimal.valueOf(signo);
+        cashRegisterRepository.addCheckout(c.day(), c.method(), c.barber(), signo, c.services() * signo,
+                c.revenue().multiply(s), c.discount().multiply(s), c.tip().multiply(s),
+                c.total().multiply(s), c.commission().multiply(s));
+    }
+
+    // Lo que un cobro suma a su cubeta (foto tomada ANTES de recalcular, para poder restarlo)
+    public record Checkout(LocalDate day, String method, String barber, long services, BigDecimal revenue,
+                           BigDecimal discount, BigDecimal tip, BigDecimal total, BigDecimal commission) {
+
+        public static Checkout of(Appointment cita) {
+            return new Checkout(
+                    cita.getAppointmentDate(),
+                    cita.getPaymentMethod().name(),
+                    // Misma llave que la agenda y la liquidación ("Carlos " y "carlos" son una cubeta)
+                    AppointmentSlotIndex.barberKey(cita.getBarberName()),
+                    cita.getServices() != null ? cita.getServices().size() : 0,
+                    orZero(cita.getTotalServicesCost()),
+                    orZero(cita.getDiscountApplied()),
+                    orZero(cita.getTipAmount()),
+                    orZero(cita.getFinalTotalPaid()),
+                    orZero(cita.getBarberCommission()));
+        }
+    }
+
+    // ========================================================================
+    // CORTES (readOnly: se leen de la réplica, ver DataSourceRoutingConfig)
+    // ========================================================================
+    @Transactional(readOnly = true)
+    public CashRegisterCloseDTO getDailyClose(LocalDate date) {
+        return getClose(date, date);
+    }
+
+    @Transactional(readOnly = true)
+    public CashRegisterCloseDTO getMonthlyClose(YearMonth month) {
+        return getClose(month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Transactional(readOnly = true)
+    public CashRegisterCloseDTO getClose(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("El rango de fechas es inválido.");
+        }
+
+        CashRegisterCloseDTO corte = new CashRegisterCloseDTO();
+        corte.setFrom(from);
+        corte.setTo(to);
+
+        for (CashRegisterBucket b : cashRegisterRepository.findByIdBusinessDateBetween(from, to)) {
+            corte.getTotals().add(b);
+            corte.getByPaymentMethod().computeIfAbsent(b.getId().getPaymentMethod(), k -> new CashTotalsDTO()).add(b);
+            corte.getByBarber().computeIfAbsent(b.getId().getBarberName(), k -> new CashTotalsDTO()).add(b);
+        }
+
+        // EFECTIVO -> caja física. TARJETA y TRANSFERENCIA -> banco.
+        CashTotalsDTO efectivo = corte.getByPaymentMethod().get(PaymentMethod.EFECTIVO);
+        corte.setCashInDrawer(efectivo != null ? efectivo.getFinalTotal() : BigDecimal.ZERO);
+
+        BigDecimal banco = BigDecimal.ZERO;
+        for (PaymentMethod m : new PaymentMethod[]{PaymentMethod.TARJETA, PaymentMethod.TRANSFERENCIA}) {
+            CashTotalsDTO t = corte.getByPaymentMethod().get(m);
+            if (t != null) banco = banco.add(t.getFinalTotal());
+        }
+        corte.setBankDeposits(banco);
+        return corte;
+    }
+
+    // ========================================================================
+    // LIQUIDACIÓN DE BARBEROS (Nómina de un rango cualquiera: "del 1 al 15")
+    // ========================================================================
+    @Transactional(readOnly = true)
+    public List<BarberSettlementDTO> getSettlement(LocalDate from, LocalDate to, String barberName) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("El rango de fechas es inválido.");
+        }
+        String barber = (barberName != null && !barberName.isBlank())
+                ? AppointmentSlotIndex.barberKey(barberName)
+                : null;
+        return cashRegisterRepository.settle(from, to, barber);
+    }
+
+    // ========================================================================
+    // RECONSTRUCCIÓN DESDE LA HISTORIA
+    // ========================================================================
+    // Recalcula las cubetas del rango a partir de las citas COMPLETADAS.
+    // Sin rango: toda la historia.
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDate desde = (from != null) ? from : LocalDate.of(1970, 1, 1);
+        LocalDate hasta = (to != null) ? to : LocalDate.of(9999, 12, 31);
+
+        cashRegisterRepository.lockForRebuild();
+        cashRegisterRepository.deleteRange(desde, hasta);
+        return cashRegisterRepository.backfillRange(desde, hasta);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return (value != null) ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,158 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.ClientDTO;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.ClientStats;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.ClientStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * -------------------------------------------------------------
+ * ESTADÍSTICAS DE CLIENTES (Ranking VIP incremental)
+ * -------------------------------------------------------------
+ * ANTES: cada visita a /api/clients/vip hacía GROUP BY sobre TODAS las citas completadas.
+ * AHORA: cada cobro suma +1 a la ficha del cliente (client_stats) y a su histograma
+ * de barberos (client_barber_visits). El ranking es leer las primeras K filas de un índice.
+ */
+@org.springframework.stereotype.Service
+public class ClientStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientStatsService.class);
+
+    @Autowired
+    private ClientStatsRepository clientStatsRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // Solo dígitos: "+52 (55) 1234-5678" y "5255 1234 5678" son el mismo cliente
+    public static String normalizePhone(String phone) {
+        if (phone == null) return null;
+        String digits = phone.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    // ========================================================================
+    // ACTUALIZACIÓN INCREMENTAL (la llama el checkout, dentro de SU transacción)
+    // ========================================================================
+    @Transactional
+    public void recordVisit(Appointment cita) {
+        String phone = normalizePhone(cita.getClientPhone());
+        if (phone == null) return; // Walk-in anónimo: no hay a quién sumarle
+
+        // 1. Primero el histograma, para que el barbero preferido ya cuente esta visita
+        // (llave normalizada, como la agenda y la caja: "Carlos" y "carlos " son el mismo barbero)
+        String barbero = AppointmentSlotIndex.barberKey(cita.getBarberName());
+        if (!barbero.isEmpty()) {
+            clientStatsRepository.addBarberVisits(phone, barbero, 1);
+        }
+
+        // 2. Luego la ficha del cliente (visitas, última visita, gasto, barbero preferido)
+        BigDecimal gasto = (cita.getFinalTotalPaid() != null) ? cita.getFinalTotalPaid() : BigDecimal.ZERO;
+        clientStatsRepository.recordVisits(phone, cita.getClientName(), 1, cita.getAppointmentDate(), gasto);
+    }
+
+    // Importación: las citas cobradas del archivo, sumadas por cliente en memoria.
+    // Un UPSERT por (cliente, barbero) y uno por cliente; solo se tocan los clientes del archivo.
+    // (Mismo orden que recordVisit: el histograma antes que la ficha)
+    @Transactional
+    public void recordVisits(List<Appointment> cobradas) {
+        Map<String, Map<String, Long>> porBarbero = new TreeMap<>();
+        Map<String, Visitas> porCliente = new TreeMap<>();
+        for (Appointment cita : cobradas) {
+            String phone = normalizePhone(cita.getClientPhone());
+            if (phone == null) continue;
+            String barbero = AppointmentSlotIndex.barberKey(cita.getBarberName());
+            if (!barbero.isEmpty()) {
+                porBarbero.computeIfAbsent(phone, k -> new TreeMap<>()).merge(barbero, 1L, Long::sum);
+            }
+            porCliente.merge(phone, Visitas.of(cita), Visitas::sumar);
+        }
+
+        porBarbero.forEach((phone, barberos) ->
+                barberos.forEach((barbero, visitas) -> clientStatsRepository.addBarberVisits(phone, barbero, visitas)));
+        porCliente.forEach((phone, v) ->
+                clientStatsRepository.recordVisits(phone, v.name(), v.count(), v.last(), v.spent()));
+    }
+
+    // Lo que el archivo aporta a un cliente: el nombre es el de su visita más reciente
+    private record Visitas(String name, long count, LocalDate last, BigDecimal spent) {
+        static Visitas of(Appointment cita) {
+            BigDecimal gasto = (cita.getFinalTotalPaid() != null) ? cita.getFinalTotalPaid() : BigDecimal.ZERO;
+            return new Visitas(cita.getClientName(), 1, cita.getAppointmentDate(), gasto);
+        }
+
+        Visitas sumar(Visitas otra) {
+            Visitas reciente = otra.last.isAfter(last) ? otra : this;
+            return new Visitas(reciente.name, count + otra.count, reciente.last, spent.add(otra.spent));
+        }
+    }
+
+    // Re-cobro de una cita ya COMPLETADA: la visita ya contó, solo se ajusta lo gastado
+    @Transactional
+    public void correctSpent(Appointment cita, BigDecimal gastoAnterior) {
+        String phone = normalizePhone(cita.getClientPhone());
+        if (phone == null) return;
+        BigDecimal gasto = (cita.getFinalTotalPaid() != null) ? cita.getFinalTotalPaid() : BigDecimal.ZERO;
+        if (gasto.compareTo(gastoAnterior) != 0) {
+            clientStatsRepository.adjustSpent(phone, gasto.subtract(gastoAnterior));
+        }
+    }
+
+    // ========================================================================
+    // RANKING VIP (Top-K paginado)
+    // ========================================================================
+    @Transactional(readOnly = true)
+    public List<ClientDTO> getTopClients(int page, int size) {
+        return clientStatsRepository
+                .findAllByOrderByVisitCountDescLastVisitDescClientPhoneAsc(PageRequest.of(page, size))
+                .stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    // ========================================================================
+    // RECONSTRUCCIÓN DESDE LA HISTORIA
+    // ========================================================================
+    // Borra y recalcula todo con SQL en bloque. Los cobros que lleguen mientras tanto esperan.
+    @Transactional
+    public int rebuild() {
+        clientStatsRepository.lockForRebuild();
+        clientStatsRepository.clearBarberVisits();
+        clientStatsRepository.clearStats();
+        clientStatsRepository.backfillBarberVisits();
+        return clientStatsRepository.backfillStats();
+    }
+
+    // La primera vez que arranca esta versión, la tabla está vacía: la llenamos con la historia
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (clientStatsRepository.count() == 0
+                && appointmentRepository.existsByStatus(AppointmentStatus.COMPLETADA)) {
+            int clientes = rebuild();
+            log.info("client_stats reconstruida desde la historia: {} clientes", clientes);
+        }
+    }
+
+    private ClientDTO toDTO(ClientStats s) {
+        ClientDTO dto = new ClientDTO(s.getClientName(), s.getClientPhone(), s.getVisitCount(), s.getPreferredBarber());
+        dto.setLastVisit(s.getLastVisit());
+        dto.setTotalSpent(s.getTotalSpent());
+        return dto;
+    }
+}
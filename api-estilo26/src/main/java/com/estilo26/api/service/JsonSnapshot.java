@@ -0,0 +1,48 @@
+package com.estilo26.api.service;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * -------------------------------------------------------------
+ * FOTO EN JSON DE UN LISTADO QUE CASI NUNCA CAMBIA (catálogo, personal)
+ * -------------------------------------------------------------
+ * Se serializa UNA vez por versión de la caché y se guarda junto con su ETag.
+ * Mientras la versión no cambie, cada GET responde los mismos bytes, y un
+ * If-None-Match que coincide se contesta 304 sin tocar la BD ni Jackson.
+ *
+ * El ETag es el hash del contenido (no el número de versión): dos instancias de la API
+ * con los mismos datos dan el mismo ETag, y una foto armada con datos "más nuevos"
+ * que su versión nunca queda mal etiquetada.
+ */
+public final class JsonSnapshot {
+
+    public record Body(long version, byte[] json, String etag) { }
+
+    private volatile Body current;
+
+    public Body get(long version, Supplier<?> data, JsonMapper mapper) {
+        Body b = current;
+        if (b != null && b.version() == version) return b;
+
+        // Dos hilos pueden armar la misma foto a la vez: sale idéntica, no hace falta candado
+        byte[] json = mapper.writeValueAsBytes(data.get());
+        b = new Body(version, json, etag(json));
+        current = b;
+        return b;
+    }
+
+    // ETag fuerte (entre comillas, sin W/): mismos bytes = mismo ETag
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.estilo26.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * -------------------------------------------------------------
+ * LIMITADOR DE PETICIONES (cubetas de fichas, en memoria y sin candados)
+ * -------------------------------------------------------------
+ * Cada regla ("login-ip", "login-user", "booking-ip") da N fichas por periodo a cada llave
+ * (una IP o un username). Cada petición gasta una; se rellenan poco a poco, así que se
+ * permiten ráfagas de hasta N pero nunca más de N por periodo en promedio.
+ *
+ * Sin candados: cada cubeta es UN AtomicLong con "el momento en que la cubeta vuelve a estar llena"
+ * (GCRA, la misma cubeta de fichas contada al revés). Gastar una ficha es correr ese momento
+ * un intervalo hacia adelante con compareAndSet; si queda a más de N intervalos en el futuro,
+ * la cubeta está vacía y la respuesta dice cuánto esperar.
+ *
+ * Una cubeta llena es igual a una que no existe: la limpieza borra las que ya se rellenaron,
+ * así que el mapa solo guarda a quien pidió algo durante el último periodo.
+ */
+@Component
+public class RateLimiter {
+
+    public record Decision(boolean allowed, long retryAfterSeconds) {
+        private static final Decision OK = new Decision(true, 0);
+    }
+
+    // capacity fichas cada periodNanos: una ficha nueva cada intervalNanos
+    record Rule(int capacity, long intervalNanos) {
+
+        // "10/60" = 10 peticiones cada 60 segundos
+        static Rule parse(String name, String spec) {
+            String[] partes = spec.trim().split("/");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Regla " + name + " inválida (se espera fichas/segundos): " + spec);
+            }
+            int capacity = Integer.parseInt(partes[0].trim());
+            long periodNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(partes[1].trim()));
+            if (capacity <= 0 || periodNanos <= 0) {
+                throw new IllegalArgumentException("Regla " + name + " inválida: " + spec);
+            }
+            return new Rule(capacity, periodNanos / capacity);
+        }
+
+        long burstNanos() {
+            return capacity * intervalNanos;
+        }
+    }
+
+    private static final long LIMPIEZA_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final boolean enabled;
+    private final Map<String, Rule> rules;
+    private final ApiMetrics metrics;
+
+    // "regla|llave" -> momento (System.nanoTime) en que su cubeta vuelve a estar llena
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime() + LIMPIEZA_NANOS);
+
+    public RateLimiter(ApiMetrics metrics,
+                       @Value("${estilo26.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${estilo26.rate-limit.login-ip:10/60}") String loginIp,
+                       @Value("${estilo26.rate-limit.login-user:5/60}") String loginUser,
+                       @Value("${estilo26.rate-limit.booking-ip:20/600}") String bookingIp) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.rules = Map.of(
+                "login-ip", Rule.parse("login-ip", loginIp),
+                "login-user", Rule.parse("login-user", loginUser),
+                "booking-ip", Rule.parse("booking-ip", bookingIp));
+    }
+
+    // ========================================================================
+    // GASTAR UNA FICHA
+    // ========================================================================
+    public Decision tryAcquire(String rule, String key) {
+        if (!enabled || key == null) return Decision.OK;
+        Rule r = rules.get(rule);
+        if (r == null) throw new IllegalArgumentException("Regla de límite desconocida: " + rule);
+
+        long ahora = System.nanoTime();
+        sweepIfDue(ahora);
+
+        AtomicLong llena = buckets.computeIfAbsent(rule + "|" + key, k -> new AtomicLong(ahora));
+        while (true) {
+            long actual = llena.get();
+            // Una cubeta que se rellenó en el pasado cuenta desde ahora (no acumula fichas de más)
+            long nueva = Math.max(actual, ahora) + r.intervalNanos();
+            long espera = nueva - r.burstNanos() - ahora;
+            if (espera > 0) {
+                metrics.rateLimited(rule);
+                return new Decision(false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + 999_999_999L)));
+            }
+            if (llena.compareAndSet(actual, nueva)) return Decision.OK;
+        }
+    }
+
+    public int trackedKeys() {
+        return buckets.size();
+    }
+
+    // ========================================================================
+    // LIMPIEZA: un solo hilo gana el turno (CAS), los demás siguen de largo
+    // ========================================================================
+    private void sweepIfDue(long ahora) {
+        long turno = nextSweep.get();
+        if (ahora < turno || !nextSweep.compareAndSet(turno, ahora + LIMPIEZA_NANOS)) return;
+        buckets.values().removeIf(llena -> llena.get() <= ahora);
+    }
+}
@@ -0,0 +1,214 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * -------------------------------------------------------------
+ * CACHÉ DEL CATÁLOGO DE SERVICIOS (En memoria)
+ * -------------------------------------------------------------
+ * El catálogo cambia un par de veces al mes, pero se lee en cada página pública,
+ * en cada pantalla del admin y en cada reserva. Aquí lo guardamos en memoria.
+ *
+ * - ServiceService escribe "a través" de la caché (write-through) al crear/editar/borrar.
+ * - Si hay varias instancias de la API, cada una recarga todo tras "ttl-seconds".
+ * - Los objetos guardados son COPIAS: no pertenecen a ninguna sesión de Hibernate.
+ *   Son de solo lectura, nadie debe modificarlos.
+ */
+@Component
+public class ServiceCatalogCache {
+
+    private final ServiceRepository serviceRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Servicios por id (activos e inactivos: una cita vieja puede apuntar a un servicio dado de baja)
+    private final Map<Long, Service> byId = new ConcurrentHashMap<>();
+
+    // Foto del catálogo activo, ya ordenada por id (lo que pinta React)
+    private volatile List<Service> activeList;
+    private volatile long loadedAt;
+
+    // Sube DESPUÉS de cada cambio (escritura, baja, recarga por TTL): quien vea la versión nueva
+    // ya lee los datos nuevos. Con ella se arma el ETag de GET /api/services.
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Candado de escritura/recarga. ReentrantLock y no synchronized: la recarga va a la BD
+    // y un hilo virtual bloqueado dentro de synchronized "secuestra" su hilo de plataforma.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ServiceCatalogCache(ServiceRepository serviceRepository,
+                               @Value("${estilo26.catalog.max-entries:500}") int maxEntries,
+                               @Value("${estilo26.catalog.ttl-seconds:300}") long ttlSeconds) {
+        this.serviceRepository = serviceRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    // ========================================================================
+    // LECTURAS
+    // ========================================================================
+    public List<Service> getActiveServices() {
+        expireIfStale();
+        List<Service> lista = activeList;
+        if (lista != null) {
+            hits.incrementAndGet();
+            return lista;
+        }
+
+        misses.incrementAndGet();
+        lock.lock();
+        try {
+            if (activeList == null) {
+                List<Service> copia = new ArrayList<>();
+                for (Service s : serviceRepository.findByIsActiveTrueOrderByIdAsc()) {
+                    Service c = copy(s);
+                    copia.add(c);
+                    putById(c);
+                }
+                activeList = List.copyOf(copia);
+            }
+            return activeList;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Equivalente a serviceRepository.findAllById, pero solo va a la BD por los que faltan
+    public List<Service> findAllById(Collection<Long> ids) {
+        expireIfStale();
+        List<Service> encontrados = new ArrayList<>();
+        List<Long> faltantes = new ArrayList<>();
+
+        for (Long id : ids) {
+            if (id == null) continue;
+            Service s = byId.get(id);
+            if (s != null) {
+                hits.incrementAndGet();
+                encontrados.add(s);
+            } else {
+                misses.incrementAndGet();
+                faltantes.add(id);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            for (Service s : serviceRepository.findAllById(faltantes)) {
+                Service c = copy(s);
+                putById(c);
+                encontrados.add(c);
+            }
+        }
+        return encontrados;
+    }
+
+    // ========================================================================
+    // ESCRITURA (la llama ServiceService DESPUÉS de guardar en la BD)
+    // ========================================================================
+    public void put(Service saved) {
+        lock.lock();
+        try {
+            Service c = copy(saved);
+            putById(c);
+
+            List<Service> lista = activeList;
+            if (lista == null) return; // Aún no se ha cargado: se leerá completa de la BD
+
+            List<Service> nueva = new ArrayList<>(lista);
+            nueva.removeIf(s -> s.getId().equals(c.getId()));
+            if (Boolean.TRUE.equals(c.getIsActive())) {
+                nueva.add(c);
+                nueva.sort(Comparator.comparing(Service::getId));
+            }
+            activeList = List.copyOf(nueva);
+        } finally {
+            version.incrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    public void evict(Long id) {
+        lock.lock();
+        try {
+            byId.remove(id);
+            activeList = null;
+        } finally {
+            version.incrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    public void evictAll() {
+        lock.lock();
+        try {
+            byId.clear();
+            activeList = null;
+            loadedAt = System.currentTimeMillis();
+        } finally {
+            version.incrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    public long version() {
+        expireIfStale();
+        return version.get();
+    }
+
+    // ========================================================================
+    // CONTADORES (para saber si la caché está sirviendo de algo)
+    // ========================================================================
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    // ========================================================================
+    // INTERNOS
+    // ========================================================================
+    private void putById(Service s) {
+        // Límite de memoria: si el catálogo crece de más, dejamos de guardar nuevos
+        if (byId.size() < maxEntries || byId.containsKey(s.getId())) {
+            byId.put(s.getId(), s);
+        }
+    }
+
+    private void expireIfStale() {
+        if (System.currentTimeMillis() - loadedAt > ttlMillis) {
+            evictAll();
+        }
+    }
+
+    private static Service copy(Service s) {
+        return Service.builder()
+                .id(s.getId())
+                .name(s.getName())
+                .description(s.getDescription())
+                .price(s.getPrice())
+                .durationMinutes(s.getDurationMinutes())
+                .icon(s.getIcon())
+                .isActive(s.getIsActive())
+                .build();
+    }
+}
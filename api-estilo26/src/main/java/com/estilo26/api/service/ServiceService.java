@@ -3,6 +3,7 @@ package com.estilo26.api.service;
 import com.estilo26.api.model.Service;
 import com.estilo26.api.repository.ServiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.List;
 
@@ -12,20 +13,37 @@ public class ServiceService {
     @Autowired
     private ServiceRepository serviceRepository;
 
+    // Caché en memoria del catálogo: toda escritura de aquí abajo la mantiene al día
+    @Autowired
+    private ServiceCatalogCache catalogCache;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // El catálogo activo ya en JSON, con su ETag (se rehace cuando cambia la versión de la caché)
+    private final JsonSnapshot activeJson = new JsonSnapshot();
+
     // -------------------------------------------------------------
     // EL CAMBIO PRINCIPAL ESTÁ AQUÍ
     // -------------------------------------------------------------
     public List<Service> getAllServices() {
         // ANTES: return serviceRepository.findAll(); (Esto traía los zombies)
-        // AHORA: Usamos la función que inventamos en el Paso 1.
-        return serviceRepository.findByIsActiveTrueOrderByIdAsc();
+        // AHORA: Solo los activos, y desde memoria (la BD solo se toca si la caché está vacía).
+        return catalogCache.getActiveServices();
+    }
+
+    // GET /api/services: si la versión no cambió, ni BD ni Jackson
+    public JsonSnapshot.Body getAllServicesJson() {
+        return activeJson.get(catalogCache.version(), this::getAllServices, jsonMapper);
     }
 
     public Service createService(Service service) {
         if (service.getIsActive() == null) {
             service.setIsActive(true);
         }
-        return serviceRepository.save(service);
+        Service saved = serviceRepository.save(service);
+        catalogCache.put(saved);
+        return saved;
     }
 
     public Service updateService(Long id, Service serviceDetails) {
@@ -35,7 +53,9 @@ public class ServiceService {
             service.setPrice(serviceDetails.getPrice());
             service.setDurationMinutes(serviceDetails.getDurationMinutes());
             service.setIcon(serviceDetails.getIcon());
-            return serviceRepository.save(service);
+            Service saved = serviceRepository.save(service);
+            catalogCache.put(saved);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Servicio no encontrado"));
     }
 
@@ -45,6 +65,6 @@ public class ServiceService {
 
         // El Soft Delete: Solo le quitamos la "vida" poniéndolo en false.
         existingService.setIsActive(false);
-        serviceRepository.save(existingService);
+        catalogCache.put(serviceRepository.save(existingService));
     }
 }
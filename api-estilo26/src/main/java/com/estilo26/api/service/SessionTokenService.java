@@ -0,0 +1,166 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * -------------------------------------------------------------
+ * FICHAS DE SESIÓN FIRMADAS (sin sesión en el servidor)
+ * -------------------------------------------------------------
+ * El login compara la contraseña con BCrypt UNA vez (cuesta decenas de ms a propósito)
+ * y entrega una ficha: "payload.firma", ambos en Base64 URL.
+ *   payload = id:rol:emitidaEn:venceEn:username   (segundos epoch)
+ *   firma   = HMAC-SHA256(payload, secreto)
+ * Validar una ficha es recalcular la firma y mirar las fechas: microsegundos y sin BD.
+ *
+ * REVOCACIÓN: al desactivar a alguien (UserService.softDeleteUser) se anota "nada emitido
+ * antes de ahora vale para este usuario". Solo hace falta recordarlo mientras una ficha vieja
+ * pudiera seguir vigente (el TTL), así que el conjunto se mantiene chiquito.
+ * Vive en memoria (igual que las cachés): al arrancar se vuelve a llenar con los usuarios inactivos.
+ */
+@Component
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+    private static final String ALGORITMO = "HmacSHA256";
+
+    public record Session(Long userId, String username, String role, Instant issuedAt, Instant expiresAt) { }
+
+    public record Issued(String token, Instant expiresAt) { }
+
+    private final UserRepository userRepository;
+    private final long ttlSeconds;
+
+    // Mac ya inicializado con la llave: cada firma usa un clon (Mac no es thread-safe y crearlo es caro)
+    private final Mac prototipo;
+
+    // userId -> segundo de la revocación (fichas emitidas en o antes de ese segundo ya no valen)
+    private final Map<Long, Long> revocados = new ConcurrentHashMap<>();
+
+    public SessionTokenService(UserRepository userRepository,
+                               @Value("${estilo26.auth.token-secret:}") String secret,
+                               @Value("${estilo26.auth.token-ttl-minutes:720}") long ttlMinutes) {
+        this.userRepository = userRepository;
+        this.ttlSeconds = ttlMinutes * 60;
+        this.prototipo = mac(llave(secret));
+    }
+
+    // ========================================================================
+    // EMITIR (login correcto)
+    // ========================================================================
+    public Issued issue(User user) {
+        long ahora = Instant.now().getEpochSecond();
+        long vence = ahora + ttlSeconds;
+        String payload = user.getId() + ":" + user.getRole() + ":" + ahora + ":" + vence + ":" + user.getUsername();
+        String payload64 = base64(payload.getBytes(StandardCharsets.UTF_8));
+        return new Issued(payload64 + "." + base64(firmar(payload64)), Instant.ofEpochSecond(vence));
+    }
+
+    // ========================================================================
+    // VALIDAR (en cada petición, ver SessionTokenFilter): vacío = ficha inválida
+    // ========================================================================
+    public Optional<Session> verify(String token) {
+        if (token == null) return Optional.empty();
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) return Optional.empty();
+
+        String payload64 = token.substring(0, punto);
+        byte[] firma;
+        try {
+            firma = Base64.getUrlDecoder().decode(token.substring(punto + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        // Comparación en tiempo constante: no delata cuántos bytes acertó un atacante
+        if (!MessageDigest.isEqual(firma, firmar(payload64))) return Optional.empty();
+
+        // La firma es nuestra, así que el formato también
+        String[] partes = new String(Base64.getUrlDecoder().decode(payload64), StandardCharsets.UTF_8).split(":", 5);
+        Long userId = Long.valueOf(partes[0]);
+        long emitida = Long.parseLong(partes[2]);
+        long vence = Long.parseLong(partes[3]);
+
+        if (Instant.now().getEpochSecond() >= vence) return Optional.empty();
+        Long revocadoEn = revocados.get(userId);
+        if (revocadoEn != null && emitida <= revocadoEn) return Optional.empty();
+
+        return Optional.of(new Session(userId, partes[4], partes[1],
+                Instant.ofEpochSecond(emitida), Instant.ofEpochSecond(vence)));
+    }
+
+    // ========================================================================
+    // REVOCACIÓN
+    // ========================================================================
+    public void revokeAll(Long userId) {
+        long ahora = Instant.now().getEpochSecond();
+        revocados.put(userId, ahora);
+        // Lo revocado hace más de un TTL ya no protege nada: toda ficha de antes ya venció sola
+        revocados.values().removeIf(en -> en < ahora - ttlSeconds);
+    }
+
+    public int revokedCount() {
+        return revocados.size();
+    }
+
+    // Tras un reinicio el conjunto está vacío: los inactivos no deben volver a entrar con una ficha vieja
+    @EventListener(ApplicationReadyEvent.class)
+    public void revokeInactiveUsers() {
+        for (User user : userRepository.findAll()) {
+            if (Boolean.FALSE.equals(user.getIsActive())) revokeAll(user.getId());
+        }
+    }
+
+    // ========================================================================
+    // FIRMA
+    // ========================================================================
+    private byte[] firmar(String payload64) {
+        try {
+            Mac mac = (Mac) prototipo.clone();
+            return mac.doFinal(payload64.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El proveedor de " + ALGORITMO + " no permite clonar", e);
+        }
+    }
+
+    private static byte[] llave(String secret) {
+        if (secret != null && !secret.isBlank()) return secret.getBytes(StandardCharsets.UTF_8);
+
+        // Sin secreto configurado: uno al azar por arranque (las fichas dejan de valer al reiniciar)
+        log.warn("estilo26.auth.token-secret vacío: se usa un secreto temporal, las sesiones no sobreviven un reinicio");
+        byte[] azar = new byte[32];
+        new SecureRandom().nextBytes(azar);
+        return azar;
+    }
+
+    private static Mac mac(byte[] llave) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(new SecretKeySpec(llave, ALGORITMO));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo preparar " + ALGORITMO, e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,150 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * -------------------------------------------------------------
+ * DIRECTORIO DE PERSONAL EN MEMORIA (Barberos, Admins, Recepción)
+ * -------------------------------------------------------------
+ * El equipo son unas cuantas personas y cambia muy de vez en cuando, pero
+ * se consulta en cada cobro (comisión del barbero) y en cada pantalla del admin.
+ * Cargamos a TODOS una sola vez y los buscamos por id o por username sin ir a la BD.
+ *
+ * UserService llama a invalidate() en cada alta/edición/baja; la siguiente
+ * lectura vuelve a cargar el directorio completo (es una sola consulta pequeña).
+ */
+@Component
+public class UserDirectoryCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+
+    private volatile Directory directory;
+
+    // Sube con cada invalidación y recarga: sirve para saber si un cálculo que dependía del personal
+    // sigue vigente (disponibilidad, ETag de GET /api/users)
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Una sola recarga a la vez (ReentrantLock: no detiene al hilo de plataforma de un hilo virtual)
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public UserDirectoryCache(UserRepository userRepository,
+                              @Value("${estilo26.users.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    // ========================================================================
+    // LECTURAS
+    // ========================================================================
+    public List<User> getActiveUsers() {
+        return current().active;
+    }
+
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (username == null) return Optional.empty();
+        return Optional.ofNullable(current().byUsername.get(username));
+    }
+
+    public long version() {
+        current();
+        return version.get();
+    }
+
+    // ========================================================================
+    // INVALIDACIÓN
+    // ========================================================================
+    public void invalidate() {
+        directory = null;
+        version.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // ========================================================================
+    // INTERNOS
+    // ========================================================================
+    private Directory current() {
+        Directory d = directory;
+        if (d != null && System.currentTimeMillis() - d.loadedAt <= ttlMillis) {
+            hits.incrementAndGet();
+            return d;
+        }
+
+        misses.incrementAndGet();
+        reloadLock.lock();
+        try {
+            d = directory;
+            if (d == null || System.currentTimeMillis() - d.loadedAt > ttlMillis) {
+                long v = version.get();
+                d = load();
+                // Si alguien invalidó mientras leíamos, no publicamos una foto vieja
+                if (v == version.get()) {
+                    directory = d;
+                    // Recargar por TTL también es una versión nueva: otra instancia pudo cambiar el personal
+                    version.incrementAndGet();
+                }
+            }
+            return d;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Directory load() {
+        List<User> active = new ArrayList<>();
+        Map<Long, User> byId = new HashMap<>();
+        Map<String, User> byUsername = new HashMap<>();
+
+        for (User u : userRepository.findAll()) {
+            User c = copy(u);
+            byId.put(c.getId(), c);
+            byUsername.put(c.getUsername(), c);
+            if (Boolean.TRUE.equals(c.getIsActive())) {
+                active.add(c);
+            }
+        }
+        active.sort(Comparator.comparing(User::getId));
+        return new Directory(List.copyOf(active), Map.copyOf(byId), Map.copyOf(byUsername), System.currentTimeMillis());
+    }
+
+    // Copias sueltas (sin sesión de Hibernate). Son de solo lectura.
+    private static User copy(User u) {
+        return User.builder()
+                .id(u.getId())
+                .username(u.getUsername())
+                .password(u.getPassword())
+                .email(u.getEmail())
+                .role(u.getRole())
+                .isActive(u.getIsActive())
+                .commissionPercentage(u.getCommissionPercentage())
+                .build();
+    }
+
+    private record Directory(List<User> active, Map<Long, User> byId, Map<String, User> byUsername, long loadedAt) { }
+}
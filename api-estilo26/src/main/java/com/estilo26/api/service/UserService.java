@@ -3,6 +3,7 @@ package com.estilo26.api.service;
 import com.estilo26.api.model.User;
 import com.estilo26.api.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import tools.jackson.databind.json.JsonMapper;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,11 +15,31 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // Directorio en memoria: cada escritura de abajo lo invalida
+    @Autowired
+    private UserDirectoryCache userDirectory;
+
+    // Al dar de baja a alguien, sus fichas de sesión dejan de valer de inmediato
+    @Autowired
+    private SessionTokenService sessionTokens;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // El personal activo ya en JSON, con su ETag (se rehace cuando cambia la versión del directorio)
+    private final JsonSnapshot activeJson = new JsonSnapshot();
+
     // ------------------------------------------------------------------------
     // CABLE 1 REPARADO: El controlador espera que se llame "findAllActive"
     // ------------------------------------------------------------------------
     public List<User> findAllActive() {
-        return userRepository.findByIsActiveTrueOrderByIdAsc();
+        // Sale de memoria: la BD solo se toca tras un cambio en el personal
+        return userDirectory.getActiveUsers();
+    }
+
+    // GET /api/users: si la versión no cambió, ni BD ni Jackson
+    public JsonSnapshot.Body findAllActiveJson() {
+        return activeJson.get(userDirectory.version(), this::findAllActive, jsonMapper);
     }
 
     public Optional<User> getUserById(Long id) {
@@ -34,7 +55,9 @@ public class UserService {
             user.setIsActive(true);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDirectory.invalidate();
+        return saved;
     }
 
     public User updateUser(Long id, User userDetails) {
@@ -47,7 +70,9 @@ public class UserService {
                 user.setPassword(userDetails.getPassword());
             }
 
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            userDirectory.invalidate();
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
     }
 
@@ -57,5 +82,7 @@ public class UserService {
 
         user.setIsActive(false);
         userRepository.save(user);
+        userDirectory.invalidate();
+        sessionTokens.revokeAll(id);
     }
 }
@@ -0,0 +1,17 @@
+-- El histograma de barberos por cliente se guardaba con el nombre tal como venía en la cita:
+-- "Carlos" y "carlos " contaban como dos barberos y el preferido salía mal. Desde ahora se escribe
+-- con la llave normalizada (igual que la caja en V8); aquí se funden las filas que ya existían
+-- y se recalcula el barbero preferido. Idempotente.
+INSERT INTO client_barber_visits (client_phone, barber_name, visits)
+SELECT client_phone, LOWER(TRIM(barber_name)), SUM(visits)
+FROM client_barber_visits
+WHERE barber_name <> LOWER(TRIM(barber_name)) AND TRIM(barber_name) <> ''
+GROUP BY client_phone, LOWER(TRIM(barber_name))
+ON CONFLICT (barber_name, client_phone) DO UPDATE SET
+    visits = client_barber_visits.visits + EXCLUDED.visits;
+
+DELETE FROM client_barber_visits WHERE barber_name <> LOWER(TRIM(barber_name)) OR TRIM(barber_name) = '';
+
+UPDATE client_stats s SET preferred_barber =
+    (SELECT v.barber_name FROM client_barber_visits v WHERE v.client_phone = s.client_phone
+     ORDER BY v.visits DESC, v.barber_name LIMIT 1);
@@ -0,0 +1,41 @@
+-- Sincronización por diferencias, segunda parte: las citas que SALEN de la tabla caliente.
+-- V5 solo numera INSERT/UPDATE. Un DELETE (el archivo de cada madrugada en AppointmentArchiveService,
+-- o un borrado a mano) no dejaba rastro y el cliente se quedaba para siempre con la cita en su copia.
+-- Ahora cada fila borrada deja una lápida con un número de la MISMA secuencia (appointments_change_seq);
+-- GET /api/appointments/changes la entrega en "removed", igual que las canceladas.
+CREATE TABLE IF NOT EXISTS appointment_tombstones (
+    id             bigint PRIMARY KEY,
+    change_version bigint NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_appointment_tombstones_change_version ON appointment_tombstones (change_version);
+
+-- Por sentencia y no por fila: el archivo borra de mil en mil y así es un solo INSERT ... SELECT.
+-- Mismo candado compartido que appointments_bump_change_version (V5): el lector de /changes no
+-- contesta mientras haya una lápida numerada sin confirmar.
+CREATE OR REPLACE FUNCTION appointments_record_tombstones() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM borradas) THEN
+        RETURN NULL;
+    END IF;
+    PERFORM pg_advisory_xact_lock_shared(260226);
+    INSERT INTO appointment_tombstones (id, change_version)
+    SELECT b.id, nextval('appointments_change_seq') FROM (SELECT id FROM borradas ORDER BY id) b
+    ON CONFLICT (id) DO UPDATE SET change_version = EXCLUDED.change_version;
+    RETURN NULL;
+END $$;
+
+DROP TRIGGER IF EXISTS trg_appointments_tombstones ON appointments;
+CREATE TRIGGER trg_appointments_tombstones
+    AFTER DELETE ON appointments
+    REFERENCING OLD TABLE AS borradas
+    FOR EACH STATEMENT EXECUTE FUNCTION appointments_record_tombstones();
+
+-- CORRECCIÓN a la nota de V5 sobre appointments_changes_barrier(): el lector SÍ hace esperar a quien
+-- escribe. Desde que obtiene el candado EXCLUSIVO hasta el fin de su transacción, cada INSERT, UPDATE
+-- o DELETE de citas se detiene en pg_advisory_xact_lock_shared. Lo que no hace es esperar él: si hay
+-- escrituras en curso, responde false. Por eso la lectura de /changes es corta (dos consultas por índice).
+COMMENT ON FUNCTION appointments_changes_barrier() IS
+    'Candado exclusivo 260226 hasta el fin de la transacción: mientras tanto las escrituras de citas esperan. '
+    'Devuelve false si no lo obtiene en ~0.5 s (hay escrituras sin confirmar).';
@@ -0,0 +1,5 @@
+-- El buscador (/api/appointments/search) recorre appointments_all en orden (fecha, hora, id) con LIMIT.
+-- La tabla caliente ya tiene ese índice (idx_appointments_date_time_id); el archivo solo tenía (fecha, id).
+-- Con el mismo orden en los dos lados, Postgres mezcla dos recorridos de índice en vez de ordenar el archivo.
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_date_time_id
+    ON appointments_archive (appointment_date, appointment_time, id);
@@ -0,0 +1,85 @@
+-- Esquema tal como lo dejaba ddl-auto=update (las tablas de las entidades).
+-- IF NOT EXISTS: en una BD que ya venía de ddl-auto=update no cambia nada (ver spring.flyway.baseline-*).
+
+CREATE TABLE IF NOT EXISTS services (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             varchar(255)   NOT NULL,
+    description      text,
+    price            numeric(10, 2) NOT NULL,
+    duration_minutes integer        NOT NULL,
+    icon             varchar(255),
+    is_active        boolean        NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id                    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username              varchar(255) NOT NULL UNIQUE,
+    password              varchar(255) NOT NULL,
+    email                 varchar(255) UNIQUE,
+    role                  varchar(255) NOT NULL,
+    is_active             boolean      NOT NULL,
+    commission_percentage numeric(5, 2)
+);
+
+-- El id sale de appointments_seq (V2)
+CREATE TABLE IF NOT EXISTS appointments (
+    id                  bigint         NOT NULL PRIMARY KEY,
+    client_name         varchar(255)   NOT NULL,
+    client_phone        varchar(255),
+    appointment_date    date           NOT NULL,
+    appointment_time    time(0)        NOT NULL,
+    end_time            time(0),
+    rescheduled         boolean DEFAULT false,
+    status              varchar(255)   NOT NULL
+        CHECK (status IN ('PENDIENTE', 'EN_PROCESO', 'COMPLETADA', 'CANCELADA', 'REPROGRAMADA')),
+    barber_name         varchar(255),
+    total_services_cost numeric(10, 2) NOT NULL,
+    tip_amount          numeric(10, 2) NOT NULL,
+    discount_applied    numeric(10, 2) NOT NULL,
+    final_total_paid    numeric(10, 2) NOT NULL,
+    is_walk_in          boolean,
+    payment_method      varchar(255)
+        CHECK (payment_method IN ('PENDIENTE', 'EFECTIVO', 'TARJETA', 'TRANSFERENCIA')),
+    barber_commission   numeric(10, 2)
+);
+
+CREATE TABLE IF NOT EXISTS appointment_services (
+    appointment_id bigint NOT NULL REFERENCES appointments,
+    service_id     bigint NOT NULL REFERENCES services
+);
+
+CREATE TABLE IF NOT EXISTS client_stats (
+    client_phone     varchar(255)   NOT NULL PRIMARY KEY,
+    client_name      varchar(255),
+    visit_count      bigint         NOT NULL,
+    last_visit       date,
+    total_spent      numeric(12, 2) NOT NULL,
+    preferred_barber varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS client_barber_visits (
+    client_phone varchar(255) NOT NULL,
+    barber_name  varchar(255) NOT NULL,
+    visits       bigint       NOT NULL,
+    PRIMARY KEY (barber_name, client_phone)
+);
+
+CREATE TABLE IF NOT EXISTS cash_register_daily (
+    business_date     date           NOT NULL,
+    payment_method    varchar(255)   NOT NULL
+        CHECK (payment_method IN ('PENDIENTE', 'EFECTIVO', 'TARJETA', 'TRANSFERENCIA')),
+    barber_name       varchar(255)   NOT NULL,
+    appointment_count bigint         NOT NULL,
+    services_count    bigint DEFAULT 0,
+    services_revenue  numeric(12, 2) NOT NULL,
+    discounts         numeric(12, 2) NOT NULL,
+    tips              numeric(12, 2) NOT NULL,
+    final_total       numeric(12, 2) NOT NULL,
+    commissions       numeric(12, 2) NOT NULL,
+    PRIMARY KEY (business_date, barber_name, payment_method)
+);
+
+-- Índices que ya declaraban las entidades (@Table(indexes = ...))
+CREATE INDEX IF NOT EXISTS idx_appointments_date_time_id ON appointments (appointment_date, appointment_time, id);
+CREATE INDEX IF NOT EXISTS idx_appointment_services_appointment ON appointment_services (appointment_id);
+CREATE INDEX IF NOT EXISTS idx_client_stats_ranking ON client_stats (visit_count DESC, last_visit DESC);
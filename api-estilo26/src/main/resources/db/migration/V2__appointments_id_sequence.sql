@@ -0,0 +1,20 @@
+-- appointments.id deja de ser IDENTITY y pasa a la secuencia appointments_seq (de 50 en 50,
+-- igual que el allocationSize de Appointment) para que Hibernate pueda insertar en lotes.
+-- Antes vivía en db/sequences.sql y corría en cada arranque; ahora corre una sola vez.
+DO $$
+BEGIN
+    IF to_regclass('appointments_seq') IS NULL THEN
+        CREATE SEQUENCE appointments_seq INCREMENT BY 50;
+        -- Hibernate usa el valor que entrega la secuencia como TOPE de su bloque de 50:
+        -- el primer bloque debe empezar justo después del id más alto.
+        PERFORM setval('appointments_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM appointments), false);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'appointments' AND column_name = 'id' AND is_identity = 'YES') THEN
+        ALTER TABLE appointments ALTER COLUMN id DROP IDENTITY;
+    END IF;
+
+    -- Los INSERT hechos a mano (sin id) siguen funcionando
+    ALTER TABLE appointments ALTER COLUMN id SET DEFAULT nextval('appointments_seq');
+END $$;
@@ -0,0 +1,25 @@
+-- "Ningún barbero con dos citas encimadas": Postgres rechaza cualquier INSERT/UPDATE cuyo
+-- rango [inicio, fin) se cruce con otra cita del mismo barbero (aunque haya varias instancias de la API).
+-- No aplica a citas CANCELADAS ni a Walk-Ins (esos pueden romper la agenda a propósito).
+--
+-- Si ya hay citas encimadas de antes (o el usuario no puede crear extensiones) NO frenamos la migración:
+-- la API sigue funcionando con los candados de la JVM y BookingConstraintCheck avisa en cada arranque.
+-- Después de limpiar los datos, este bloque se puede volver a correr a mano.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'appointments_no_overlap') THEN
+        RETURN;
+    END IF;
+
+    CREATE EXTENSION IF NOT EXISTS btree_gist;
+    ALTER TABLE appointments ADD CONSTRAINT appointments_no_overlap EXCLUDE USING gist (
+        lower(btrim(coalesce(barber_name, ''))) WITH =,
+        tsrange(appointment_date + appointment_time,
+                CASE WHEN end_time IS NULL THEN appointment_date + appointment_time + interval '30 minutes'
+                     WHEN end_time > appointment_time THEN appointment_date + end_time
+                     ELSE (appointment_date + 1) + time '00:00' END,
+                '[)') WITH &&
+    ) WHERE (status <> 'CANCELADA' AND is_walk_in IS NOT TRUE);
+EXCEPTION WHEN others THEN
+    RAISE WARNING 'No se pudo instalar appointments_no_overlap: %', SQLERRM;
+END $$;
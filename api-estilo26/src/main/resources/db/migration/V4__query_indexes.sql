@@ -0,0 +1,14 @@
+-- Índices para las consultas que de verdad hace la API (ddl-auto no creaba ninguno de estos).
+-- La agenda por día / rango de fechas ya la cubre idx_appointments_date_time_id (V1):
+-- (appointment_date, appointment_time) es su prefijo, no hace falta otro índice igual.
+-- findByUsername tampoco: el UNIQUE de users.username ya es un índice.
+
+-- Buscador y exportación filtrados por barbero: barber_name = ? AND appointment_date BETWEEN ...
+CREATE INDEX IF NOT EXISTS idx_appointments_barber_date ON appointments (barber_name, appointment_date);
+
+-- Historial de clientes (status = 'COMPLETADA' ... GROUP BY teléfono) y existsByStatus
+CREATE INDEX IF NOT EXISTS idx_appointments_status_phone ON appointments (status, client_phone);
+
+-- Catálogo y equipo visibles (findByIsActiveTrueOrderByIdAsc): solo las filas activas, ya en orden de id
+CREATE INDEX IF NOT EXISTS idx_services_active ON services (id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_users_active ON users (id) WHERE is_active;
@@ -0,0 +1,52 @@
+-- Sincronización por diferencias: cada INSERT/UPDATE de una cita le pone un número de cambio nuevo
+-- (secuencia global, solo crece). GET /api/appointments/changes?since=N devuelve lo que cambió después de N.
+--
+-- Lo pone un trigger y no la API: así también cuentan la importación masiva, el generador sintético
+-- o un UPDATE hecho a mano.
+CREATE SEQUENCE IF NOT EXISTS appointments_change_seq;
+
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS change_version BIGINT;
+
+-- Las citas que ya existen entran en orden de id (un cliente que sincroniza desde 0 las recibe todas)
+UPDATE appointments SET change_version = nextval('appointments_change_seq')
+WHERE id IN (SELECT id FROM appointments WHERE change_version IS NULL ORDER BY id);
+
+ALTER TABLE appointments ALTER COLUMN change_version SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_appointments_change_version ON appointments (change_version);
+
+-- EL HUECO DE LOS COMMITS: la transacción A toma el número 10, la B toma el 11 y hace commit primero.
+-- Un cliente que lee en ese momento ve el 11, guarda "ya voy en 11" y nunca vería el 10.
+-- Por eso quien escribe toma un candado COMPARTIDO (no se estorban entre ellos) hasta su commit,
+-- y quien lee lo toma EXCLUSIVO: solo lee cuando nadie tiene un número pendiente de confirmar.
+CREATE OR REPLACE FUNCTION appointments_bump_change_version() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    -- Un UPDATE que no cambió nada no es un cambio
+    IF TG_OP = 'UPDATE' AND NEW IS NOT DISTINCT FROM OLD THEN
+        RETURN NEW;
+    END IF;
+    PERFORM pg_advisory_xact_lock_shared(260226);
+    NEW.change_version := nextval('appointments_change_seq');
+    RETURN NEW;
+END $$;
+
+DROP TRIGGER IF EXISTS trg_appointments_change_version ON appointments;
+CREATE TRIGGER trg_appointments_change_version
+    BEFORE INSERT OR UPDATE ON appointments
+    FOR EACH ROW EXECUTE FUNCTION appointments_bump_change_version();
+
+-- Lo llama el lector al inicio de su transacción. Nunca hace esperar a quien escribe:
+-- lo intenta unas veces y, si hay escrituras en curso todo ese rato, responde false
+-- (la API contesta "sin cambios por ahora" y el cliente vuelve a preguntar en la próxima vuelta).
+CREATE OR REPLACE FUNCTION appointments_changes_barrier() RETURNS boolean
+LANGUAGE plpgsql AS $$
+BEGIN
+    FOR intento IN 1..25 LOOP
+        IF pg_try_advisory_xact_lock(260226) THEN
+            RETURN true;
+        END IF;
+        PERFORM pg_sleep(0.02);
+    END LOOP;
+    RETURN false;
+END $$;
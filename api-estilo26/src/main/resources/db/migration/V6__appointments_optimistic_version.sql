@@ -0,0 +1,5 @@
+-- Control de concurrencia optimista (@Version en Appointment): cada UPDATE de Hibernate pide
+-- "WHERE id = ? AND version = ?" y la sube en uno. Si otra tablet guardó antes, no toca ninguna fila
+-- y la API lo sabe (reintenta o contesta 409) en vez de pisar comisión y totales en silencio.
+-- Con DEFAULT constante Postgres no reescribe la tabla: es solo un cambio en el catálogo.
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
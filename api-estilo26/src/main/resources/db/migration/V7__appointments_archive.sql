@@ -0,0 +1,34 @@
+-- Almacén "caliente" y "frío" de citas. appointments guarda solo lo vivo (la agenda, lo que se puede
+-- cobrar o mover); las citas CERRADAS (COMPLETADA / CANCELADA) de hace más de un tiempo se mudan a
+-- appointments_archive con sus servicios (AppointmentArchiveService, cada madrugada).
+-- Así el heap y los índices que recorren la agenda, el choque de horarios y el sync no crecen con los años.
+--
+-- Misma forma que appointments (LIKE copia columnas, defaults y CHECKs en el mismo orden): mudar una
+-- fila es un INSERT ... SELECT * directo. Si appointments gana una columna, la misma migración debe
+-- agregarla aquí (en el mismo orden) y volver a crear las vistas de abajo.
+-- Sin el constraint de exclusión ni el trigger de change_version: lo archivado ya no se agenda ni se sincroniza.
+CREATE TABLE IF NOT EXISTS appointments_archive (LIKE appointments INCLUDING DEFAULTS INCLUDING CONSTRAINTS);
+ALTER TABLE appointments_archive ADD PRIMARY KEY (id);
+
+CREATE TABLE IF NOT EXISTS appointment_services_archive (
+    appointment_id bigint NOT NULL REFERENCES appointments_archive,
+    service_id     bigint NOT NULL REFERENCES services
+);
+
+-- Los reportes sobre el archivo filtran por fecha, por barbero o por estado (igual que sobre la tabla viva)
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_date ON appointments_archive (appointment_date, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_barber_date ON appointments_archive (barber_name, appointment_date);
+CREATE INDEX IF NOT EXISTS idx_appointments_archive_status_phone ON appointments_archive (status, client_phone);
+CREATE INDEX IF NOT EXISTS idx_appointment_services_archive_appointment ON appointment_services_archive (appointment_id);
+
+-- Toda la historia: lo que leen los reportes (caja, ficha VIP, exportación). La agenda viva nunca pasa por aquí.
+-- UNION ALL de tablas con índices propios: Postgres empuja los filtros a cada lado.
+CREATE OR REPLACE VIEW appointments_all AS
+    SELECT * FROM appointments
+    UNION ALL
+    SELECT * FROM appointments_archive;
+
+CREATE OR REPLACE VIEW appointment_services_all AS
+    SELECT appointment_id, service_id FROM appointment_services
+    UNION ALL
+    SELECT appointment_id, service_id FROM appointment_services_archive;
@@ -0,0 +1,22 @@
+-- Las cubetas de caja se guardaban con el nombre del barbero tal como venía en la cita
+-- ("Carlos", "carlos ", ...), y la liquidación filtra por LOWER(TRIM(...)): el mismo barbero
+-- salía en varias filas. Desde ahora se escriben con la llave normalizada; aquí se funden
+-- las que ya existían. Idempotente: una segunda vuelta no encuentra nada que mover.
+INSERT INTO cash_register_daily (business_date, payment_method, barber_name, appointment_count,
+                                 services_count, services_revenue, discounts, tips, final_total, commissions)
+SELECT business_date, payment_method, LOWER(TRIM(barber_name)), SUM(appointment_count),
+       SUM(COALESCE(services_count, 0)), SUM(services_revenue), SUM(discounts), SUM(tips),
+       SUM(final_total), SUM(commissions)
+FROM cash_register_daily
+WHERE barber_name <> LOWER(TRIM(barber_name))
+GROUP BY business_date, payment_method, LOWER(TRIM(barber_name))
+ON CONFLICT (business_date, barber_name, payment_method) DO UPDATE SET
+    appointment_count = cash_register_daily.appointment_count + EXCLUDED.appointment_count,
+    services_count    = COALESCE(cash_register_daily.services_count, 0) + EXCLUDED.services_count,
+    services_revenue  = cash_register_daily.services_revenue + EXCLUDED.services_revenue,
+    discounts         = cash_register_daily.discounts + EXCLUDED.discounts,
+    tips              = cash_register_daily.tips + EXCLUDED.tips,
+    final_total       = cash_register_daily.final_total + EXCLUDED.final_total,
+    commissions       = cash_register_daily.commissions + EXCLUDED.commissions;
+
+DELETE FROM cash_register_daily WHERE barber_name <> LOWER(TRIM(barber_name));
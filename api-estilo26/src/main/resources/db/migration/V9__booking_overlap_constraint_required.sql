@@ -0,0 +1,38 @@
+-- appointments_no_overlap es OBLIGATORIO: sin él, dos instancias de la API pueden dar el mismo horario.
+-- V3 lo intentaba dentro de un EXCEPTION WHEN others que solo avisaba: si fallaba, Flyway marcaba V3
+-- como aplicada y el esquema se quedaba sin la garantía. V3 no se toca (cambiar una migración ya
+-- aplicada rompe su checksum en todas las bases); este bloque la vuelve a intentar SIN atrapar nada:
+-- si no se puede instalar, la migración falla y la API no arranca.
+DO $$
+DECLARE
+    encimadas bigint;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'appointments_no_overlap') THEN
+        RETURN;
+    END IF;
+
+    -- Mensaje claro en vez del error genérico del constraint: qué hay que limpiar a mano
+    SELECT COUNT(*) INTO encimadas
+    FROM appointments a
+    JOIN appointments b ON a.id < b.id
+        AND lower(btrim(coalesce(a.barber_name, ''))) = lower(btrim(coalesce(b.barber_name, '')))
+        AND a.appointment_date = b.appointment_date
+        AND a.status <> 'CANCELADA' AND b.status <> 'CANCELADA'
+        AND a.is_walk_in IS NOT TRUE AND b.is_walk_in IS NOT TRUE
+        AND a.appointment_time < coalesce(b.end_time, b.appointment_time + interval '30 minutes')
+        AND b.appointment_time < coalesce(a.end_time, a.appointment_time + interval '30 minutes');
+    IF encimadas > 0 THEN
+        RAISE EXCEPTION 'Hay % pares de citas encimadas del mismo barbero: cancélalas o muévelas y vuelve a arrancar', encimadas
+            USING HINT = 'appointments_no_overlap no se puede instalar mientras existan';
+    END IF;
+
+    CREATE EXTENSION IF NOT EXISTS btree_gist;
+    ALTER TABLE appointments ADD CONSTRAINT appointments_no_overlap EXCLUDE USING gist (
+        lower(btrim(coalesce(barber_name, ''))) WITH =,
+        tsrange(appointment_date + appointment_time,
+                CASE WHEN end_time IS NULL THEN appointment_date + appointment_time + interval '30 minutes'
+                     WHEN end_time > appointment_time THEN appointment_date + end_time
+                     ELSE (appointment_date + 1) + time '00:00' END,
+                '[)') WITH &&
+    ) WHERE (status <> 'CANCELADA' AND is_walk_in IS NOT TRUE);
+END $$;
@@ -0,0 +1,141 @@
+package com.estilo26.api;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import com.estilo26.api.service.AgendaEventBroadcaster;
+import com.estilo26.api.service.AppointmentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La agenda en vivo: cada pantalla recibe SOLO los cambios del día que muestra,
+ * y en el orden en que ocurrieron.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "estilo26.rate-limit.enabled=false")
+class AgendaEventsFlowTest {
+
+    private static final String BARBERO = "test-en-vivo";
+    private static final String TELEFONO = "5558888";
+    private static final LocalDate DIA = LocalDate.of(2099, 3, 10);
+    private static final LocalDate OTRO_DIA = LocalDate.of(2099, 3, 11);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AgendaEventBroadcaster broadcaster;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name = ?)", BARBERO);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", TELEFONO);
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", TELEFONO);
+    }
+
+    @Test
+    void cadaPantallaRecibeLosCambiosDeSuDia() throws Exception {
+        int antes = broadcaster.subscriberCount();
+        BlockingQueue<String> dia = escuchar(DIA);
+        BlockingQueue<String> otroDia = escuchar(OTRO_DIA);
+        esperarSuscriptores(antes + 2);
+
+        Appointment cita = appointmentService.createAppointment(nuevaCita());
+        // Se cancela y el cliente vuelve a llamar: reagendar la revive (una cobrada ya no se puede mover)
+        appointmentService.checkoutAppointment(cita.getId(), "CANCELADA", null, null, null);
+        appointmentService.rescheduleAppointment(cita.getId(), OTRO_DIA.toString(), "12:00");
+
+        // El día original ve los tres cambios, en orden
+        assertEvento(dia, "created", cita.getId());
+        assertEvento(dia, "status", cita.getId());
+        String reagendada = assertEvento(dia, "rescheduled", cita.getId());
+        assertTrue(reagendada.contains("\"previousDate\":\"" + DIA + "\""), reagendada);
+
+        // El otro día solo se entera cuando la cita llega a él
+        String llegada = assertEvento(otroDia, "rescheduled", cita.getId());
+        assertTrue(llegada.contains("\"date\":\"" + OTRO_DIA + "\""), llegada);
+    }
+
+    // Junta las líneas "event:" y "data:" de cada evento en una sola ("created {json}"); ignora comentarios
+    private BlockingQueue<String> escuchar(LocalDate fecha) {
+        BlockingQueue<String> eventos = new LinkedBlockingQueue<>();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                        "http://localhost:" + port + "/api/appointments/events?date=" + fecha))
+                .header("Accept", "text/event-stream")
+                .build();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).thenAccept(respuesta -> {
+            assertEquals(200, respuesta.statusCode());
+            try (Stream<String> lineas = respuesta.body()) {
+                String[] nombre = {null};
+                lineas.forEach(linea -> {
+                    if (linea.startsWith("event:")) nombre[0] = linea.substring(6);
+                    else if (linea.startsWith("data:") && nombre[0] != null) eventos.add(nombre[0] + " " + linea.substring(5));
+                });
+            }
+        });
+        return eventos;
+    }
+
+    private void esperarSuscriptores(int esperados) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (broadcaster.subscriberCount() < esperados && System.nanoTime() < limite) Thread.sleep(20);
+        assertTrue(broadcaster.subscriberCount() >= esperados, "Las pantallas no alcanzaron a conectarse");
+    }
+
+    private String assertEvento(BlockingQueue<String> eventos, String tipo, Long id) throws InterruptedException {
+        String evento = eventos.poll(10, TimeUnit.SECONDS);
+        assertNotNull(evento, "No llegó el evento " + tipo);
+        assertTrue(evento.startsWith(tipo + " "), evento);
+        assertTrue(evento.contains("\"id\":" + id + ","), evento);
+        return evento;
+    }
+
+    private Appointment nuevaCita() {
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+        return Appointment.builder()
+                .clientName("Cliente En Vivo")
+                .clientPhone(TELEFONO)
+                .appointmentDate(DIA)
+                .appointmentTime(LocalTime.of(10, 0))
+                .barberName(BARBERO)
+                .status(AppointmentStatus.PENDIENTE)
+                .services(List.of(Service.builder().id(corte.getId()).build()))
+                .build();
+    }
+}
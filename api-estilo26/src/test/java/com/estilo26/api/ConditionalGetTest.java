@@ -0,0 +1,124 @@
+package com.estilo26.api;
+
+import com.estilo26.api.model.Service;
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.ServiceRepository;
+import com.estilo26.api.repository.UserRepository;
+import com.estilo26.api.service.ServiceService;
+import com.estilo26.api.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catálogo y personal: el navegador pregunta "¿cambió?" (If-None-Match) y, si no,
+ * recibe un 304 sin que la API haga una sola consulta SQL. Tras un cambio, el ETag cambia.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalGetTest {
+
+    private static final String SERVICIO = "test-etag-servicio";
+    private static final String USUARIO = "test-etag-usuario";
+    private static final int REPETICIONES = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void limpiar() {
+        serviceRepository.findAll().stream()
+                .filter(s -> SERVICIO.equals(s.getName()))
+                .forEach(s -> {
+                    serviceService.deleteService(s.getId()); // Pasa por la caché
+                    serviceRepository.deleteById(s.getId());
+                });
+        userRepository.findByUsername(USUARIO).ifPresent(u -> userService.softDeleteUser(u.getId()));
+        userRepository.findByUsername(USUARIO).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void elCatalogoRepetidoNoCuestaSql() throws Exception {
+        String etag = sinCambiosNiSql("/api/services");
+
+        serviceService.createService(Service.builder()
+                .name(SERVICIO).price(new BigDecimal("99.00")).durationMinutes(15).build());
+
+        HttpResponse<String> nuevo = get("/api/services", etag);
+        assertEquals(200, nuevo.statusCode());
+        assertTrue(nuevo.body().contains(SERVICIO));
+        assertNotEquals(etag, nuevo.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void elPersonalRepetidoNoCuestaSql() throws Exception {
+        String etag = sinCambiosNiSql("/api/users");
+
+        userService.saveUser(User.builder().username(USUARIO).password("x").role("BARBERO").build());
+
+        HttpResponse<String> nuevo = get("/api/users", etag);
+        assertEquals(200, nuevo.statusCode());
+        assertTrue(nuevo.body().contains(USUARIO));
+        assertNotEquals(etag, nuevo.headers().firstValue("ETag").orElseThrow());
+    }
+
+    // Primera vuelta: 200 con ETag. Luego N preguntas con ese ETag: todas 304 y 0 sentencias SQL.
+    private String sinCambiosNiSql(String path) throws Exception {
+        HttpResponse<String> primera = get(path, null);
+        assertEquals(200, primera.statusCode());
+        String etag = primera.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""), "ETag fuerte: " + etag);
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        for (int i = 0; i < REPETICIONES; i++) {
+            HttpResponse<String> otra = get(path, etag);
+            assertEquals(304, otra.statusCode());
+            assertEquals("", otra.body());
+        }
+        // Sin If-None-Match también sale de la foto en memoria: mismos bytes, mismo ETag
+        HttpResponse<String> completa = get(path, null);
+        assertEquals(primera.body(), completa.body());
+        assertEquals(etag, completa.headers().firstValue("ETag").orElseThrow());
+
+        assertEquals(0, stats.getPrepareStatementCount());
+        return etag;
+    }
+
+    private HttpResponse<String> get(String path, String etag) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+        if (etag != null) peticion.header("If-None-Match", etag);
+        return http.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
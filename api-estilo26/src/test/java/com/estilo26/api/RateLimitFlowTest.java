@@ -0,0 +1,98 @@
+package com.estilo26.api;
+
+import com.estilo26.api.model.User;
+import com.estilo26.api.service.SessionTokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pasado el límite, el login responde 429 con Retry-After (y sin gastar un BCrypt).
+ * La reserva pública se frena por IP; la de recepción (con ficha) no.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"estilo26.rate-limit.login-ip=3/60", "estilo26.rate-limit.login-user=2/60",
+                "estilo26.rate-limit.booking-ip=1/600"})
+class RateLimitFlowTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SessionTokenService sessionTokens;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void elLoginSeFrenaPorCuentaYPorIp() throws Exception {
+        // Misma cuenta: la tercera ya no pasa (aunque la IP todavía tiene fichas)
+        assertEquals(401, login("test-limite-a").statusCode());
+        assertEquals(401, login("TEST-limite-a").statusCode()); // Mayúsculas: la misma cuenta
+        HttpResponse<String> porCuenta = login("test-limite-a");
+        assertEquals(429, porCuenta.statusCode());
+        assertRetryAfter(porCuenta);
+
+        // La IP gastó su tercera ficha en el intento anterior: otra cuenta tampoco pasa
+        HttpResponse<String> porIp = login("test-limite-b");
+        assertEquals(429, porIp.statusCode());
+        assertRetryAfter(porIp);
+        // Spring MVC resuelve estas variantes al mismo login: el límite también
+        assertEquals(429, login("test-limite-b", "/api/auth/login;x").statusCode());
+        assertEquals(429, login("test-limite-b", "/api/auth/logi%6E").statusCode());
+    }
+
+    // Cuerpo vacío: el controlador lo rechaza sin crear nada; lo que importa es si el filtro la deja llegar
+    @Test
+    void laReservaConFichaNoGastaElLimiteDeLaIp() throws Exception {
+        String ficha = sessionTokens.issue(User.builder().id(-1L).username("test-recepcion").role("ADMIN").build()).token();
+
+        assertNotEquals(429, reservar(null).statusCode());
+        assertEquals(429, reservar(null).statusCode());
+        assertEquals(429, reservar(null, "/api/appointment%73").statusCode());
+        assertEquals(429, reservar(null, "/api/appointments;jsessionid=x").statusCode());
+        assertEquals(429, reservar(null, "//api//appointments/").statusCode());
+        // Recepción (walk-ins) sale por la misma IP, pero con su ficha
+        assertNotEquals(429, reservar(ficha).statusCode());
+        assertNotEquals(429, reservar(ficha).statusCode());
+        // Una ficha inventada no salta el límite
+        assertEquals(429, reservar("no.es-una-ficha").statusCode());
+    }
+
+    private HttpResponse<String> reservar(String ficha) throws Exception {
+        return reservar(ficha, "/api/appointments");
+    }
+
+    private HttpResponse<String> reservar(String ficha, String ruta) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + port + ruta))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{}"));
+        if (ficha != null) peticion.header("Authorization", "Bearer " + ficha);
+        return http.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void assertRetryAfter(HttpResponse<String> respuesta) {
+        long segundos = Long.parseLong(respuesta.headers().firstValue("Retry-After").orElseThrow());
+        assertTrue(segundos >= 1 && segundos <= 60, "Retry-After: " + segundos);
+    }
+
+    private HttpResponse<String> login(String usuario) throws Exception {
+        return login(usuario, "/api/auth/login");
+    }
+
+    private HttpResponse<String> login(String usuario, String ruta) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + ruta))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + usuario + "\",\"password\":\"x\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.estilo26.api;
+
+import com.estilo26.api.config.ReplicaFallbackDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Dos pools sobre la misma base (así corre en local): cada consulta se distingue por su
+ * application_name. readOnly va a la réplica; lo demás, y lo que debe ver lo último, al primario.
+ */
+@SpringBootTest
+class ReadReplicaRoutingTest {
+
+    private static final String APP_NAME = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Test
+    void soloLasTransaccionesReadOnlyVanALaReplica() {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+
+        assertEquals("estilo26-replica", lectura.execute(s -> jdbcTemplate.queryForObject(APP_NAME, String.class)));
+        assertEquals("estilo26-primary", escritura.execute(s -> jdbcTemplate.queryForObject(APP_NAME, String.class)));
+        // Sin transacción (JdbcTemplate suelto, Flyway, las tareas de arranque): primario
+        assertEquals("estilo26-primary", jdbcTemplate.queryForObject(APP_NAME, String.class));
+    }
+
+    @Test
+    void siLaReplicaNoContestaSeLeeDelPrimario() throws Exception {
+        DataSource caida = new DriverManagerDataSource("jdbc:postgresql://localhost:1/estilo26_db", "postgres", "postgres");
+        ReplicaFallbackDataSource replica = new ReplicaFallbackDataSource(caida, primary, 30);
+
+        assertEquals("estilo26-primary", applicationName(replica));
+        // Durante retry-seconds ni siquiera se intenta: no se paga el timeout en cada reporte
+        assertEquals("estilo26-primary", applicationName(replica));
+        assertEquals(2, replica.getFallbacks());
+    }
+
+    // El pool de la réplica sale en /actuator/prometheus igual que el primario (hikaricp_*, por pool)
+    @Test
+    void elPoolDeLaReplicaTieneSusMetricas() {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.execute(s -> jdbcTemplate.queryForObject(APP_NAME, String.class));
+
+        assertNotNull(registry.find("hikaricp.connections.max").tag("pool", "estilo26-replica").gauge());
+        assertNotNull(registry.find("hikaricp.connections.max").tag("pool", "estilo26-primary").gauge());
+    }
+
+    private String applicationName(DataSource dataSource) throws Exception {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(APP_NAME)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
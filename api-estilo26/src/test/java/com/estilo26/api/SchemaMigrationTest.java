@@ -0,0 +1,86 @@
+package com.estilo26.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El esquema lo manda Flyway: la API arranca solo VALIDANDO (nunca altera tablas)
+ * y las migraciones dejan los índices que usan las consultas reales.
+ */
+@SpringBootTest
+class SchemaMigrationTest {
+
+    @Value("${spring.jpa.hibernate.ddl-auto}")
+    private String ddlAuto;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void hibernateSoloValida() {
+        // Si el esquema no coincidiera con las entidades, el contexto ni siquiera habría arrancado
+        assertEquals("validate", ddlAuto);
+    }
+
+    @Test
+    void todasLasMigracionesCorrieronBien() {
+        Integer fallidas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM flyway_schema_history WHERE NOT success", Integer.class);
+        assertEquals(0, fallidas);
+
+        List<String> versiones = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE version <> '0' ORDER BY installed_rank", String.class);
+        assertTrue(versiones.containsAll(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12")), versiones.toString());
+        // Sin él la API ni siquiera arranca (BookingConstraintCheck), pero que quede dicho aquí
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = 'appointments_no_overlap'", Integer.class));
+    }
+
+    @Test
+    void existenLosIndicesDeLasConsultas() {
+        List<String> indices = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema()", String.class);
+        for (String esperado : List.of("idx_appointments_date_time_id", "idx_appointments_barber_date",
+                "idx_appointments_status_phone", "idx_appointments_change_version", "idx_appointments_archive_date", "idx_services_active", "idx_users_active")) {
+            assertTrue(indices.contains(esperado), "Falta " + esperado);
+        }
+    }
+
+    // Con pocas filas Postgres prefiere leer la tabla completa; apagando el seq scan
+    // comprobamos que el índice SÍ sirve para la forma de la consulta.
+    @Test
+    void elBuscadorPorBarberoPuedeUsarSuIndice() {
+        String plan = explain("SELECT id FROM appointments " +
+                "WHERE barber_name = 'x' AND appointment_date BETWEEN DATE '2026-01-01' AND DATE '2026-01-31'");
+        assertTrue(plan.contains("idx_appointments_barber_date"), plan);
+
+        String activos = explain("SELECT id FROM services WHERE is_active ORDER BY id");
+        assertTrue(activos.contains("idx_services_active"), activos);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+                    while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                } finally {
+                    st.execute("RESET enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
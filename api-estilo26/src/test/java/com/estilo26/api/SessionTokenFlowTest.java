@@ -0,0 +1,101 @@
+package com.estilo26.api;
+
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.UserRepository;
+import com.estilo26.api.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Con la API cerrada (estilo26.auth.required=true): login una vez, luego la ficha abre las puertas,
+ * y dar de baja al usuario la cierra aunque la ficha no haya vencido.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"estilo26.auth.required=true", "estilo26.auth.token-secret=secreto-de-prueba-con-32-caracteres!"})
+class SessionTokenFlowTest {
+
+    private static final String USUARIO = "test-sesion";
+    private static final String CLAVE = "clave-de-prueba";
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void limpiar() {
+        userRepository.findByUsername(USUARIO).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void laFichaAbreLaApiHastaQueElUsuarioSeDaDeBaja() throws Exception {
+        User user = userRepository.save(User.builder()
+                .username(USUARIO)
+                .password(passwordEncoder.encode(CLAVE))
+                .role("BARBERO")
+                .isActive(true)
+                .build());
+
+        assertEquals(401, get("/api/appointments", null).statusCode());
+        // Las métricas dicen cuántas citas y cobros hay: solo con ficha
+        assertEquals(401, get("/actuator/prometheus", null).statusCode());
+        assertEquals(200, get("/actuator/health", null).statusCode());
+        // La página pública de reservas no necesita ficha
+        assertEquals(200, get("/api/services", null).statusCode());
+        assertEquals(200, get("/api/appointments/availability?date=" + LocalDate.now().plusDays(1), null).statusCode());
+
+        HttpResponse<String> login = http.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + USUARIO + "\",\"password\":\"" + CLAVE + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, login.statusCode(), login.body());
+        Matcher m = TOKEN.matcher(login.body());
+        assertTrue(m.find(), login.body());
+        String ficha = m.group(1);
+
+        assertEquals(200, get("/api/appointments", ficha).statusCode());
+        assertEquals(200, get("/actuator/prometheus", ficha).statusCode());
+        int i = ficha.length() - 10; // Un caracter de la firma
+        String alterada = ficha.substring(0, i) + (ficha.charAt(i) == 'A' ? 'B' : 'A') + ficha.substring(i + 1);
+        assertEquals(401, get("/api/appointments", alterada).statusCode());
+
+        userService.softDeleteUser(user.getId());
+        assertEquals(401, get("/api/appointments", ficha).statusCode());
+    }
+
+    private HttpResponse<String> get(String path, String ficha) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(uri(path)).GET();
+        if (ficha != null) peticion.header("Authorization", "Bearer " + ficha);
+        return http.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,189 @@
+package com.estilo26.api.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * -------------------------------------------------------------
+ * GENERADOR DE CARGA HTTP (para las pruebas de rendimiento)
+ * -------------------------------------------------------------
+ * N clientes (hilos virtuales) golpean la API sin pausa durante un tiempo fijo.
+ * Cada cliente elige en cada vuelta un endpoint de la mezcla según su peso.
+ * Primero se calienta sin medir (JIT, pool, cachés) y luego se mide.
+ *
+ * Resultado por endpoint: peticiones OK, peticiones/s, percentiles de latencia y errores
+ * (cualquier respuesta que no sea 200 o excepción; se guarda el primero para diagnosticar).
+ */
+final class LoadHarness {
+
+    /**
+     * Un tipo de petición de la mezcla.
+     * request recibe un número de secuencia (único en toda la corrida) y puede devolver null ("ahora no aplica",
+     * por ejemplo no hay citas por cobrar todavía): el cliente elige otra.
+     * onSuccess recibe el cuerpo de cada respuesta 200 (para encadenar, ej. guardar ids).
+     */
+    record Endpoint(String name, int weight, Function<Long, HttpRequest> request, Consumer<String> onSuccess) {
+
+        Endpoint(String name, int weight, Function<Long, HttpRequest> request) {
+            this(name, weight, request, body -> { });
+        }
+    }
+
+    private final HttpClient http;
+    private final int clients;
+
+    // Sigue contando entre calentamiento y medición: los números nunca se repiten
+    private final AtomicLong secuencia = new AtomicLong();
+
+    LoadHarness(HttpClient http, int clients) {
+        this.http = http;
+        this.clients = clients;
+    }
+
+    List<Stats> run(List<Endpoint> mix, Duration warmup, Duration measurement) throws InterruptedException {
+        drive(mix, warmup);
+        return drive(mix, measurement);
+    }
+
+    // ========================================================================
+    // REPORTE
+    // ========================================================================
+    static void print(String label, List<Stats> resultados) {
+        System.out.println();
+        System.out.printf("%-12s %-14s %8s %8s %8s %8s %8s %8s %8s%n",
+                label, "endpoint", "reqs", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errores");
+        for (Stats s : resultados) {
+            System.out.printf("%-12s %-14s %8d %8.0f %8.1f %8.1f %8.1f %8.1f %8d%n",
+                    "", s.name, s.ok, s.perSecond(), s.percentile(50), s.percentile(95), s.percentile(99),
+                    s.percentile(100), s.errors);
+        }
+        for (Stats s : resultados) {
+            if (s.firstError != null) System.out.printf("    primer error en %s: %s%n", s.name, s.firstError);
+        }
+    }
+
+    // ========================================================================
+    // MOTOR
+    // ========================================================================
+    private List<Stats> drive(List<Endpoint> mix, Duration duracion) throws InterruptedException {
+        int pesoTotal = mix.stream().mapToInt(Endpoint::weight).sum();
+        long fin = System.nanoTime() + duracion.toNanos();
+
+        List<Stats> resultados = new ArrayList<>();
+        List<List<Stats>> todos = new ArrayList<>();
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                List<Stats> propias = new ArrayList<>();
+                for (Endpoint e : mix) propias.add(new Stats(e.name));
+                todos.add(propias);
+
+                hilos.submit(() -> {
+                    while (System.nanoTime() < fin) {
+                        int i = pick(mix, pesoTotal);
+                        Endpoint e = mix.get(i);
+                        HttpRequest peticion = e.request.apply(secuencia.getAndIncrement());
+                        if (peticion == null) continue;
+
+                        Stats s = propias.get(i);
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<String> resp = http.send(peticion, HttpResponse.BodyHandlers.ofString());
+                            long tardo = System.nanoTime() - inicio;
+                            if (resp.statusCode() != 200) {
+                                s.error(resp.statusCode() + " " + resp.body());
+                                continue;
+                            }
+                            e.onSuccess.accept(resp.body());
+                            s.record(tardo);
+                        } catch (Exception ex) {
+                            s.error(ex.toString());
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        // Juntamos lo de cada cliente por endpoint
+        for (int i = 0; i < mix.size(); i++) {
+            Stats total = new Stats(mix.get(i).name);
+            for (List<Stats> propias : todos) total.merge(propias.get(i));
+            total.finish(duracion);
+            resultados.add(total);
+        }
+        return resultados;
+    }
+
+    private static int pick(List<Endpoint> mix, int pesoTotal) {
+        if (mix.size() == 1) return 0;
+        int r = ThreadLocalRandom.current().nextInt(pesoTotal);
+        for (int i = 0; i < mix.size(); i++) {
+            r -= mix.get(i).weight;
+            if (r < 0) return i;
+        }
+        return mix.size() - 1;
+    }
+
+    // ========================================================================
+    // ESTADÍSTICAS DE UN ENDPOINT (cada cliente llena las suyas: sin candados)
+    // ========================================================================
+    static final class Stats {
+        final String name;
+        long ok;
+        long errors;
+        String firstError;
+        private long[] latencies = new long[1024];
+        private double seconds;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos) {
+            if (ok == latencies.length) latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            latencies[(int) ok++] = nanos;
+        }
+
+        void error(String detalle) {
+            errors++;
+            if (firstError == null) firstError = detalle;
+        }
+
+        void merge(Stats otro) {
+            if (ok + otro.ok > latencies.length) latencies = Arrays.copyOf(latencies, (int) (ok + otro.ok));
+            System.arraycopy(otro.latencies, 0, latencies, (int) ok, (int) otro.ok);
+            ok += otro.ok;
+            errors += otro.errors;
+            if (firstError == null) firstError = otro.firstError;
+        }
+
+        void finish(Duration duracion) {
+            latencies = Arrays.copyOf(latencies, (int) ok);
+            Arrays.sort(latencies);
+            seconds = duracion.toMillis() / 1000.0;
+        }
+
+        double perSecond() {
+            return ok / seconds;
+        }
+
+        // En milisegundos; percentile(100) = la más lenta
+        double percentile(int p) {
+            if (ok == 0) return 0;
+            int i = (int) Math.ceil(p / 100.0 * ok) - 1;
+            return latencies[Math.max(0, i)] / 1_000_000.0;
+        }
+    }
+}
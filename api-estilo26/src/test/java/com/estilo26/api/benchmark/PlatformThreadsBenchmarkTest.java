@@ -0,0 +1,13 @@
+package com.estilo26.api.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// Modo por defecto: Tomcat con su pool de 200 hilos de plataforma
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PlatformThreadsBenchmarkTest extends ThreadModeBenchmark {
+
+    @Override
+    String modo() {
+        return "plataforma";
+    }
+}
@@ -0,0 +1,166 @@
+package com.estilo26.api.benchmark;
+
+import com.estilo26.api.config.SyntheticDataGenerator;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * -------------------------------------------------------------
+ * PRUEBA DE CARGA DE PUNTA A PUNTA (Perfil "synthetic")
+ * -------------------------------------------------------------
+ * La API real (controladores, servicios, Postgres local) con la barbería sintética
+ * sembrada (~2 años de historia) y 50 tablets de recepción trabajando a la vez:
+ *
+ *   listar 35% | disponibilidad 20% | reservar 20% | cobrar 15% | VIP 10%
+ *
+ * Reporta peticiones/s y percentiles de latencia por endpoint.
+ * La primera corrida siembra los datos (tarda más); las siguientes los reutilizan.
+ *
+ *   mvn test -Dloadtest=true -Dtest=SyntheticLoadTest
+ *   (-Dloadtest.clients=50 -Dloadtest.seconds=30 para cambiar la carga)
+ *
+ * Toda la carga sale de una sola IP: corren sin el límite de peticiones (RateLimiter).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "estilo26.rate-limit.enabled=false"})
+@ActiveProfiles("synthetic")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class SyntheticLoadTest {
+
+    private static final int CLIENTES = Integer.getInteger("loadtest.clients", 50);
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(10);
+    private static final Duration MEDICION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 30));
+
+    // Las reservas de la prueba van un año adelante: no pisan la agenda sembrada y se borran al final
+    private static final LocalDate RESERVAS_DESDE = LocalDate.now().plusYears(1);
+    private static final int DIAS_RESERVA = 300;
+    private static final int MEDIAS_HORAS = 22; // 9:00 a 20:00
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${estilo26.synthetic.barbers:8}")
+    private int barberos;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Citas reservadas por la prueba que aún no se cobran
+    private final Queue<Long> porCobrar = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void limpiar() {
+        String barbero = SyntheticDataGenerator.BARBER_PREFIX + "%";
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name LIKE ? AND appointment_date >= ?)", barbero, RESERVAS_DESDE);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name LIKE ? AND appointment_date >= ?", barbero, RESERVAS_DESDE);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name LIKE ? AND business_date >= ?", barbero, RESERVAS_DESDE);
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone LIKE '777%'");
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone LIKE '777%'");
+    }
+
+    @Test
+    void recepcionConCincuentaTablets() throws Exception {
+        // El servicio más corto: una reserva por media hora nunca choca con la siguiente
+        Service corto = serviceRepository.findByIsActiveTrueOrderByIdAsc().stream()
+                .min(Comparator.comparing(Service::getDurationMinutes))
+                .orElseThrow();
+        Long citasSembradas = jdbcTemplate.queryForObject("SELECT count(*) FROM appointments WHERE barber_name LIKE ?",
+                Long.class, SyntheticDataGenerator.BARBER_PREFIX + "%");
+
+        String api = "http://localhost:" + port + "/api";
+        LocalDate hoy = LocalDate.now();
+
+        List<LoadHarness.Endpoint> mezcla = List.of(
+                // Agenda del último mes, a veces filtrada por barbero
+                new LoadHarness.Endpoint("listar", 35, n -> get(api + "/appointments/search?from=" + hoy.minusDays(30)
+                        + "&to=" + hoy + "&size=50" + (n % 2 == 0 ? "&barber=" + barbero(n) : ""))),
+
+                new LoadHarness.Endpoint("disponibilidad", 20, n -> get(api + "/appointments/availability?date="
+                        + hoy.plusDays(1 + n % 14) + "&serviceIds=" + corto.getId() + (n % 3 == 0 ? "" : "&barber=" + barbero(n)))),
+
+                // Cada reserva en su propio (día, barbero, media hora)
+                new LoadHarness.Endpoint("reservar", 20, n -> {
+                    LocalDate dia = RESERVAS_DESDE.plusDays(n % DIAS_RESERVA);
+                    long resto = n / DIAS_RESERVA;
+                    String barbero = SyntheticDataGenerator.BARBER_PREFIX + (1 + resto % barberos);
+                    LocalTime hora = LocalTime.of(9, 0).plusMinutes(30 * ((resto / barberos) % MEDIAS_HORAS));
+                    String json = String.format("{\"clientName\":\"Tablet %d\",\"clientPhone\":\"777%07d\",\"appointmentDate\":\"%s\"," +
+                            "\"appointmentTime\":\"%s\",\"barberName\":\"%s\",\"services\":[{\"id\":%d}]}",
+                            n, n % 2000, dia, hora, barbero, corto.getId());
+                    return HttpRequest.newBuilder(URI.create(api + "/appointments"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json))
+                            .build();
+                }, body -> {
+                    Matcher m = ID.matcher(body);
+                    if (m.find()) porCobrar.add(Long.parseLong(m.group(1)));
+                }),
+
+                new LoadHarness.Endpoint("cobrar", 15, n -> {
+                    Long id = porCobrar.poll();
+                    if (id == null) return null;
+                    String metodo = List.of("EFECTIVO", "TARJETA", "TRANSFERENCIA").get((int) (n % 3));
+                    return HttpRequest.newBuilder(URI.create(api + "/appointments/" + id
+                                    + "/status?status=COMPLETADA&paymentMethod=" + metodo + "&tip=" + (n % 5) * 10))
+                            .PUT(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                }),
+
+                new LoadHarness.Endpoint("vip", 10, n -> get(api + "/clients/vip?page="
+                        + ThreadLocalRandom.current().nextInt(5) + "&size=20"))
+        );
+
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder().executor(clientes).connectTimeout(Duration.ofSeconds(5)).build();
+            List<LoadHarness.Stats> resultados = new LoadHarness(http, CLIENTES).run(mezcla, CALENTAMIENTO, MEDICION);
+
+            System.out.printf("%n%d tablets, %d s, %d citas sintéticas en la BD%n", CLIENTES, MEDICION.toSeconds(), citasSembradas);
+            LoadHarness.print("sintetico", resultados);
+
+            for (LoadHarness.Stats r : resultados) {
+                assertTrue(r.ok > 0, "Ninguna petición exitosa en " + r.name);
+                assertTrue(r.errors * 100 <= r.ok, "Más de 1% de errores en " + r.name + ": " + r.firstError);
+            }
+        }
+    }
+
+    private String barbero(long n) {
+        return SyntheticDataGenerator.BARBER_PREFIX + (1 + n % barberos);
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+}
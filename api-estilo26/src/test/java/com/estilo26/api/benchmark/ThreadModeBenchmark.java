@@ -0,0 +1,128 @@
+package com.estilo26.api.benchmark;
+
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * -------------------------------------------------------------
+ * HILOS DE PLATAFORMA vs HILOS VIRTUALES
+ * -------------------------------------------------------------
+ * Levanta la API en un puerto real y la golpea con más clientes simultáneos que
+ * hilos tiene Tomcat (200). Mide throughput y latencias p50/p99 de reservar,
+ * listar y cobrar. Cada subclase arranca la API en un modo distinto.
+ *
+ * Son lentos (~40 s por modo): solo corren con -Dbenchmark=true
+ *   mvn test -Dbenchmark=true -Dtest='*ThreadsBenchmarkTest'
+ *
+ * Toda la carga sale de una sola IP: corren sin el límite de peticiones (RateLimiter).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "estilo26.rate-limit.enabled=false"})
+abstract class ThreadModeBenchmark {
+
+    // Se puede bajar en máquinas chicas: -Dbenchmark.clients=100
+    private static final int CLIENTES = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(3);
+    private static final Duration MEDICION = Duration.ofSeconds(10);
+
+    // Año sin citas reales: cada reserva cae en su propio (día, barbero, media hora)
+    private static final LocalDate DESDE = LocalDate.of(2094, 1, 1);
+    private static final int DIAS = 365;
+    private static final int BARBEROS = 40;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong reservas = new AtomicLong();
+    private final List<Long> citas = new CopyOnWriteArrayList<>();
+
+    abstract String modo();
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name LIKE 'bench-%')");
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name LIKE 'bench-%'");
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name LIKE 'bench-%'");
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE barber_name LIKE 'bench-%'");
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone LIKE '888%'");
+    }
+
+    @Test
+    void reservarListarYCobrar() throws Exception {
+        Service servicio = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+        String base = "http://localhost:" + port + "/api/appointments";
+
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder().executor(clientes).connectTimeout(Duration.ofSeconds(5)).build();
+            LoadHarness carga = new LoadHarness(http, CLIENTES);
+
+            // Un endpoint a la vez: reservar llena la lista de citas que luego se cobran
+            List<LoadHarness.Stats> resultados = new ArrayList<>();
+
+            resultados.addAll(carga.run(List.of(new LoadHarness.Endpoint("reservar", 1, n -> {
+                long k = reservas.getAndIncrement();
+                LocalDate dia = DESDE.plusDays(k % DIAS);
+                String barbero = "bench-" + ((k / DIAS) % BARBEROS);
+                LocalTime hora = LocalTime.MIDNIGHT.plusMinutes(30 * ((k / DIAS / BARBEROS) % 48));
+                String json = String.format("{\"clientName\":\"Bench %d\",\"clientPhone\":\"888%d\",\"appointmentDate\":\"%s\"," +
+                        "\"appointmentTime\":\"%s\",\"barberName\":\"%s\",\"services\":[{\"id\":%d}]}",
+                        k, k % 5000, dia, hora, barbero, servicio.getId());
+                return HttpRequest.newBuilder(URI.create(base))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build();
+            }, body -> {
+                Matcher m = ID.matcher(body);
+                if (m.find()) citas.add(Long.parseLong(m.group(1)));
+            })), CALENTAMIENTO, MEDICION));
+
+            resultados.addAll(carga.run(List.of(new LoadHarness.Endpoint("listar", 1, n -> HttpRequest.newBuilder(
+                    URI.create(base + "/search?from=" + DESDE + "&to=" + DESDE.plusDays(DIAS) + "&size=50")).GET().build())),
+                    CALENTAMIENTO, MEDICION));
+
+            resultados.addAll(carga.run(List.of(new LoadHarness.Endpoint("cobrar", 1, n -> {
+                if (citas.isEmpty()) return null;
+                Long id = citas.get((int) (n % citas.size()));
+                return HttpRequest.newBuilder(URI.create(base + "/" + id + "/status?status=COMPLETADA&paymentMethod=EFECTIVO&tip=10"))
+                        .PUT(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            })), CALENTAMIENTO, MEDICION));
+
+            LoadHarness.print(modo(), resultados);
+            for (LoadHarness.Stats r : resultados) {
+                assertTrue(r.ok > 0, "Ninguna petición exitosa en " + r.name);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.estilo26.api.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.ActiveProfiles;
+
+// Perfil "virtual": un hilo virtual por petición
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@ActiveProfiles("virtual")
+class VirtualThreadsBenchmarkTest extends ThreadModeBenchmark {
+
+    @Override
+    String modo() {
+        return "virtual";
+    }
+}
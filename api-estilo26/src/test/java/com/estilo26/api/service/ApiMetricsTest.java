@@ -0,0 +1,117 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.controller.AuthController;
+import com.estilo26.api.dto.LoginRequestDTO;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las métricas del negocio se mueven cuando pasa lo que dicen medir
+ * (y solo entonces: re-cobrar una cita no es otro cobro).
+ */
+@SpringBootTest
+class ApiMetricsTest {
+
+    private static final String BARBERO = "test-metricas";
+    private static final String TELEFONO = "5559999";
+    private static final LocalDate FECHA = LocalDate.of(2099, 2, 14);
+    private static final LocalTime HORA = LocalTime.of(11, 0);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name = ?)", BARBERO);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", TELEFONO);
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", TELEFONO);
+    }
+
+    @Test
+    void cuentaChoquesReagendadosYCobros() {
+        double choques = contador("estilo26.bookings.conflicts", "operation", "create", "source", "memory");
+        double reagendados = contador("estilo26.appointments.rescheduled");
+        double cobrosTarjeta = contador("estilo26.checkouts", "payment_method", "TARJETA");
+
+        Appointment cita = appointmentService.createAppointment(nuevaCita(HORA));
+        assertThrows(RuntimeException.class, () -> appointmentService.createAppointment(nuevaCita(HORA)));
+        assertEquals(choques + 1, contador("estilo26.bookings.conflicts", "operation", "create", "source", "memory"));
+
+        appointmentService.rescheduleAppointment(cita.getId(), FECHA.toString(), HORA.plusHours(3).toString());
+        assertEquals(reagendados + 1, contador("estilo26.appointments.rescheduled"));
+
+        appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "TARJETA", BigDecimal.ZERO, BigDecimal.ZERO);
+        appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "TARJETA", BigDecimal.ZERO, BigDecimal.TEN);
+        assertEquals(cobrosTarjeta + 1, contador("estilo26.checkouts", "payment_method", "TARJETA"));
+    }
+
+    @Test
+    void cuentaLoginsFallidosPorMotivo() {
+        double desconocidos = contador("estilo26.auth.login.failures", "reason", "unknown_user");
+
+        LoginRequestDTO login = new LoginRequestDTO();
+        login.setUsername("nadie-se-llama-asi");
+        login.setPassword("x");
+        authController.login(login);
+
+        assertEquals(desconocidos + 1, contador("estilo26.auth.login.failures", "reason", "unknown_user"));
+    }
+
+    @Test
+    void publicaLaProporcionDeAciertosDeLasCaches() {
+        for (String cache : List.of("catalog", "users", "slots")) {
+            double ratio = registry.get("estilo26.cache.hit.ratio").tag("cache", cache).gauge().value();
+            assertTrue(ratio >= 0 && ratio <= 1, cache + ": " + ratio);
+        }
+    }
+
+    private double contador(String nombre, String... tags) {
+        var counter = registry.find(nombre).tags(tags).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Appointment nuevaCita(LocalTime hora) {
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+        return Appointment.builder()
+                .clientName("Cliente Métricas")
+                .clientPhone(TELEFONO)
+                .appointmentDate(FECHA)
+                .appointmentTime(hora)
+                .barberName(BARBERO)
+                .status(AppointmentStatus.PENDIENTE)
+                .services(List.of(Service.builder().id(corte.getId()).build()))
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentListDTO;
+import com.estilo26.api.dto.AppointmentPageDTO;
+import com.estilo26.api.repository.AppointmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El archivo nocturno: las citas cerradas y viejas salen de la tabla caliente (la agenda ya no
+ * las ve), pero el buscador, la exportación y las reconstrucciones las siguen encontrando.
+ */
+@SpringBootTest
+class AppointmentArchiveTest {
+
+    private static final String BARBERO = "test-archivo";
+    // Muy en el pasado: la prueba nunca archiva citas reales de la base de desarrollo
+    private static final LocalDate CORTE = LocalDate.of(1990, 2, 1);
+
+    @Autowired
+    private AppointmentArchiveService archiveService;
+
+    @Autowired
+    private AppointmentExportService exportService;
+
+    @Autowired
+    private CashRegisterService cashRegisterService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        for (String sufijo : new String[]{"", "_archive"}) {
+            jdbcTemplate.update("DELETE FROM appointment_services" + sufijo + " WHERE appointment_id IN " +
+                    "(SELECT id FROM appointments" + sufijo + " WHERE barber_name = ?)", BARBERO);
+            jdbcTemplate.update("DELETE FROM appointments" + sufijo + " WHERE barber_name = ?", BARBERO);
+        }
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+    }
+
+    @Test
+    void mudaSoloLasCerradasViejasYLosReportesLasSiguenViendo() throws Exception {
+        long cobrada = cita(LocalDate.of(1990, 1, 15), "COMPLETADA");
+        long cancelada = cita(LocalDate.of(1990, 1, 16), "CANCELADA");
+        long pendiente = cita(LocalDate.of(1990, 1, 17), "PENDIENTE");    // abierta: se queda
+        long reciente = cita(LocalDate.of(1990, 2, 10), "COMPLETADA");    // más nueva que el corte: se queda
+
+        assertEquals(2, archiveService.archiveClosedBefore(CORTE));
+
+        // La tabla caliente (la que lee la agenda) ya no las tiene; el archivo sí, con sus servicios
+        assertFalse(appointmentRepository.existsById(cobrada));
+        assertFalse(appointmentRepository.existsById(cancelada));
+        assertTrue(appointmentRepository.existsById(pendiente));
+        assertTrue(appointmentRepository.existsById(reciente));
+        assertEquals(2, contar("SELECT COUNT(*) FROM appointments_archive WHERE barber_name = ?"));
+        assertEquals(1, contar("SELECT COUNT(*) FROM appointment_services_archive WHERE appointment_id = " + cobrada));
+
+        // La exportación recorre las dos tablas
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long filas = exportService.export(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 2, 28), BARBERO,
+                AppointmentExportService.Format.CSV, csv);
+        assertEquals(4, filas);
+        assertTrue(csv.toString(StandardCharsets.UTF_8).contains("\n" + cobrada + ","));
+
+        // El buscador también: las cuatro, en orden, y la archivada con su servicio
+        AppointmentPageDTO pagina = appointmentService.searchAppointments(AppointmentFilterDTO.builder()
+                .from(LocalDate.of(1990, 1, 1)).to(LocalDate.of(1990, 2, 28)).barberName(BARBERO).build(), null, 50);
+        assertEquals(List.of(cobrada, cancelada, pendiente, reciente),
+                pagina.getItems().stream().map(AppointmentListDTO::getId).toList());
+        assertEquals(1, pagina.getItems().get(0).getServiceIds().size());
+        // Paginando con cursor se cruza de lo archivado a lo vivo sin saltarse ninguna
+        AppointmentPageDTO primera = appointmentService.searchAppointments(AppointmentFilterDTO.builder()
+                .from(LocalDate.of(1990, 1, 1)).barberName(BARBERO).build(), null, 2);
+        AppointmentPageDTO segunda = appointmentService.searchAppointments(AppointmentFilterDTO.builder()
+                .from(LocalDate.of(1990, 1, 1)).barberName(BARBERO).build(), primera.getNextCursor(), 2);
+        assertEquals(List.of(pendiente, reciente), segunda.getItems().stream().map(AppointmentListDTO::getId).toList());
+
+        // El listado de la agenda viva no llega hasta allá: saldría sin las archivadas
+        RuntimeException lejos = assertThrows(RuntimeException.class,
+                () -> appointmentService.getAllAppointments(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 2, 28)));
+        assertTrue(lejos.getMessage().contains("/api/appointments/search"), lejos.getMessage());
+
+        // Reconstruir la caja de enero encuentra el cobro archivado (y su servicio)
+        cashRegisterService.rebuild(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 31));
+        assertEquals(1, contar("SELECT services_count FROM cash_register_daily WHERE barber_name = ?"));
+
+        // Nada más que mover: una segunda vuelta no hace nada
+        assertEquals(0, archiveService.archiveClosedBefore(CORTE));
+    }
+
+    // Lo que escribe el cliente al reservar no llega como fórmula a la hoja del contador
+    @Test
+    void elCsvNoEntregaFormulas() {
+        long id = cita(LocalDate.of(1990, 3, 1), "PENDIENTE");
+        jdbcTemplate.update("UPDATE appointments SET client_name = ?, client_phone = ? WHERE id = ?",
+                "=HYPERLINK(\"http://x\",\"clic\")", "+52 55 1234 5678", id);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(LocalDate.of(1990, 3, 1), LocalDate.of(1990, 3, 1), BARBERO,
+                AppointmentExportService.Format.CSV, csv);
+        String linea = csv.toString(StandardCharsets.UTF_8).split("\n")[1];
+
+        assertTrue(linea.contains(",\"'=HYPERLINK(\"\"http://x\"\",\"\"clic\"\")\",'+52 55 1234 5678,"), linea);
+    }
+
+    private long cita(LocalDate fecha, String estado) {
+        Long id = jdbcTemplate.queryForObject("SELECT nextval('appointments_seq')", Long.class);
+        jdbcTemplate.update("INSERT INTO appointments (id, client_name, client_phone, appointment_date, appointment_time, " +
+                        "end_time, status, barber_name, total_services_cost, tip_amount, discount_applied, final_total_paid, " +
+                        "payment_method, barber_commission) " +
+                        "VALUES (?, 'Cliente Archivo', NULL, ?, ?, ?, ?, ?, 100, 0, 0, 100, 'EFECTIVO', 40)",
+                id, fecha, LocalTime.of(10, 0), LocalTime.of(10, 30), estado, BARBERO);
+        jdbcTemplate.update("INSERT INTO appointment_services (appointment_id, service_id) " +
+                "SELECT ?, MIN(id) FROM services", id);
+        return id;
+    }
+
+    private int contar(String sql) {
+        Integer n = sql.contains("?")
+                ? jdbcTemplate.queryForObject(sql, Integer.class, BARBERO)
+                : jdbcTemplate.queryForObject(sql, Integer.class);
+        return n;
+    }
+}
@@ -0,0 +1,173 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AppointmentChangesDTO;
+import com.estilo26.api.dto.AppointmentListDTO;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sincronización por diferencias: ?since=N entrega solo lo que cambió después de N,
+ * las canceladas y las borradas como lápidas, y nunca se salta un cambio que todavía no hace commit.
+ */
+@SpringBootTest
+class AppointmentChangesTest {
+
+    private static final String BARBERO = "test-cambios";
+    private static final String TELEFONO = "5557777";
+    // Un día por prueba: el índice de la agenda en memoria no se entera del DELETE de la limpieza
+    private static final LocalDate FECHA = LocalDate.of(2099, 4, 7);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long inicio;
+
+    @BeforeEach
+    void versionActual() {
+        // Las limpiezas de otras pruebas también dejan lápidas: se empieza después de todo eso
+        inicio = jdbcTemplate.queryForObject("SELECT GREATEST(" +
+                "(SELECT COALESCE(MAX(change_version), 0) FROM appointments), " +
+                "(SELECT COALESCE(MAX(change_version), 0) FROM appointment_tombstones))", Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name = ?)", BARBERO);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", TELEFONO);
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", TELEFONO);
+    }
+
+    @Test
+    void entregaSoloLoQueCambioYLasCanceladasComoLapidas() {
+        Appointment cobrada = appointmentService.createAppointment(nuevaCita(FECHA, LocalTime.of(9, 0)));
+        Appointment cancelada = appointmentService.createAppointment(nuevaCita(FECHA, LocalTime.of(10, 0)));
+
+        AppointmentChangesDTO primera = appointmentService.getChangesSince(inicio, null);
+        assertEquals(List.of(cobrada.getId(), cancelada.getId()), ids(primera.getChanged()));
+        assertFalse(primera.getChanged().get(0).getServiceIds().isEmpty());
+        assertTrue(primera.getVersion() > inicio);
+
+        // Nada nuevo: misma versión, lista vacía
+        AppointmentChangesDTO nada = appointmentService.getChangesSince(primera.getVersion(), null);
+        assertTrue(nada.getChanged().isEmpty() && nada.getRemoved().isEmpty());
+        assertEquals(primera.getVersion(), nada.getVersion());
+
+        appointmentService.checkoutAppointment(cobrada.getId(), "COMPLETADA", "EFECTIVO", BigDecimal.ZERO, BigDecimal.ZERO);
+        appointmentService.checkoutAppointment(cancelada.getId(), "CANCELADA", null, null, null);
+
+        AppointmentChangesDTO segunda = appointmentService.getChangesSince(primera.getVersion(), null);
+        assertEquals(List.of(cobrada.getId()), ids(segunda.getChanged()));
+        assertEquals(AppointmentStatus.COMPLETADA, segunda.getChanged().get(0).getStatus());
+        assertEquals(List.of(cancelada.getId()), segunda.getRemoved());
+    }
+
+    // El archivo de cada madrugada (o un DELETE a mano) saca la cita de la tabla caliente:
+    // el cliente tiene que enterarse para quitarla de su copia
+    @Test
+    void lasCitasBorradasLleganComoLapidas() {
+        Appointment queda = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(3), LocalTime.of(9, 0)));
+        Appointment borrada = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(3), LocalTime.of(10, 0)));
+        long antes = appointmentService.getChangesSince(inicio, null).getVersion();
+
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id = ?", borrada.getId());
+        jdbcTemplate.update("DELETE FROM appointments WHERE id = ?", borrada.getId());
+        jdbcTemplate.update("UPDATE appointments SET client_name = 'Después' WHERE id = ?", queda.getId());
+
+        AppointmentChangesDTO cambios = appointmentService.getChangesSince(antes, null);
+        assertEquals(List.of(borrada.getId()), cambios.getRemoved());
+        assertEquals(List.of(queda.getId()), ids(cambios.getChanged()));
+
+        // Paginando de uno en uno: primero la lápida (se borró antes), luego la modificada
+        AppointmentChangesDTO primera = appointmentService.getChangesSince(antes, 1);
+        assertEquals(List.of(borrada.getId()), primera.getRemoved());
+        assertTrue(primera.getChanged().isEmpty() && primera.isHasMore());
+        AppointmentChangesDTO segunda = appointmentService.getChangesSince(primera.getVersion(), 1);
+        assertEquals(List.of(queda.getId()), ids(segunda.getChanged()));
+        assertFalse(segunda.isHasMore());
+    }
+
+    @Test
+    void paginaPorNumeroDeCambio() {
+        appointmentService.createAppointment(nuevaCita(FECHA.plusDays(1), LocalTime.of(9, 0)));
+        appointmentService.createAppointment(nuevaCita(FECHA.plusDays(1), LocalTime.of(10, 0)));
+
+        AppointmentChangesDTO primera = appointmentService.getChangesSince(inicio, 1);
+        assertEquals(1, primera.getChanged().size());
+        assertTrue(primera.isHasMore());
+
+        AppointmentChangesDTO segunda = appointmentService.getChangesSince(primera.getVersion(), 1);
+        assertEquals(1, segunda.getChanged().size());
+        assertFalse(segunda.isHasMore());
+    }
+
+    // Una escritura a medio confirmar ya tiene su número: si contestáramos ahora, un cambio
+    // posterior con número mayor haría que el cliente se la saltara para siempre.
+    @Test
+    void noContestaMientrasHayUnaEscrituraSinCommit() throws Exception {
+        Appointment cita = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(2), LocalTime.of(9, 0)));
+
+        try (Connection otra = dataSource.getConnection(); Statement st = otra.createStatement()) {
+            otra.setAutoCommit(false);
+            st.executeUpdate("UPDATE appointments SET client_name = 'Renombrada' WHERE id = " + cita.getId());
+
+            AppointmentChangesDTO bloqueada = appointmentService.getChangesSince(inicio, null);
+            assertTrue(bloqueada.getChanged().isEmpty());
+            assertEquals(inicio, bloqueada.getVersion());
+
+            otra.commit();
+        }
+
+        AppointmentChangesDTO despues = appointmentService.getChangesSince(inicio, null);
+        assertEquals(List.of(cita.getId()), ids(despues.getChanged()));
+        assertEquals("Renombrada", despues.getChanged().get(0).getClientName());
+    }
+
+    private List<Long> ids(List<AppointmentListDTO> filas) {
+        return filas.stream().map(AppointmentListDTO::getId).toList();
+    }
+
+    private Appointment nuevaCita(LocalDate fecha, LocalTime hora) {
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+        return Appointment.builder()
+                .clientName("Cliente Cambios")
+                .clientPhone(TELEFONO)
+                .appointmentDate(fecha)
+                .appointmentTime(hora)
+                .barberName(BARBERO)
+                .status(AppointmentStatus.PENDIENTE)
+                .services(List.of(Service.builder().id(corte.getId()).build()))
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AppointmentFilterDTO;
+import com.estilo26.api.dto.AppointmentPageDTO;
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cuenta cuántas sentencias SQL cuesta cada camino caliente.
+ * Si alguien vuelve a poner EAGER o mete un N+1, estos números lo delatan.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AppointmentQueryCountTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2099, 2, 10);
+    private static final String BARBERO = "test-sql";
+    private static final int CITAS = 20;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private UserDirectoryCache userDirectory;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics stats;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void sembrar() {
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Service> catalogo = serviceRepository.findByIsActiveTrueOrderByIdAsc();
+
+        for (int i = 0; i < CITAS; i++) {
+            Appointment cita = Appointment.builder()
+                    .clientName("Cliente " + i)
+                    .clientPhone(telefono(i))
+                    .appointmentDate(FECHA)
+                    .appointmentTime(LocalTime.of(8, 0).plusMinutes(30L * i))
+                    .barberName(BARBERO)
+                    .services(List.of(
+                            Service.builder().id(catalogo.get(0).getId()).build(),
+                            Service.builder().id(catalogo.get(1).getId()).build()))
+                    .build();
+            // Walk-in: así no importa si los servicios duran más que el hueco entre citas
+            cita.setIsWalkIn(true);
+            ids.add(appointmentService.createAppointment(cita).getId());
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name = ?)", BARBERO);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name = ?", BARBERO);
+        // Solo los teléfonos que sembró la prueba: la base de desarrollo tiene clientes reales
+        for (int i = 0; i < CITAS; i++) {
+            jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", telefono(i));
+            jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", telefono(i));
+        }
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+        slotIndex.reloadDay(FECHA);
+        slotIndex.reloadDay(FECHA.plusDays(1));
+    }
+
+    @Test
+    void listadoPaginadoCuestaDosConsultas() {
+        stats.clear();
+
+        AppointmentPageDTO pagina = appointmentService.searchAppointments(
+                AppointmentFilterDTO.builder().from(FECHA).to(FECHA).barberName(BARBERO).build(), null, 50);
+
+        assertEquals(CITAS, pagina.getItems().size());
+        assertEquals(2, pagina.getItems().get(0).getServiceIds().size());
+        // 1 para la página + 1 para los servicios de TODAS las filas
+        assertEquals(2, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void listadoPorVentanaCuestaUnaConsulta() {
+        stats.clear();
+
+        List<Appointment> citas = appointmentService.getAllAppointments(FECHA, FECHA);
+        citas.forEach(c -> c.getServices().size());
+
+        // El EntityGraph trae citas + servicios en un solo JOIN
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void checkoutCuestaSeisConsultas() {
+        slotIndex.dayVersion(FECHA); // El día ya está en memoria
+        userDirectory.getActiveUsers(); // Y el directorio de barberos también
+        stats.clear();
+
+        Appointment cobrada = appointmentService.checkoutAppointment(
+                ids.get(0), "COMPLETADA", "EFECTIVO", BigDecimal.ZERO, BigDecimal.TEN);
+
+        assertEquals(0, new BigDecimal("10.00").compareTo(cobrada.getTipAmount()));
+        // día y barbero para el candado (1) + cita+servicios (1) + UPDATE (1) + histograma del cliente (1)
+        // + ficha del cliente (1) + cubeta de caja (1). La comisión del barbero sale de memoria.
+        assertEquals(6, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void reagendarCuestaTresConsultas() {
+        LocalDate nuevaFecha = FECHA.plusDays(1);
+        slotIndex.dayVersion(nuevaFecha);
+        stats.clear();
+
+        appointmentService.rescheduleAppointment(ids.get(0), nuevaFecha.toString(), "09:00");
+
+        // día y barbero para los candados (1) + cita+servicios (1) + UPDATE (1)
+        assertEquals(3, stats.getPrepareStatementCount());
+    }
+
+    private static String telefono(int i) {
+        return "555" + i;
+    }
+}
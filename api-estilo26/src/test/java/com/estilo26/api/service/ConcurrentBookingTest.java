@@ -0,0 +1,226 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.ServiceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sábado por la mañana: cientos de reservas al MISMO horario, al MISMO tiempo.
+ * Solo una puede ganar.
+ */
+@SpringBootTest
+class ConcurrentBookingTest {
+
+    private static final int INTENTOS = 300;
+    private static final LocalDate FECHA = LocalDate.of(2099, 1, 17);
+    private static final LocalTime HORA = LocalTime.of(10, 0);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name LIKE 'test-concurrencia%')");
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name LIKE 'test-concurrencia%'");
+    }
+
+    @Test
+    void soloUnaReservaGanaElMismoHorario() throws Exception {
+        String barbero = "test-concurrencia-servicio";
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+
+        int ganadores = dispararEnParalelo(() -> {
+            Appointment cita = nuevaCita(barbero);
+            cita.setServices(List.of(Service.builder().id(corte.getId()).build()));
+            appointmentService.createAppointment(cita);
+            return true;
+        });
+
+        assertEquals(1, ganadores);
+        assertEquals(1, contarCitas(barbero));
+    }
+
+    // Reagendar al hueco que otros están reservando en ese instante. El reagendado confirma y se registra
+    // en la agenda en memoria ANTES de soltar el candado: las reservas que pierden se rechazan en memoria,
+    // ninguna alcanza a ver el hueco libre y a chocar recién en Postgres.
+    @Test
+    void reagendarYReservarElMismoHuecoALaVez() throws Exception {
+        String barbero = "test-concurrencia-reagendar";
+        LocalDate dia = FECHA.plusDays(2);
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+
+        Appointment movida = nuevaCita(barbero);
+        movida.setAppointmentDate(dia);
+        movida.setAppointmentTime(LocalTime.of(8, 0));
+        movida.setServices(List.of(Service.builder().id(corte.getId()).build()));
+        Long id = appointmentService.createAppointment(movida).getId();
+        double enPostgres = choquesEnPostgres();
+
+        AtomicBoolean primero = new AtomicBoolean(true);
+        int ganadores = dispararEnParalelo(() -> {
+            if (primero.getAndSet(false)) {
+                appointmentService.rescheduleAppointment(id, dia.toString(), HORA.toString());
+                return true;
+            }
+            Appointment cita = nuevaCita(barbero);
+            cita.setAppointmentDate(dia);
+            cita.setServices(List.of(Service.builder().id(corte.getId()).build()));
+            appointmentService.createAppointment(cita);
+            return true;
+        });
+
+        assertEquals(1, ganadores);
+        assertEquals(enPostgres, choquesEnPostgres());
+    }
+
+    // Sin pasar por los candados de la JVM (como si fueran varias instancias de la API):
+    // el constraint de exclusión de Postgres es el que decide.
+    @Test
+    void elConstraintDePostgresRechazaLasEncimadas() throws Exception {
+        String barbero = "test-concurrencia-bd";
+
+        int ganadores = dispararEnParalelo(() -> {
+            Appointment cita = nuevaCita(barbero);
+            cita.setAppointmentTime(HORA.plusMinutes(5)); // Encimada, pero no idéntica
+            cita.setEndTime(HORA.plusMinutes(50));
+            appointmentRepository.save(cita);
+            return true;
+        });
+
+        assertEquals(1, ganadores);
+        assertEquals(1, contarCitas(barbero));
+    }
+
+    // La cita ya está en la BD y su día aún no está en memoria: al registrarla, loadDay ya la
+    // leyó. Debe contar UNA vez, para que al cancelarla el horario quede libre.
+    @Test
+    void registrarEnUnDiaSinCargarNoCuentaDosVeces() {
+        String barbero = "test-concurrencia-indice";
+        LocalDate dia = FECHA.plusDays(1);
+        Appointment cita = nuevaCita(barbero);
+        cita.setAppointmentDate(dia);
+        Appointment guardada = appointmentRepository.save(cita);
+
+        slotIndex.register(guardada);
+        slotIndex.register(guardada); // Repetir no suma
+        assertFalse(slotIndex.isAvailable(dia, barbero, HORA, HORA.plusMinutes(45), null));
+
+        slotIndex.unregister(guardada.getId());
+        assertTrue(slotIndex.isAvailable(dia, barbero, HORA, HORA.plusMinutes(45), null));
+    }
+
+    // Fechas inventadas (la reserva y la disponibilidad son públicas) no pueden llenar la memoria
+    @Test
+    void laMemoriaDeLaAgendaTieneTope() {
+        AppointmentSlotIndex indice = new AppointmentSlotIndex(appointmentRepository, 0, 2);
+        indice.dayVersion(FECHA.plusDays(10));
+        indice.dayVersion(FECHA.plusDays(20));
+        indice.dayVersion(FECHA.plusDays(30)); // Sale el más lejano a hoy (+20)
+        assertEquals(3, indice.getMisses());
+
+        indice.dayVersion(FECHA.plusDays(10));
+        assertEquals(3, indice.getMisses());
+        indice.dayVersion(FECHA.plusDays(20));
+        assertEquals(4, indice.getMisses());
+
+        // La disponibilidad ni siquiera llega al índice fuera del horizonte de reserva
+        assertThrows(RuntimeException.class, () -> availabilityService.getAvailability(FECHA, null, null));
+        assertThrows(RuntimeException.class, () -> availabilityService.getAvailability(LocalDate.now().minusDays(1), null, null));
+    }
+
+    private int dispararEnParalelo(Supplier<Boolean> reserva) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(INTENTOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < INTENTOS; i++) {
+            resultados.add(pool.submit(() -> {
+                salida.await();
+                try {
+                    return reserva.get();
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        salida.countDown(); // ¡Todos a la vez!
+
+        int ganadores = 0;
+        for (Future<Boolean> r : resultados) {
+            if (r.get(60, TimeUnit.SECONDS)) ganadores++;
+        }
+        pool.shutdown();
+        return ganadores;
+    }
+
+    private Appointment nuevaCita(String barbero) {
+        return Appointment.builder()
+                .clientName("Cliente Prueba")
+                .clientPhone("5550000")
+                .appointmentDate(FECHA)
+                .appointmentTime(HORA)
+                .endTime(HORA.plusMinutes(45))
+                .barberName(barbero)
+                .status(AppointmentStatus.PENDIENTE)
+                .build();
+    }
+
+    private double choquesEnPostgres() {
+        double total = 0;
+        for (Counter c : meterRegistry.find("estilo26.bookings.conflicts").tag("source", "database").counters()) {
+            total += c.count();
+        }
+        return total;
+    }
+
+    private int contarCitas(String barbero) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE barber_name = ? AND status <> 'CANCELADA'",
+                Integer.class, barbero);
+    }
+}
@@ -0,0 +1,140 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AppointmentImportDTO;
+import com.estilo26.api.dto.AppointmentImportResultDTO;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Migrar las citas de un sistema anterior: todas deben entrar en lotes
+ * y las que chocan (dentro del mismo archivo) deben quedar reportadas.
+ * La de 100 mil filas (~40 s) solo corre con -Dbenchmark=true.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ImportBenchmarkTest {
+
+    private static final int BARBEROS = 8;
+
+    @Autowired
+    private AppointmentImportService appointmentImportService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    private static final String TELEFONO_COBRADO = "77890001";
+    private static final LocalDate DIA_COBRADO = LocalDate.of(2097, 3, 1);
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name LIKE 'test-importacion%')");
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name LIKE 'test-importacion%'");
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name LIKE 'test-importacion%'");
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", TELEFONO_COBRADO);
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", TELEFONO_COBRADO);
+        slotIndex.reloadDay(DIA_COBRADO);
+    }
+
+    // Más filas que estilo26.import.chunk-size: cruza de un bloque al siguiente
+    @Test
+    void importaEnLotesYReportaLosChoques() {
+        importar(LocalDate.of(2095, 1, 1), 1_200);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void importaCienMilCitasEnLotes() {
+        AppointmentImportResultDTO resultado = importar(LocalDate.of(2096, 1, 1), 100_000);
+        System.out.printf("Importación de %d citas: %d ms, %d filas/s%n",
+                resultado.getImported(), resultado.getElapsedMillis(), resultado.getRowsPerSecond());
+    }
+
+    // Las cobradas se SUMAN a la ficha del cliente (un rebuild la habría recalculado desde cero)
+    // y la agenda en memoria ya las ve al terminar la importación
+    @Test
+    void lasCobradasSumanASuClienteYLaAgendaLasVe() {
+        jdbcTemplate.update("INSERT INTO client_stats (client_phone, client_name, visit_count, last_visit, total_spent) " +
+                "VALUES (?, 'Nombre viejo', 5, DATE '2090-01-01', 100)", TELEFONO_COBRADO);
+        slotIndex.dayVersion(DIA_COBRADO); // El día ya está en memoria
+        Service servicio = serviceRepository.findAll().get(0);
+
+        List<AppointmentImportDTO> filas = new ArrayList<>();
+        for (int h = 10; h <= 11; h++) {
+            filas.add(AppointmentImportDTO.builder()
+                    .clientName("Nombre nuevo").clientPhone("778-900-01")
+                    .appointmentDate(DIA_COBRADO).appointmentTime(LocalTime.of(h, 0))
+                    .barberName("test-importacion-cobro")
+                    .serviceIds(List.of(servicio.getId()))
+                    .status("COMPLETADA").build());
+        }
+        assertEquals(2, appointmentImportService.importRows(filas).getImported());
+
+        Map<String, Object> ficha = jdbcTemplate.queryForMap(
+                "SELECT client_name, visit_count, preferred_barber FROM client_stats WHERE client_phone = ?", TELEFONO_COBRADO);
+        assertEquals("Nombre nuevo", ficha.get("client_name"));
+        assertEquals(7, ((Number) ficha.get("visit_count")).intValue());
+        assertEquals("test-importacion-cobro", ficha.get("preferred_barber"));
+        assertFalse(slotIndex.isAvailable(DIA_COBRADO, "test-importacion-cobro", LocalTime.of(10, 0), LocalTime.of(10, 5), null));
+    }
+
+    private AppointmentImportResultDTO importar(LocalDate desde, int total) {
+        // El servicio más corto, y citas una tras otra sin encimarse ni pasar de la medianoche
+        Service corto = serviceRepository.findAll().stream()
+                .min(Comparator.comparing(s -> s.getDurationMinutes() != null ? s.getDurationMinutes() : 30))
+                .orElseThrow();
+        int paso = (corto.getDurationMinutes() != null) ? corto.getDurationMinutes() : 30;
+        int porDia = BARBEROS * (20 * 60 / paso);
+
+        List<AppointmentImportDTO> filas = new ArrayList<>(total + 1);
+        for (int n = 0; n < total; n++) {
+            int enElDia = n % porDia;
+            filas.add(AppointmentImportDTO.builder()
+                    .clientName("Cliente " + n)
+                    .clientPhone("777" + n)
+                    .appointmentDate(desde.plusDays(n / porDia))
+                    .appointmentTime(LocalTime.of(0, 0).plusMinutes((long) paso * (enElDia / BARBEROS)))
+                    .barberName("test-importacion-" + (enElDia % BARBEROS))
+                    .serviceIds(List.of(corto.getId()))
+                    .build());
+        }
+        // Una fila que choca con la primera del archivo
+        filas.add(AppointmentImportDTO.builder()
+                .clientName("Repetido").appointmentDate(filas.get(0).getAppointmentDate())
+                .appointmentTime(filas.get(0).getAppointmentTime()).barberName(filas.get(0).getBarberName())
+                .serviceIds(List.of(corto.getId())).build());
+
+        AppointmentImportResultDTO resultado = appointmentImportService.importRows(filas);
+
+        assertEquals(total, resultado.getImported());
+        assertEquals(1, resultado.getRejected().size());
+        assertEquals(total + 1, resultado.getRejected().get(0).row());
+        assertEquals(total, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE barber_name LIKE 'test-importacion%'", Integer.class));
+        assertEquals(total, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointment_services WHERE appointment_id IN " +
+                        "(SELECT id FROM appointments WHERE barber_name LIKE 'test-importacion%')", Integer.class));
+        return resultado;
+    }
+}
@@ -0,0 +1,244 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.ServiceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Dos tablets sobre la misma cita: la segunda ya no pisa a la primera.
+ * Si lo que pide sigue siendo válido se reintenta solo; si no, es un choque (409).
+ */
+@SpringBootTest
+class OptimisticLockingTest {
+
+    private static final String BARBERO = "test-optimista";
+    private static final String TELEFONO = "5556666";
+    // Un día por prueba: el índice de la agenda en memoria no se entera del DELETE de la limpieza
+    private static final LocalDate FECHA = LocalDate.of(2099, 5, 5);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointment_services WHERE appointment_id IN " +
+                "(SELECT id FROM appointments WHERE barber_name = ?)", BARBERO);
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name = ?", BARBERO);
+        jdbcTemplate.update("DELETE FROM client_barber_visits WHERE client_phone = ?", TELEFONO);
+        jdbcTemplate.update("DELETE FROM client_stats WHERE client_phone = ?", TELEFONO);
+    }
+
+    @Test
+    void soloAceptaTransicionesValidas() {
+        Appointment cancelada = appointmentService.createAppointment(nuevaCita(FECHA, LocalTime.of(9, 0)));
+        appointmentService.checkoutAppointment(cancelada.getId(), "CANCELADA", null, null, null);
+        // Cancelar otra vez no es un choque; cobrarla sí
+        appointmentService.checkoutAppointment(cancelada.getId(), "CANCELADA", null, null, null);
+        assertThrows(AppointmentConflictException.class, () ->
+                appointmentService.checkoutAppointment(cancelada.getId(), "COMPLETADA", "EFECTIVO", null, null));
+
+        Appointment cobrada = appointmentService.createAppointment(nuevaCita(FECHA, LocalTime.of(11, 0)));
+        appointmentService.checkoutAppointment(cobrada.getId(), "COMPLETADA", "EFECTIVO", null, null);
+        assertThrows(AppointmentConflictException.class, () ->
+                appointmentService.checkoutAppointment(cobrada.getId(), "PENDIENTE", null, null, null));
+        assertThrows(AppointmentConflictException.class, () ->
+                appointmentService.rescheduleAppointment(cobrada.getId(), FECHA.toString(), "15:00"));
+    }
+
+    @Test
+    void unaVersionViejaEsUnChoque() {
+        Appointment cita = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(1), LocalTime.of(9, 0)));
+        long vista = cita.getVersion();
+
+        appointmentService.checkoutAppointment(cita.getId(), "EN_PROCESO", null, null, null, vista);
+        assertThrows(AppointmentConflictException.class, () ->
+                appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "EFECTIVO", null, null, vista));
+
+        Appointment cobrada = appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "EFECTIVO",
+                null, null, vista + 1);
+        assertEquals(AppointmentStatus.COMPLETADA, cobrada.getStatus());
+    }
+
+    // La otra tablet marca EN_PROCESO justo mientras se cobra: el cobro se reintenta sobre la
+    // versión nueva y la visita del cliente cuenta UNA vez (el intento que chocó se deshizo entero).
+    @Test
+    void reintentaSiLaTransicionSigueSiendoValida() throws Exception {
+        Appointment cita = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(2), LocalTime.of(9, 0)));
+        double reintentos = contador("checkout", "retried");
+
+        Throwable error = cobrarMientrasOtraTabletGuarda(cita.getId(), "EN_PROCESO");
+
+        assertNull(error);
+        assertEquals(reintentos + 1, contador("checkout", "retried"));
+        assertEquals(AppointmentStatus.COMPLETADA, appointmentRepository.findById(cita.getId()).orElseThrow().getStatus());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT visit_count FROM client_stats WHERE client_phone = ?", Integer.class, TELEFONO));
+    }
+
+    @Test
+    void noReintentaSiLaOtraTabletLaCancelo() throws Exception {
+        Appointment cita = appointmentService.createAppointment(nuevaCita(FECHA.plusDays(3), LocalTime.of(9, 0)));
+
+        Throwable error = cobrarMientrasOtraTabletGuarda(cita.getId(), "CANCELADA");
+
+        assertInstanceOf(AppointmentConflictException.class, error);
+        assertEquals(AppointmentStatus.CANCELADA, appointmentRepository.findById(cita.getId()).orElseThrow().getStatus());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM client_stats WHERE client_phone = ?", Integer.class, TELEFONO));
+    }
+
+    // La "otra tablet" toma la fila, el cobro lee la versión vieja y se queda esperando en su UPDATE;
+    // la otra guarda su estado (subiendo la versión) y suelta: el UPDATE del cobro ya no encuentra su versión.
+    private Throwable cobrarMientrasOtraTabletGuarda(Long id, String estadoDeLaOtra) throws Exception {
+        try (Connection otra = dataSource.getConnection(); Statement st = otra.createStatement()) {
+            otra.setAutoCommit(false);
+            st.executeQuery("SELECT id FROM appointments WHERE id = " + id + " FOR UPDATE").close();
+
+            CompletableFuture<Appointment> cobro = CompletableFuture.supplyAsync(() ->
+                    appointmentService.checkoutAppointment(id, "COMPLETADA", "EFECTIVO", BigDecimal.ZERO, BigDecimal.ZERO));
+            esperarBloqueado();
+
+            st.executeUpdate("UPDATE appointments SET status = '" + estadoDeLaOtra + "', version = version + 1 WHERE id = " + id);
+            otra.commit();
+
+            try {
+                cobro.get(10, TimeUnit.SECONDS);
+                return null;
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+        }
+    }
+
+    // Corregir un cobro (otro método, otra propina) mueve el dinero de cubeta; no es otra visita
+    @Test
+    void recobrarCorrigeLaCajaYElGastoDelCliente() {
+        LocalDate dia = FECHA.plusDays(6);
+        Appointment cita = appointmentService.createAppointment(nuevaCita(dia, LocalTime.of(9, 0)));
+        appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "EFECTIVO", null, null);
+        Appointment corregida = appointmentService.checkoutAppointment(cita.getId(), "COMPLETADA", "TARJETA",
+                null, new BigDecimal("50"));
+
+        List<String> cubetas = jdbcTemplate.queryForList("SELECT payment_method || ':' || appointment_count || ':' || " +
+                "tips || ':' || final_total FROM cash_register_daily WHERE barber_name = ? AND business_date = ?",
+                String.class, BARBERO, dia);
+        assertEquals(List.of("TARJETA:1:50.00:" + corregida.getFinalTotalPaid().setScale(2)), cubetas);
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT visit_count FROM client_stats WHERE client_phone = ?", Integer.class, TELEFONO));
+        assertEquals(0, corregida.getFinalTotalPaid().compareTo(jdbcTemplate.queryForObject(
+                "SELECT total_spent FROM client_stats WHERE client_phone = ?", BigDecimal.class, TELEFONO)));
+    }
+
+    // Otra instancia ganó el horario (la memoria de esta no lo sabe): Postgres lo rechaza dentro del
+    // intento. El día se relee tras el rollback y la cita sigue ocupando SU horario, no el nuevo.
+    @Test
+    void reagendarContraElConstraintNoDejaHuellaEnLaMemoria() {
+        LocalDate dia = FECHA.plusDays(7);
+        Appointment cita = appointmentService.createAppointment(nuevaCita(dia, LocalTime.of(9, 0)));
+        jdbcTemplate.update("INSERT INTO appointments (id, client_name, appointment_date, appointment_time, end_time, " +
+                        "status, barber_name, total_services_cost, tip_amount, discount_applied, final_total_paid, " +
+                        "barber_commission) VALUES (nextval('appointments_seq'), 'Otra Instancia', ?, ?, ?, 'PENDIENTE', ?, " +
+                        "0, 0, 0, 0, 0)",
+                dia, LocalTime.of(11, 0), LocalTime.of(12, 0), BARBERO);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () ->
+                appointmentService.rescheduleAppointment(cita.getId(), dia.toString(), "11:00"));
+        assertEquals("⚠️ Ese horario ya está ocupado.", e.getMessage());
+
+        assertFalse(slotIndex.isAvailable(dia, BARBERO, LocalTime.of(11, 0), LocalTime.of(11, 30), null));
+        assertFalse(slotIndex.isAvailable(dia, BARBERO, LocalTime.of(9, 0), LocalTime.of(9, 15), null));
+        assertEquals(LocalTime.of(9, 0), appointmentRepository.findById(cita.getId()).orElseThrow().getAppointmentTime());
+    }
+
+    // Tres grafías del mismo barbero son UN barbero: gana a otro que tiene más visitas que cada grafía
+    @Test
+    void elBarberoPreferidoNoDependeDeComoSeEscribio() {
+        for (String barbero : new String[]{"Test-Optimista", "test-optimista ", " TEST-OPTIMISTA", "test-otro", "test-otro"}) {
+            Appointment cita = nuevaCita(FECHA, LocalTime.of(9, 0));
+            cita.setBarberName(barbero);
+            cita.setFinalTotalPaid(BigDecimal.TEN);
+            clientStatsService.recordVisit(cita);
+        }
+        assertEquals(BARBERO, jdbcTemplate.queryForObject(
+                "SELECT preferred_barber FROM client_stats WHERE client_phone = ?", String.class, TELEFONO));
+    }
+
+    private void esperarBloqueado() throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            Integer esperando = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND query LIKE 'update appointments%'",
+                    Integer.class);
+            if (esperando != null && esperando > 0) return;
+            Thread.sleep(20);
+        }
+        fail("El cobro nunca llegó a su UPDATE");
+    }
+
+    private double contador(String operation, String outcome) {
+        var counter = registry.find("estilo26.appointments.optimistic.conflicts")
+                .tags("operation", operation, "outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Appointment nuevaCita(LocalDate fecha, LocalTime hora) {
+        Service corte = serviceRepository.findByIsActiveTrueOrderByIdAsc().get(0);
+        return Appointment.builder()
+                .clientName("Cliente Optimista")
+                .clientPhone(TELEFONO)
+                .appointmentDate(fecha)
+                .appointmentTime(hora)
+                .barberName(BARBERO)
+                .status(AppointmentStatus.PENDIENTE)
+                .services(List.of(Service.builder().id(corte.getId()).build()))
+                .build();
+    }
+}
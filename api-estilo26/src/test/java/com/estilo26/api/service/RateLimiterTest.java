@@ -0,0 +1,76 @@
+package com.estilo26.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cubetas por llave: ráfaga de N permitida, la N+1 espera, y cada llave tiene la suya.
+ */
+class RateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void permiteLaRafagaYFrenaLaSiguienteConRetryAfter() {
+        RateLimiter limiter = limiter(true, "3/60");
+
+        for (int i = 0; i < 3; i++) assertTrue(limiter.tryAcquire("login-user", "ana").allowed());
+        RateLimiter.Decision cuarta = limiter.tryAcquire("login-user", "ana");
+
+        assertFalse(cuarta.allowed());
+        // Una ficha nueva cada 20 s
+        assertTrue(cuarta.retryAfterSeconds() >= 1 && cuarta.retryAfterSeconds() <= 20, "" + cuarta.retryAfterSeconds());
+        assertEquals(1, registry.get("estilo26.ratelimit.rejected").tag("rule", "login-user").counter().count());
+
+        // Otra cuenta no paga por la primera
+        assertTrue(limiter.tryAcquire("login-user", "beto").allowed());
+    }
+
+    @Test
+    void bajoConcurrenciaNuncaDejaPasarMasDeLaCapacidad() throws Exception {
+        RateLimiter limiter = limiter(true, "50/3600");
+        AtomicInteger permitidas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 500; i++) {
+                pool.submit(() -> {
+                    salida.await();
+                    if (limiter.tryAcquire("login-user", "ana").allowed()) permitidas.incrementAndGet();
+                    return null;
+                });
+            }
+            salida.countDown();
+        }
+        assertEquals(50, permitidas.get());
+    }
+
+    @Test
+    void apagadoNoFrena() {
+        RateLimiter limiter = limiter(false, "1/60");
+        for (int i = 0; i < 10; i++) assertTrue(limiter.tryAcquire("login-user", "ana").allowed());
+        assertEquals(0, limiter.trackedKeys());
+    }
+
+    @Test
+    void reglaMalEscritaFallaAlArrancar() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(true, "diez por minuto"));
+        assertThrows(IllegalArgumentException.class, () -> limiter(true, "0/60"));
+    }
+
+    private RateLimiter limiter(boolean enabled, String loginUser) {
+        ApiMetrics metrics = new ApiMetrics(registry,
+                new ServiceCatalogCache(null, 1, 1), new UserDirectoryCache(null, 1), new AppointmentSlotIndex(null, 0, 1));
+        return new RateLimiter(metrics, enabled, "10/60", loginUser, "20/600");
+    }
+}
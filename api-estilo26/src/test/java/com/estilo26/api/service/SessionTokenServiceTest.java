@@ -0,0 +1,69 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La ficha se valida solo con la firma y las fechas: sin Spring ni BD.
+ */
+class SessionTokenServiceTest {
+
+    private static final String SECRETO = "secreto-de-prueba-con-32-caracteres!";
+
+    private final SessionTokenService tokens = new SessionTokenService(null, SECRETO, 60);
+
+    @Test
+    void unaFichaRecienEmitidaEsValida() {
+        String ficha = tokens.issue(usuario(7L, "barbero:uno")).token();
+
+        SessionTokenService.Session sesion = tokens.verify(ficha).orElseThrow();
+        assertEquals(7L, sesion.userId());
+        assertEquals("barbero:uno", sesion.username()); // Los ":" del nombre no rompen el formato
+        assertEquals("BARBERO", sesion.role());
+    }
+
+    @Test
+    void rechazaFichasAlteradasOFirmadasConOtroSecreto() {
+        String ficha = tokens.issue(usuario(7L, "uno")).token();
+        String payload = ficha.substring(0, ficha.indexOf('.'));
+        String firma = ficha.substring(ficha.indexOf('.') + 1);
+
+        // Alguien se sube el rol a mano y conserva la firma
+        String falso = new String(Base64.getUrlDecoder().decode(payload)).replace("BARBERO", "ADMIN");
+        String ascendido = Base64.getUrlEncoder().withoutPadding().encodeToString(falso.getBytes()) + "." + firma;
+        assertTrue(tokens.verify(ascendido).isEmpty());
+
+        SessionTokenService otraApi = new SessionTokenService(null, "otro-secreto-otro-secreto-otro!!", 60);
+        assertTrue(otraApi.verify(ficha).isEmpty());
+
+        assertTrue(tokens.verify("basura").isEmpty());
+        assertTrue(tokens.verify(payload + ".%%%").isEmpty());
+    }
+
+    @Test
+    void rechazaFichasVencidas() {
+        SessionTokenService sinDuracion = new SessionTokenService(null, SECRETO, 0);
+        assertTrue(sinDuracion.verify(sinDuracion.issue(usuario(7L, "uno")).token()).isEmpty());
+    }
+
+    @Test
+    void revocarInvalidaSoloLasFichasDeEseUsuario() {
+        String deUno = tokens.issue(usuario(1L, "uno")).token();
+        String deDos = tokens.issue(usuario(2L, "dos")).token();
+
+        tokens.revokeAll(1L);
+
+        assertTrue(tokens.verify(deUno).isEmpty());
+        assertTrue(tokens.verify(deDos).isPresent());
+        assertEquals(1, tokens.revokedCount());
+    }
+
+    private User usuario(Long id, String username) {
+        return User.builder().id(id).username(username).role("BARBERO").build();
+    }
+}
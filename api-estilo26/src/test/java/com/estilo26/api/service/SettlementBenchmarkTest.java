@@ -0,0 +1,120 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.BarberSettlementDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nómina: suma las cubetas por barbero y filtra sin importar mayúsculas.
+ * La de un año completo (decenas de miles de citas, menos de 50 ms) solo corre con -Dbenchmark=true.
+ */
+@SpringBootTest
+class SettlementBenchmarkTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2098, 1, 1);
+    private static final LocalDate HASTA = LocalDate.of(2098, 12, 31);
+    private static final int BARBEROS = 8;
+    private static final int CITAS_POR_DIA = 110; // ~40 mil en el año
+    private static final int CITAS_POR_DIA_CORTA = 12;
+    private static final String[] METODOS = {"EFECTIVO", "TARJETA", "TRANSFERENCIA"};
+
+    private static final int CALENTAMIENTO = 5;
+    private static final int MEDICIONES = 21;
+    private static final long LIMITE_MS = 50;
+
+    @Autowired
+    private CashRegisterService cashRegisterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE barber_name LIKE 'test-nomina%'");
+        jdbcTemplate.update("DELETE FROM cash_register_daily WHERE barber_name LIKE 'test-nomina%' " +
+                "AND business_date BETWEEN ? AND ?", DESDE, HASTA);
+    }
+
+    @Test
+    void liquidacionSumaPorBarbero() {
+        LocalDate hasta = DESDE.plusDays(2);
+        int sembradas = sembrar(DESDE, hasta, CITAS_POR_DIA_CORTA);
+        cashRegisterService.rebuild(DESDE, hasta);
+
+        List<BarberSettlementDTO> nomina = cashRegisterService.getSettlement(DESDE, hasta, null);
+        assertEquals(BARBEROS, nomina.size());
+        assertEquals(sembradas, nomina.stream().mapToLong(BarberSettlementDTO::getAppointments).sum());
+
+        // Filtrar por un barbero (sin importar mayúsculas) da solo su fila
+        List<BarberSettlementDTO> uno = cashRegisterService.getSettlement(DESDE, hasta, " TEST-NOMINA-3 ");
+        assertEquals(1, uno.size());
+        assertEquals("test-nomina-3", uno.get(0).getBarberName());
+        assertEquals(0, new BigDecimal("90.00").multiply(BigDecimal.valueOf(uno.get(0).getAppointments()))
+                .compareTo(uno.get(0).getCommissions()));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void liquidacionDeUnAnoEnMenosDe50ms() {
+        int sembradas = sembrar(DESDE, HASTA, CITAS_POR_DIA);
+        cashRegisterService.rebuild(DESDE, HASTA);
+
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            cashRegisterService.getSettlement(DESDE, HASTA, null);
+        }
+
+        long[] tiempos = new long[MEDICIONES];
+        List<BarberSettlementDTO> nomina = null;
+        for (int i = 0; i < MEDICIONES; i++) {
+            long inicio = System.nanoTime();
+            nomina = cashRegisterService.getSettlement(DESDE, HASTA, null);
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        double medianaMs = tiempos[MEDICIONES / 2] / 1_000_000.0;
+        System.out.printf("Liquidación de %d citas (%d barberos, 1 año): mediana %.2f ms, máx %.2f ms%n",
+                sembradas, BARBEROS, medianaMs, tiempos[MEDICIONES - 1] / 1_000_000.0);
+
+        assertEquals(BARBEROS, nomina.size());
+        assertEquals(sembradas, nomina.stream().mapToLong(BarberSettlementDTO::getAppointments).sum());
+        assertTrue(medianaMs < LIMITE_MS, "La liquidación tardó " + medianaMs + " ms");
+    }
+
+    // Citas COMPLETADAS repartidas entre barberos y métodos de pago
+    private int sembrar(LocalDate desde, LocalDate hasta, int citasPorDia) {
+        List<Object[]> filas = new ArrayList<>();
+        int n = 0;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            for (int i = 0; i < citasPorDia; i++, n++) {
+                LocalTime hora = LocalTime.of(8, 0).plusMinutes(5L * (i / BARBEROS));
+                filas.add(new Object[]{
+                        "Cliente " + n, Date.valueOf(dia), Time.valueOf(hora), Time.valueOf(hora.plusMinutes(5)),
+                        "test-nomina-" + (i % BARBEROS), METODOS[n % METODOS.length],
+                        new BigDecimal("150.00"), new BigDecimal("20.00"), new BigDecimal("10.00"),
+                        new BigDecimal("160.00"), new BigDecimal("90.00")
+                });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointments (client_name, appointment_date, appointment_time, end_time, " +
+                "barber_name, payment_method, total_services_cost, tip_amount, discount_applied, final_total_paid, " +
+                "barber_commission, status, is_walk_in, rescheduled) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'COMPLETADA', true, false)", filas);
+        return n;
+    }
+}
@@ -0,0 +1,124 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.AppointmentStatus;
+import com.estilo26.api.model.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * -------------------------------------------------------------
+ * RESERVAR Y COBRAR (AppointmentService sin BD)
+ * -------------------------------------------------------------
+ * - createAppointment: catálogo en caché, suma de precios y minutos, hora de salida,
+ *   candado (día, barbero) y choque contra el índice de la agenda.
+ * - checkoutAppointment: el cobro completo (propina, descuento, comisión con HALF_UP,
+ *   ficha del cliente y caja del día contra repositorios falsos, re-registro en el índice).
+ * - checkoutMath: solo la matemática del dinero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AppointmentServiceBenchmark {
+
+    private static final int DAYS = 14;
+    private static final BigDecimal DISCOUNT = new BigDecimal("20.00");
+    private static final BigDecimal TIP = new BigDecimal("50.00");
+
+    // Carrito de 30 min (dos servicios de 15): cabe justo en los huecos de la agenda
+    private static final List<Long> CART = List.of(1L, 5L);
+
+    private AppointmentService service;
+    private AppointmentSlotIndex slotIndex;
+
+    // Huecos libres (:30 de cada hora) repartidos en días y barberos
+    private final List<LocalDate> dates = new ArrayList<>();
+    private final List<String> barbers = new ArrayList<>();
+    private final List<LocalTime> times = new ArrayList<>();
+    private int next;
+
+    // La cita que se cobra una y otra vez (el repositorio falso siempre la devuelve)
+    private Appointment cita;
+
+    @Setup
+    public void setup() {
+        List<Service> catalogo = Fixtures.catalog();
+        cita = Appointment.builder()
+                .id(1L)
+                .clientName("Cliente Bench")
+                .clientPhone("+52 55 1234 5678")
+                .appointmentDate(LocalDate.now().plusDays(1))
+                .appointmentTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(10, 15))
+                .barberName(Fixtures.barber(3))
+                .services(new ArrayList<>(List.of(catalogo.get(0), catalogo.get(3), catalogo.get(8))))
+                .build();
+
+        slotIndex = new AppointmentSlotIndex(Fixtures.appointmentRepository(), DAYS, 400);
+        service = Fixtures.appointmentService(Fixtures.appointmentRepository(args -> Optional.of(cita)), slotIndex);
+
+        for (int d = 1; d <= DAYS; d++) {
+            for (int b = 0; b < Fixtures.BARBERS; b++) {
+                for (int h = 0; h < Fixtures.BOOKINGS_PER_BARBER; h++) {
+                    dates.add(LocalDate.now().plusDays(d));
+                    barbers.add(Fixtures.barber(b));
+                    times.add(LocalTime.of(9 + h, 30));
+                }
+            }
+        }
+        // Días y catálogo ya en memoria: medimos el camino caliente, no la primera carga
+        dates.stream().distinct().forEach(slotIndex::dayVersion);
+    }
+
+    // Incluye soltar el horario al final (unregister) para que la agenda no se llene
+    @Benchmark
+    public Appointment createAppointment() {
+        int i = next;
+        next = (i + 1) % dates.size();
+
+        Appointment nueva = Appointment.builder()
+                .clientName("Cliente " + i)
+                .clientPhone("5512345678")
+                .appointmentDate(dates.get(i))
+                .appointmentTime(times.get(i))
+                .barberName(barbers.get(i))
+                .services(Fixtures.refs(CART))
+                .build();
+
+        Appointment guardada = service.createAppointment(nueva);
+        slotIndex.unregister(guardada.getId());
+        return guardada;
+    }
+
+    @Benchmark
+    public Appointment checkoutAppointment() {
+        // Siempre un PRIMER cobro: también suma la visita del cliente y la caja del día
+        cita.setStatus(AppointmentStatus.PENDIENTE);
+        return service.checkoutAppointment(1L, "COMPLETADA", "TARJETA", DISCOUNT, TIP);
+    }
+
+    @Benchmark
+    public BigDecimal checkoutMath() {
+        service.applyCheckoutMath(cita, DISCOUNT, TIP);
+        return cita.getBarberCommission();
+    }
+}
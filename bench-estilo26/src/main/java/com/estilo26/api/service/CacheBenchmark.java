@@ -0,0 +1,75 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Service;
+import com.estilo26.api.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * -------------------------------------------------------------
+ * CACHÉS EN MEMORIA (catálogo y personal)
+ * -------------------------------------------------------------
+ * Lecturas con la caché ya llena. Las variantes "Contended" leen desde 4 hilos
+ * a la vez la MISMA caché (como varias peticiones simultáneas).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    private static final List<Long> CART = List.of(1L, 5L, 9L);
+
+    private ServiceCatalogCache catalogCache;
+    private UserDirectoryCache userDirectory;
+
+    @Setup
+    public void setup() {
+        catalogCache = Fixtures.catalogCache();
+        userDirectory = Fixtures.userDirectory();
+        catalogCache.getActiveServices();
+        userDirectory.getActiveUsers();
+    }
+
+    @Benchmark
+    public List<Service> catalogActive() {
+        return catalogCache.getActiveServices();
+    }
+
+    @Benchmark
+    public List<Service> catalogFindCart() {
+        return catalogCache.findAllById(CART);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Service> catalogFindCartContended() {
+        return catalogCache.findAllById(CART);
+    }
+
+    @Benchmark
+    public Optional<User> staffByUsername() {
+        return userDirectory.findByUsername("barbero-3");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<User> staffByUsernameContended() {
+        return userDirectory.findByUsername("barbero-3");
+    }
+}
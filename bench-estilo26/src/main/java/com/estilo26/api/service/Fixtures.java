@@ -0,0 +1,198 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.model.Appointment;
+import com.estilo26.api.model.Service;
+import com.estilo26.api.model.User;
+import com.estilo26.api.repository.AppointmentRepository;
+import com.estilo26.api.repository.AppointmentSlotView;
+import com.estilo26.api.repository.CashRegisterRepository;
+import com.estilo26.api.repository.ClientStatsRepository;
+import com.estilo26.api.repository.ServiceRepository;
+import com.estilo26.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * -------------------------------------------------------------
+ * DATOS DE UNA BARBERÍA "TÍPICA" PARA LOS BENCHMARKS
+ * -------------------------------------------------------------
+ * 12 servicios, 8 barberos (+1 admin) y una agenda con 10 citas por barbero al día.
+ * Todo sale de repositorios falsos (Stubs): ninguna prueba toca la BD.
+ */
+final class Fixtures {
+
+    static final int SERVICES = 12;
+    static final int BARBERS = 8;
+    static final int BOOKINGS_PER_BARBER = 10;
+
+    // Ids de las citas "guardadas": altos para no chocar con los de dayRows
+    private static final AtomicLong nextId = new AtomicLong(Long.MAX_VALUE / 2);
+
+    private Fixtures() { }
+
+    // ========================================================================
+    // CATÁLOGO Y PERSONAL
+    // ========================================================================
+    static List<Service> catalog() {
+        List<Service> servicios = new ArrayList<>();
+        for (long id = 1; id <= SERVICES; id++) {
+            servicios.add(Service.builder()
+                    .id(id)
+                    .name("Servicio " + id)
+                    .price(new BigDecimal(120 + id * 35 + ".50"))
+                    .durationMinutes(id % 3 == 0 ? 45 : (id % 2 == 0 ? 30 : 15))
+                    .isActive(true)
+                    .build());
+        }
+        return servicios;
+    }
+
+    static List<User> staff() {
+        List<User> equipo = new ArrayList<>();
+        for (int i = 0; i < BARBERS; i++) {
+            equipo.add(User.builder()
+                    .id((long) i + 1)
+                    .username(barber(i))
+                    .role("BARBERO")
+                    .commissionPercentage(new BigDecimal(40 + i * 2 + ".00"))
+                    .build());
+        }
+        equipo.add(User.builder().id(100L).username("admin").role("ADMIN").build());
+        return equipo;
+    }
+
+    static String barber(int i) {
+        return "barbero-" + i;
+    }
+
+    static ServiceCatalogCache catalogCache() {
+        List<Service> catalogo = catalog();
+        ServiceRepository repo = Stubs.repository(ServiceRepository.class, Map.of(
+                "findByIsActiveTrueOrderByIdAsc", args -> catalogo,
+                "findAllById", args -> {
+                    List<Service> encontrados = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        catalogo.stream().filter(s -> s.getId().equals(id)).findFirst().ifPresent(encontrados::add);
+                    }
+                    return encontrados;
+                }));
+        // TTL enorme: en el benchmark la caché nunca caduca por tiempo
+        return new ServiceCatalogCache(repo, 500, 1_000_000);
+    }
+
+    static UserDirectoryCache userDirectory() {
+        List<User> equipo = staff();
+        UserRepository repo = Stubs.repository(UserRepository.class, Map.of("findAll", args -> equipo));
+        return new UserDirectoryCache(repo, 1_000_000);
+    }
+
+    // ========================================================================
+    // AGENDA: cada barbero tiene citas de 30 min cada hora desde las 9:00
+    // ========================================================================
+    static List<AppointmentSlotView> dayRows(LocalDate date) {
+        List<AppointmentSlotView> filas = new ArrayList<>();
+        long base = date.toEpochDay() * 1_000;
+        for (int b = 0; b < BARBERS; b++) {
+            for (int h = 0; h < BOOKINGS_PER_BARBER; h++) {
+                LocalTime inicio = LocalTime.of(9 + h, 0);
+                filas.add(slot(base + b * 100L + h, date, inicio, inicio.plusMinutes(30), barber(b)));
+            }
+        }
+        return filas;
+    }
+
+    // Repositorio de citas: días con la agenda de arriba, y "guardar" solo asigna id
+    static AppointmentRepository appointmentRepository(Function<Object[], Object> findWithServicesById) {
+        Function<Object[], Object> guardar = args -> {
+            Appointment cita = (Appointment) args[0];
+            if (cita.getId() == null) cita.setId(nextId.getAndIncrement());
+            return cita;
+        };
+        return Stubs.repository(AppointmentRepository.class, Map.of(
+                "findByAppointmentDateAndStatusNot", args -> dayRows((LocalDate) args[0]),
+                "findByAppointmentDateBetweenAndStatusNot", args -> List.of(),
+                "findWithServicesById", findWithServicesById,
+                // Checkout y reagendar leen primero el día y el barbero (para el candado): la misma cita
+                "findSlotById", args -> ((Optional<?>) findWithServicesById.apply(args))
+                        .map(o -> (Appointment) o)
+                        .map(c -> slot(c.getId(), c.getAppointmentDate(), c.getAppointmentTime(), c.getEndTime(), c.getBarberName())),
+                "save", guardar,
+                "saveAndFlush", guardar));
+    }
+
+    static AppointmentRepository appointmentRepository() {
+        return appointmentRepository(args -> Optional.empty());
+    }
+
+    // ========================================================================
+    // SERVICIOS DE LA API ARMADOS A MANO (sin Spring)
+    // ========================================================================
+    static AppointmentService appointmentService(AppointmentRepository repo, AppointmentSlotIndex slotIndex) {
+        ClientStatsService clientStats = Stubs.inject(new ClientStatsService(),
+                "clientStatsRepository", Stubs.repository(ClientStatsRepository.class));
+        CashRegisterService cashRegister = Stubs.inject(new CashRegisterService(),
+                "cashRegisterRepository", Stubs.repository(CashRegisterRepository.class));
+
+        ServiceCatalogCache catalogo = catalogCache();
+        UserDirectoryCache directorio = userDirectory();
+
+        AppointmentService service = new AppointmentService();
+        Stubs.inject(service, "appointmentRepository", repo);
+        Stubs.inject(service, "catalogCache", catalogo);
+        Stubs.inject(service, "userDirectory", directorio);
+        Stubs.inject(service, "slotIndex", slotIndex);
+        Stubs.inject(service, "bookingLocks", new BookingLocks());
+        Stubs.inject(service, "clientStatsService", clientStats);
+        Stubs.inject(service, "cashRegisterService", cashRegister);
+        // Registro en memoria: los contadores cuestan lo mismo que en la API, sin Prometheus
+        Stubs.inject(service, "metrics", new ApiMetrics(new SimpleMeterRegistry(), catalogo, directorio, slotIndex));
+        // Sin pantallas conectadas: publicar el aviso no cuesta nada
+        Stubs.inject(service, "events", (ApplicationEventPublisher) evento -> { });
+        // Sin BD no hay transacción: el template solo corre el intento
+        Stubs.inject(service, "transactionTemplate",
+                new TransactionTemplate(Stubs.repository(PlatformTransactionManager.class)));
+        return service;
+    }
+
+    static AvailabilityService availabilityService(AppointmentSlotIndex slotIndex) {
+        AvailabilityService service = new AvailabilityService();
+        Stubs.inject(service, "slotIndex", slotIndex);
+        Stubs.inject(service, "catalogCache", catalogCache());
+        Stubs.inject(service, "userDirectory", userDirectory());
+        Stubs.inject(service, "apertura", LocalTime.of(8, 0));
+        Stubs.inject(service, "cierre", LocalTime.of(21, 0));
+        Stubs.inject(service, "pasoMinutos", 15);
+        Stubs.inject(service, "horizonteDias", 180);
+        Stubs.inject(service, "maxResultadosPorDia", 256);
+        return service;
+    }
+
+    static List<Service> refs(Collection<Long> ids) {
+        List<Service> refs = new ArrayList<>();
+        for (Long id : ids) refs.add(Service.builder().id(id).build());
+        return refs;
+    }
+
+    private static AppointmentSlotView slot(long id, LocalDate date, LocalTime start, LocalTime end, String barber) {
+        return new AppointmentSlotView() {
+            public Long getId() { return id; }
+            public LocalDate getAppointmentDate() { return date; }
+            public LocalTime getAppointmentTime() { return start; }
+            public LocalTime getEndTime() { return end; }
+            public String getBarberName() { return barber; }
+        };
+    }
+}
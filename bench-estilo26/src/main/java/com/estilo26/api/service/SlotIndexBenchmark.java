@@ -0,0 +1,116 @@
+package com.estilo26.api.service;
+
+import com.estilo26.api.dto.AvailabilityDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * -------------------------------------------------------------
+ * ÍNDICE DE LA AGENDA Y DISPONIBILIDAD
+ * -------------------------------------------------------------
+ * Consultas al azar (día, barbero, hora) sobre 14 días ya cargados
+ * con 8 barberos y 10 citas cada uno.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SlotIndexBenchmark {
+
+    private static final int DAYS = 14;
+    private static final int QUERIES = 1024;
+    private static final List<Long> CART = List.of(1L, 2L);
+
+    private AppointmentSlotIndex slotIndex;
+    private AvailabilityService availability;
+
+    private final LocalDate[] dates = new LocalDate[QUERIES];
+    private final String[] barbers = new String[QUERIES];
+    private final LocalTime[] starts = new LocalTime[QUERIES];
+    private final LocalTime[] ends = new LocalTime[QUERIES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        slotIndex = new AppointmentSlotIndex(Fixtures.appointmentRepository(), DAYS, 400);
+        availability = Fixtures.availabilityService(slotIndex);
+
+        SplittableRandom random = new SplittableRandom(26);
+        for (int i = 0; i < QUERIES; i++) {
+            dates[i] = LocalDate.now().plusDays(1 + random.nextInt(DAYS));
+            barbers[i] = Fixtures.barber(random.nextInt(Fixtures.BARBERS));
+            starts[i] = LocalTime.of(8, 0).plusMinutes(15L * random.nextInt(48));
+            ends[i] = starts[i].plusMinutes(30 + 15L * random.nextInt(3));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            availability.getAvailability(dates[i], barbers[i], CART);
+            availability.getAvailability(dates[i], null, CART);
+        }
+    }
+
+    private int nextQuery() {
+        int i = next;
+        next = (i + 1) & (QUERIES - 1);
+        return i;
+    }
+
+    @Benchmark
+    public boolean isAvailable() {
+        int i = nextQuery();
+        return slotIndex.isAvailable(dates[i], barbers[i], starts[i], ends[i], null);
+    }
+
+    // Reservar y cancelar: lo que hace el índice en cada alta/baja
+    @Benchmark
+    public long registerAndRelease() {
+        int i = nextQuery();
+        long id = -1 - i;
+        slotIndex.register(id, dates[i], barbers[i], starts[i], ends[i]);
+        slotIndex.unregister(id);
+        return id;
+    }
+
+    @Benchmark
+    public AppointmentSlotIndex.DaySnapshot snapshot() {
+        return slotIndex.snapshot(dates[nextQuery()]);
+    }
+
+    // Lo normal en la página pública: el cálculo ya está en caché
+    @Benchmark
+    public AvailabilityDTO availabilityCached() {
+        int i = nextQuery();
+        return availability.getAvailability(dates[i], barbers[i], CART);
+    }
+
+    @Benchmark
+    public AvailabilityDTO availabilityAnyBarberCached() {
+        int i = nextQuery();
+        return availability.getAvailability(dates[i], null, CART);
+    }
+
+    // Alguien reservó en ese día: la versión cambia y hay que recalcular
+    @Benchmark
+    public AvailabilityDTO availabilityAfterBooking() {
+        int i = nextQuery();
+        long id = -1 - i;
+        slotIndex.register(id, dates[i], barbers[i], starts[i], ends[i]);
+        slotIndex.unregister(id);
+        return availability.getAvailability(dates[i], barbers[i], CART);
+    }
+}
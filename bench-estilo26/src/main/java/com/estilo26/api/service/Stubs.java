@@ -0,0 +1,64 @@
+package com.estilo26.api.service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * -------------------------------------------------------------
+ * REPOSITORIOS FALSOS PARA LOS BENCHMARKS
+ * -------------------------------------------------------------
+ * Un Proxy de la interfaz del repositorio: los métodos que se registran responden
+ * lo que diga la función; el resto devuelve "vacío" (null, 0, false, lista vacía,
+ * Optional.empty). Así se mide la lógica de los servicios sin Postgres ni Spring.
+ *
+ * Sin Mockito a propósito: su registro de invocaciones ensuciaría los números.
+ */
+final class Stubs {
+
+    private Stubs() { }
+
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+
+            return switch (method.getName()) {
+                case "toString" -> "Stub<" + type.getSimpleName() + ">";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> empty(method.getReturnType());
+            };
+        });
+    }
+
+    static <T> T repository(Class<T> type) {
+        return repository(type, Map.of());
+    }
+
+    // Los servicios de la API usan @Autowired en campos: los llenamos a mano
+    static <T> T inject(T target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo inyectar " + field, e);
+        }
+    }
+
+    private static Object empty(Class<?> type) {
+        if (type == Optional.class) return Optional.empty();
+        if (type == List.class || type == Iterable.class || type == Collection.class) return List.of();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}